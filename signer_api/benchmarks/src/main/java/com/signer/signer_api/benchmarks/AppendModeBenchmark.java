@@ -0,0 +1,87 @@
+package com.signer.signer_api.benchmarks;
+
+import com.signer.signer_api.models.dto.certificate.CertificateSession;
+import com.signer.signer_api.models.dto.signature.SignatureRequestDto;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.services.SessionCertificateService;
+import com.signer.signer_api.services.SignatureService;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full rewrite against incremental update when signing large documents.
+ * The output size of each mode is printed during setup; run with {@code -prof gc} to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AppendModeBenchmark {
+
+    @Param({"250", "2000"})
+    public int pages;
+
+    @Param({"false", "true"})
+    public boolean appendMode;
+
+    private Path workDir;
+    private PdfSpoolService spoolService;
+    private SignatureService signatureService;
+    private SigningContext context;
+    private SignatureRequestDto request;
+    private SpooledPdf input;
+
+    @Setup
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("bench-append");
+        spoolService = BenchmarkSupport.spoolService(workDir);
+        signatureService = BenchmarkSupport.signatureService(workDir, spoolService, BenchmarkSupport.imageCache());
+
+        SessionCertificateService sessionCertificateService = new SessionCertificateService(
+                BenchmarkSupport.rootCA(),
+                BenchmarkSupport.keyPairPool(BenchmarkSupport.keyGenerator("RSA"), false));
+        BenchmarkSupport.setField(sessionCertificateService, "sessionValidityHours", 24);
+        CertificateSession session = sessionCertificateService.createSession("benchmark", "Benchmark User");
+        context = new SigningContext(UUID.randomUUID(), "benchmark", "Benchmark User", session);
+
+        input = spoolService.spool(new ByteArrayInputStream(BenchmarkSupport.samplePdf(pages)));
+        request = new SignatureRequestDto(1, 36, 36, 220, 80, "#1F3A93", 9, "Helvetica", "#000000",
+                "Director", "Approval", "Mumbai", null, null, null, null, null, null, appendMode, null);
+
+        try (SpooledPdf signed = sign()) {
+            System.out.printf("%n%d pages, append mode %s: %d bytes in, %d bytes out%n",
+                    pages, appendMode, input.size(), signed.size());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        input.close();
+        try (Stream<Path> files = Files.walk(workDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long signDocument() throws Exception {
+        try (SpooledPdf signed = sign()) {
+            return signed.size();
+        }
+    }
+
+    private SpooledPdf sign() throws Exception {
+        return signatureService.sign(context, request, null, input);
+    }
+}
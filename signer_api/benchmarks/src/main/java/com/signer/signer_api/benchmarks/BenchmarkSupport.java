@@ -0,0 +1,207 @@
+package com.signer.signer_api.benchmarks;
+
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.AreaBreak;
+import com.itextpdf.layout.element.Image;
+import com.itextpdf.layout.element.Paragraph;
+import com.signer.signer_api.services.SignatureAppearanceTemplates;
+import com.signer.signer_api.services.SignatureImageCache;
+import com.signer.signer_api.services.SignatureService;
+import com.signer.signer_api.services.keys.SessionKeyGenerator;
+import com.signer.signer_api.services.keys.SessionKeyPairPool;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.storage.DeltaBaseService;
+import com.signer.signer_api.services.storage.LocalFileStorageService;
+import com.signer.signer_api.utils.RootCAManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Builds application components outside Spring for benchmarks.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Sets a private (usually {@code @Value}) field.
+     */
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name + " on " + target.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * A root CA generated into a temporary directory.
+     */
+    static RootCAManager rootCA() throws IOException {
+        Path dir = Files.createTempDirectory("bench-ca");
+        RootCAManager rootCAManager = new RootCAManager();
+        setField(rootCAManager, "rootCAPath", dir.resolve("root_ca.p12").toString());
+        setField(rootCAManager, "rootCAPassword", "benchmark");
+        setField(rootCAManager, "rootCAAlias", "BenchmarkRootCA");
+        setField(rootCAManager, "rootValidityYears", 1);
+        rootCAManager.init();
+        return rootCAManager;
+    }
+
+    static SessionKeyGenerator keyGenerator(String algorithm) {
+        SessionKeyGenerator generator = new SessionKeyGenerator();
+        setField(generator, "keyAlgorithmName", algorithm);
+        setField(generator, "rsaKeySize", 2048);
+        setField(generator, "ecCurve", "secp256r1");
+        generator.init();
+        return generator;
+    }
+
+    /**
+     * A key pool around {@code generator}. A disabled pool generates a key on every call.
+     */
+    static SessionKeyPairPool keyPairPool(SessionKeyGenerator generator, boolean enabled) {
+        SessionKeyPairPool pool = new SessionKeyPairPool(generator, new SimpleMeterRegistry());
+        setField(pool, "enabled", enabled);
+        setField(pool, "highWatermark", 64);
+        setField(pool, "lowWatermark", 16);
+        setField(pool, "refillThreads", 1);
+        pool.init();
+        return pool;
+    }
+
+    static PdfSpoolService spoolService(Path dir) {
+        PdfSpoolService spoolService = new PdfSpoolService(JsonMapper.builder().build());
+        setField(spoolService, "spoolPath", dir.resolve("spool").toString());
+        setField(spoolService, "memoryThreshold", 1024 * 1024);
+        setField(spoolService, "maxBytes", 256L * 1024 * 1024);
+        spoolService.init();
+        return spoolService;
+    }
+
+    /**
+     * A signature service with local storage under {@code dir} and no database.
+     */
+    static SignatureService signatureService(Path dir, PdfSpoolService spoolService,
+                                             SignatureImageCache imageCache) {
+        LocalFileStorageService storageService = new LocalFileStorageService();
+        setField(storageService, "basePath", dir.resolve("documents").toString());
+        storageService.init();
+
+        SignatureAppearanceTemplates appearanceTemplates = new SignatureAppearanceTemplates();
+        setField(appearanceTemplates, "maxEntries", 100);
+
+        SignatureService signatureService = new SignatureService();
+        setField(signatureService, "storageService", storageService);
+        setField(signatureService, "pdfSpoolService", spoolService);
+        setField(signatureService, "signatureImageCache", imageCache);
+        setField(signatureService, "appearanceTemplates", appearanceTemplates);
+        setField(signatureService, "deltaBaseService", new DeltaBaseService(null, null, storageService, null) {
+            // Base references live in the database; the benchmark stores without one
+            @Override
+            public void acquire(String baseHash) {
+            }
+
+            @Override
+            public void release(String baseHash) {
+            }
+        });
+        setField(signatureService, "largeDocumentThreshold", 32L * 1024 * 1024);
+        setField(signatureService, "appendModeByDefault", true);
+        setField(signatureService, "deltaStorageEnabled", true);
+        setField(signatureService, "deltaMinBaseBytes", 1024L * 1024);
+        return signatureService;
+    }
+
+    static SignatureImageCache imageCache() {
+        SignatureImageCache imageCache = new SignatureImageCache();
+        setField(imageCache, "maxBytes", 64L * 1024 * 1024);
+        return imageCache;
+    }
+
+    /**
+     * A text-only PDF with {@code pages} pages of a few paragraphs each.
+     */
+    static byte[] samplePdf(int pages) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Document document = new Document(new PdfDocument(new PdfWriter(out)))) {
+            for (int page = 1; page <= pages; page++) {
+                if (page > 1) {
+                    document.add(new AreaBreak());
+                }
+                for (int paragraph = 0; paragraph < 12; paragraph++) {
+                    document.add(new Paragraph("Page " + page + ", clause " + paragraph + ". "
+                            + "The parties agree to the terms set out in this agreement, including the schedules "
+                            + "attached to it, and confirm that they have read and understood every provision."));
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A scanned-looking PDF: one full-page image per page of about {@code bytesPerPage} bytes. The pixels are
+     * noise, so the images do not compress and the file is about {@code pages * bytesPerPage} bytes.
+     */
+    static byte[] sampleScan(int pages, int bytesPerPage) {
+        int side = (int) Math.sqrt(bytesPerPage / 3.0);
+        byte[] pixels = new byte[side * side * 3];
+        Random random = new Random(42);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(pages * bytesPerPage + 1024 * 1024);
+        try (Document document = new Document(new PdfDocument(new PdfWriter(out)), PageSize.A4)) {
+            document.setMargins(0, 0, 0, 0);
+            for (int page = 1; page <= pages; page++) {
+                if (page > 1) {
+                    document.add(new AreaBreak());
+                }
+                random.nextBytes(pixels);
+                Image image = new Image(ImageDataFactory.create(side, side, 3, 8, pixels, null));
+                document.add(image.scaleToFit(PageSize.A4.getWidth(), PageSize.A4.getHeight()));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A hand-drawn style PNG signature, like the ones the signature pad produces.
+     */
+    static byte[] signaturePng() throws IOException {
+        BufferedImage image = new BufferedImage(600, 200, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(new Color(20, 40, 120));
+        graphics.setStroke(new BasicStroke(4));
+        int previousX = 30;
+        int previousY = 100;
+        for (int x = 40; x < 570; x += 10) {
+            int y = 100 + (int) (60 * Math.sin(x / 23.0) * Math.cos(x / 71.0));
+            graphics.drawLine(previousX, previousY, x, y);
+            previousX = x;
+            previousY = y;
+        }
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,54 @@
+package com.signer.signer_api.benchmarks;
+
+import com.signer.signer_api.models.dto.certificate.CertificateIssueRequest;
+import com.signer.signer_api.utils.RootCAManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Certificates issued per second by the Root CA with several threads competing for it.
+ * Key generation is kept out of the measurement; every call certifies the same public key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class CertificateIssuanceBenchmark {
+
+    private static final int BATCH_SIZE = 16;
+
+    private RootCAManager rootCAManager;
+    private KeyPair keyPair;
+    private List<CertificateIssueRequest> batch;
+
+    @Setup
+    public void setUp() throws Exception {
+        rootCAManager = BenchmarkSupport.rootCA();
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        keyPair = generator.generateKeyPair();
+        batch = Collections.nCopies(BATCH_SIZE,
+                new CertificateIssueRequest(keyPair.getPublic(), "Benchmark User", 24));
+    }
+
+    @Benchmark
+    public X509Certificate issue() throws Exception {
+        return rootCAManager.signUserCertificate(keyPair.getPublic(), "Benchmark User", 24);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<X509Certificate> issueBatch() throws Exception {
+        return rootCAManager.signUserCertificates(batch);
+    }
+}
@@ -0,0 +1,79 @@
+package com.signer.signer_api.benchmarks;
+
+import com.signer.signer_api.filters.JwtAuthFilter;
+import com.signer.signer_api.models.User;
+import com.signer.signer_api.services.VerifiedTokenCache;
+import com.signer.signer_api.utils.JWTUtils;
+import io.jsonwebtoken.Jwts;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a request with a JWT cookie.
+ * {@code parseTwice} is the filter's former work: a new parser for a validating parse and another for the
+ * username. The filter itself runs with the verified-token cache off (one parse with the shared parser) and on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    private static final String SECRET =
+            "1234543213hsdbssancjsfheJHGFDSKJLJnsacnijsncishdijsa876787567865435678907432567890874325768976453456789764534567897645";
+
+    @Param({"false", "true"})
+    private boolean tokenCache;
+
+    private String token;
+    private JwtAuthFilter filter;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        JWTUtils jwtUtils = new JWTUtils();
+        BenchmarkSupport.setField(jwtUtils, "jwtSecret", SECRET);
+        BenchmarkSupport.setField(jwtUtils, "jwtExpiration", 3_600_000L);
+        jwtUtils.init();
+        token = jwtUtils.generateToken(User.builder()
+                .id(UUID.randomUUID()).username("benchmark").fullname("Benchmark User").build());
+
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+        BenchmarkSupport.setField(cache, "enabled", tokenCache);
+        BenchmarkSupport.setField(cache, "maxEntries", 10_000);
+
+        filter = new JwtAuthFilter();
+        BenchmarkSupport.setField(filter, "jwtUtils", jwtUtils);
+        BenchmarkSupport.setField(filter, "tokenCache", cache);
+        chain = (request, response) -> {
+        };
+    }
+
+    @Benchmark
+    public String parseTwice() {
+        if (Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token) == null) {
+            return null;
+        }
+        return Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public Authentication filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/documents");
+        request.setCookies(new Cookie("auth_token", token));
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
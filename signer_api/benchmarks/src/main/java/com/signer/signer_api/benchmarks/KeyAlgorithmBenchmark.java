@@ -0,0 +1,75 @@
+package com.signer.signer_api.benchmarks;
+
+import com.signer.signer_api.models.dto.certificate.CertificateSession;
+import com.signer.signer_api.models.dto.signature.HashSigningRequestDto;
+import com.signer.signer_api.models.dto.signature.HashSigningResponseDto;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.services.DeferredSigningService;
+import com.signer.signer_api.services.SessionCertificateService;
+import com.signer.signer_api.services.keys.SessionKeyGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login and signing cost per session key algorithm.
+ * <ul>
+ *     <li>{@code generateKeyPair}: key generation alone</li>
+ *     <li>{@code login}: what a login pays, key generation plus certificate issuance</li>
+ *     <li>{@code signHash}: one detached CMS signature over a document digest</li>
+ * </ul>
+ * Sample mode reports latency percentiles, which matter more than the mean for RSA key generation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyAlgorithmBenchmark {
+
+    @Param({"RSA", "EC"})
+    public String algorithm;
+
+    private SessionKeyGenerator keyGenerator;
+    private SessionCertificateService sessionCertificateService;
+    private DeferredSigningService deferredSigningService;
+    private SigningContext context;
+    private HashSigningRequestDto hashRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        keyGenerator = BenchmarkSupport.keyGenerator(algorithm);
+        // Unpooled, so login pays the full key generation cost
+        sessionCertificateService = new SessionCertificateService(
+                BenchmarkSupport.rootCA(), BenchmarkSupport.keyPairPool(keyGenerator, false));
+        BenchmarkSupport.setField(sessionCertificateService, "sessionValidityHours", 24);
+
+        CertificateSession session = sessionCertificateService.createSession("benchmark", "Benchmark User");
+        context = new SigningContext(UUID.randomUUID(), "benchmark", "Benchmark User", session);
+        deferredSigningService = new DeferredSigningService();
+
+        byte[] digest = new byte[32];
+        new SecureRandom().nextBytes(digest);
+        hashRequest = new HashSigningRequestDto(Base64.getEncoder().encodeToString(digest), "SHA-256");
+    }
+
+    @Benchmark
+    public KeyPair generateKeyPair() {
+        return keyGenerator.generate();
+    }
+
+    @Benchmark
+    public CertificateSession login() {
+        return sessionCertificateService.createSession("benchmark", "Benchmark User");
+    }
+
+    @Benchmark
+    public HashSigningResponseDto signHash() {
+        return deferredSigningService.signHash(context, hashRequest);
+    }
+}
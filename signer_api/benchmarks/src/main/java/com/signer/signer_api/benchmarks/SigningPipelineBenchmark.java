@@ -0,0 +1,205 @@
+package com.signer.signer_api.benchmarks;
+
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.ReaderProperties;
+import com.itextpdf.kernel.pdf.StampingProperties;
+import com.itextpdf.signatures.PdfSigner;
+import com.signer.signer_api.models.SignedDocument;
+import com.signer.signer_api.models.dto.certificate.CertificateSession;
+import com.signer.signer_api.models.dto.signature.SignatureRequestDto;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.services.PdfOptimizer;
+import com.signer.signer_api.services.SessionCertificateService;
+import com.signer.signer_api.services.SignatureImage;
+import com.signer.signer_api.services.SignaturePipelineStages;
+import com.signer.signer_api.services.SignatureService;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpoolOutputStream;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The stages of {@code SignatureService.processPdf}, timed one at a time, plus the whole signing step.
+ * <ul>
+ *     <li>{@code decodeBase64}: base64 request body into a spool</li>
+ *     <li>{@code parse}: {@code PdfReader} and document open</li>
+ *     <li>{@code createSignatureBox}: signer setup and the visible appearance</li>
+ *     <li>{@code applyDigitalSignature}: revision write, digest and CMS signature</li>
+ *     <li>{@code store}: writing the signed file to local storage</li>
+ *     <li>{@code sign}: spooling a binary upload and signing it, everything but the store</li>
+ * </ul>
+ * The stage benchmarks read the document from memory; {@code sign} spools it to disk first, as an upload is,
+ * so the scanned document goes through the memory-mapped large-document path. Every stage runs in both stamping
+ * modes, so append mode (what production uses) and full rewrite can be compared directly.
+ * Reports throughput and latency percentiles. Add the GC profiler for allocation per operation:
+ * {@code java -jar target/benchmarks.jar SigningPipeline -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true", "-Xmx2g"})
+public class SigningPipelineBenchmark {
+
+    /**
+     * The document to sign: 1, 25 or 250 pages of text (roughly 10 KB, 250 KB and 2.5 MB), or a 60 page
+     * scan of about 48 MB, above the 32 MB large-document threshold.
+     */
+    @Param({"text-1", "text-25", "text-250", "scan-48MB"})
+    public String sample;
+
+    @Param({"false", "true"})
+    public boolean withImage;
+
+    /**
+     * Incremental update, the production default ({@code app.signing.append-mode}), or a full rewrite.
+     */
+    @Param({"true", "false"})
+    public boolean appendMode;
+
+    private Path workDir;
+    private PdfSpoolService spoolService;
+    private SignatureService signatureService;
+    private SigningContext context;
+    private SignatureRequestDto request;
+    private SignatureImage signatureImage;
+    private byte[] pdf;
+    private String base64Pdf;
+    private SpooledPdf original;
+    private SpooledPdf signedPdf;
+
+    @Setup
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("bench-pipeline");
+        spoolService = BenchmarkSupport.spoolService(workDir);
+        var imageCache = BenchmarkSupport.imageCache();
+        signatureService = BenchmarkSupport.signatureService(workDir, spoolService, imageCache);
+
+        SessionCertificateService sessionCertificateService = new SessionCertificateService(
+                BenchmarkSupport.rootCA(),
+                BenchmarkSupport.keyPairPool(BenchmarkSupport.keyGenerator("RSA"), false));
+        BenchmarkSupport.setField(sessionCertificateService, "sessionValidityHours", 24);
+        CertificateSession session = sessionCertificateService.createSession("benchmark", "Benchmark User");
+        context = new SigningContext(UUID.randomUUID(), "benchmark", "Benchmark User", session);
+
+        pdf = sample.startsWith("scan-")
+                ? BenchmarkSupport.sampleScan(60, 800 * 1024)
+                : BenchmarkSupport.samplePdf(Integer.parseInt(sample.substring("text-".length())));
+        base64Pdf = Base64.getEncoder().encodeToString(pdf);
+        signatureImage = withImage ? imageCache.decode(BenchmarkSupport.signaturePng()) : null;
+        request = new SignatureRequestDto(1, 36, 36, 220, 80, "#1F3A93", 9, "Helvetica", "#000000",
+                "Director", "Approval", "Mumbai", null, null, null, null, null, null, appendMode, null);
+        original = spoolService.spool(new ByteArrayInputStream(pdf));
+        signedPdf = signatureService.sign(context, request, signatureImage, original);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearStorage() throws IOException {
+        Path documents = workDir.resolve("documents");
+        try (Stream<Path> files = Files.walk(documents)) {
+            files.sorted(Comparator.reverseOrder())
+                    .filter(path -> !path.equals(documents))
+                    .forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        original.close();
+        signedPdf.close();
+        try (Stream<Path> files = Files.walk(workDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * A signer with its appearance in place, rebuilt before every call to {@code applyDigitalSignature}.
+     */
+    @State(Scope.Thread)
+    public static class PreparedSigner {
+        PdfSigner signer;
+        SpoolOutputStream output;
+
+        @Setup(Level.Invocation)
+        public void prepare(SigningPipelineBenchmark pipeline) throws Exception {
+            output = pipeline.spoolService.newOutput();
+            signer = pipeline.newSigner(output);
+            SignaturePipelineStages.createSignatureBox(pipeline.signatureService, signer, pipeline.context,
+                    pipeline.request, pipeline.signatureImage);
+        }
+
+        @TearDown(Level.Invocation)
+        public void release() {
+            output.discard();
+        }
+    }
+
+    private PdfSigner newSigner(SpoolOutputStream output) throws IOException {
+        PdfReader reader = new PdfReader(
+                new RandomAccessSourceFactory().createSource(pdf), new ReaderProperties());
+        StampingProperties properties = appendMode ? new StampingProperties().useAppendMode() : new StampingProperties();
+        return new PdfSigner(reader, output, properties);
+    }
+
+    @Benchmark
+    public long decodeBase64() {
+        try (SpooledPdf spooled = spoolService.spoolBase64(base64Pdf)) {
+            return spooled.size();
+        }
+    }
+
+    @Benchmark
+    public int parse() throws IOException {
+        PdfReader reader = new PdfReader(
+                new RandomAccessSourceFactory().createSource(pdf), new ReaderProperties());
+        try (PdfDocument document = new PdfDocument(reader)) {
+            return document.getNumberOfPages();
+        }
+    }
+
+    @Benchmark
+    public void createSignatureBox(Blackhole blackhole) throws Exception {
+        SpoolOutputStream output = spoolService.newOutput();
+        try {
+            PdfSigner signer = newSigner(output);
+            SignaturePipelineStages.createSignatureBox(signatureService, signer, context, request, signatureImage);
+            blackhole.consume(signer);
+        } finally {
+            output.discard();
+        }
+    }
+
+    @Benchmark
+    public SpoolOutputStream applyDigitalSignature(PreparedSigner prepared) throws Exception {
+        SignaturePipelineStages.applyDigitalSignature(signatureService, prepared.signer, context.session());
+        return prepared.output;
+    }
+
+    @Benchmark
+    public SignedDocument store() throws IOException {
+        return signatureService.storeSignedDocument(context, PdfOptimizer.Result.unchanged(original), signedPdf, request,
+                "document.pdf");
+    }
+
+    @Benchmark
+    public long sign() throws Exception {
+        try (SpooledPdf input = spoolService.spool(new ByteArrayInputStream(pdf));
+             SpooledPdf signed = signatureService.sign(context, request, signatureImage, input)) {
+            return signed.size();
+        }
+    }
+}
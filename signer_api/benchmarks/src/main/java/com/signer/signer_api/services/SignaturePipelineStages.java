@@ -0,0 +1,28 @@
+package com.signer.signer_api.services;
+
+import com.itextpdf.signatures.PdfSigner;
+import com.signer.signer_api.models.dto.certificate.CertificateSession;
+import com.signer.signer_api.models.dto.signature.SignatureRequestDto;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.models.dto.signature.SigningProperties;
+
+/**
+ * Exposes the package-private stages of {@link SignatureService} to the benchmarks.
+ */
+public final class SignaturePipelineStages {
+
+    private SignaturePipelineStages() {
+    }
+
+    public static void createSignatureBox(SignatureService signatureService, PdfSigner signer, SigningContext context,
+                                          SignatureRequestDto dto, SignatureImage signatureImage) throws Exception {
+        SigningProperties signingProperties = new SigningProperties(
+                context.fullName(), dto.role(), dto.location(), dto.reason());
+        signatureService.createSignatureBox(signer, context, dto, signingProperties, signatureImage);
+    }
+
+    public static void applyDigitalSignature(SignatureService signatureService, PdfSigner signer,
+                                             CertificateSession session) throws Exception {
+        signatureService.applyDigitalSignature(signer, session);
+    }
+}
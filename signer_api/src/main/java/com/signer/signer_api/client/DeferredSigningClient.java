@@ -0,0 +1,91 @@
+package com.signer.signer_api.client;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.StampingProperties;
+import com.itextpdf.signatures.DigestAlgorithms;
+import com.itextpdf.signatures.IExternalSignatureContainer;
+import com.itextpdf.signatures.PdfSigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * Client-side half of hash-only signing, for edge components that hold the PDF.
+ * {@link #prepare} reserves an empty signature container and returns the SHA-256 digest to send to
+ * {@code /api/signature/sign-hash}; {@link #embed} writes the returned container into the prepared PDF.
+ * <p>
+ * Nothing on the server uses this class. It lives in the API module so the client half is built and
+ * tested against the same iText version as the server half in {@code DeferredSigningService}.
+ */
+public final class DeferredSigningClient {
+
+    private DeferredSigningClient() {
+    }
+
+    /**
+     * Adds an empty signature field to the document as an incremental update and writes the prepared PDF
+     * to {@code out}.
+     *
+     * @param estimatedSize bytes reserved for the container, see {@code estimatedContainerSize}
+     * @return the SHA-256 digest of the byte ranges the signature will cover
+     */
+    public static byte[] prepare(PdfReader reader, OutputStream out, String fieldName, int pageNumber,
+                                 Rectangle rect, int estimatedSize) throws IOException, GeneralSecurityException {
+        PdfSigner signer = new PdfSigner(reader, out, new StampingProperties().useAppendMode());
+        signer.setFieldName(fieldName);
+        signer.getSignatureAppearance()
+                .setPageNumber(pageNumber)
+                .setPageRect(rect);
+
+        DigestCapturingContainer container = new DigestCapturingContainer();
+        signer.signExternalContainer(container, estimatedSize);
+        return container.digest;
+    }
+
+    /**
+     * Writes a CMS container returned by the server into the reserved field of a prepared PDF.
+     */
+    public static void embed(PdfReader prepared, OutputStream out, String fieldName, byte[] container)
+            throws IOException, GeneralSecurityException {
+        try (PdfDocument document = new PdfDocument(prepared)) {
+            PdfSigner.signDeferred(document, fieldName, out, new IExternalSignatureContainer() {
+                @Override
+                public byte[] sign(InputStream data) {
+                    return container;
+                }
+
+                @Override
+                public void modifySigningDictionary(PdfDictionary signDic) {
+                }
+            });
+        }
+    }
+
+    private static class DigestCapturingContainer implements IExternalSignatureContainer {
+
+        private byte[] digest;
+
+        @Override
+        public byte[] sign(InputStream data) throws GeneralSecurityException {
+            try {
+                digest = DigestAlgorithms.digest(data, MessageDigest.getInstance("SHA-256"));
+            } catch (IOException e) {
+                throw new GeneralSecurityException("Failed to digest document", e);
+            }
+            return new byte[0];
+        }
+
+        @Override
+        public void modifySigningDictionary(PdfDictionary signDic) {
+            signDic.put(PdfName.Filter, PdfName.Adobe_PPKLite);
+            signDic.put(PdfName.SubFilter, PdfName.Adbe_pkcs7_detached);
+        }
+    }
+}
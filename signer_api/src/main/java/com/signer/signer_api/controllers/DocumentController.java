@@ -1,15 +1,21 @@
 package com.signer.signer_api.controllers;
 
 import com.signer.signer_api.models.SignedDocument;
-import com.signer.signer_api.models.User;
+import com.signer.signer_api.models.UserPrincipal;
+import com.signer.signer_api.models.dto.common.CursorPageResponseDto;
+import com.signer.signer_api.models.dto.document.DocumentCursor;
 import com.signer.signer_api.models.dto.document.SignedDocumentDto;
+import com.signer.signer_api.models.dto.document.SignedDocumentSummary;
 import com.signer.signer_api.repo.SignedDocumentRepo;
-import com.signer.signer_api.repo.UserRepo;
+import com.signer.signer_api.services.SignatureService;
 import com.signer.signer_api.services.storage.DocumentStorageService;
 import com.signer.signer_api.models.dto.common.PageResponseDto;
+import com.signer.signer_api.utils.DocumentStreamingUtil;
 import com.signer.signer_api.utils.ResponseWrapperUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -17,8 +23,12 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.IOException;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -35,7 +45,9 @@ public class DocumentController {
 
     private final SignedDocumentRepo signedDocumentRepo;
     private final DocumentStorageService storageService;
-    private final UserRepo userRepo;
+    private final SignatureService signatureService;
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
 
     @GetMapping
     public ResponseEntity<ResponseWrapperUtil<PageResponseDto<SignedDocumentDto>>> listDocuments(
@@ -74,6 +86,59 @@ public class DocumentController {
         );
     }
 
+    /**
+     * Lists documents newest first by cursor instead of page number, so deep pages cost the same as the
+     * first one. The exact total needs a count over all of the user's documents and is only computed
+     * when {@code includeTotal} is set.
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ResponseWrapperUtil<CursorPageResponseDto<SignedDocumentDto>>> listDocumentsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            Authentication authentication) {
+
+        UUID userId = getUserId(authentication);
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ResponseWrapperUtil.error("size must be between 1 and " + MAX_CURSOR_PAGE_SIZE));
+        }
+        DocumentCursor after;
+        try {
+            after = cursor == null || cursor.isBlank() ? null : DocumentCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ResponseWrapperUtil.error("Invalid cursor"));
+        }
+        boolean searching = search != null && !search.trim().isEmpty();
+        String pattern = searching ? likePattern(search.trim()) : "%";
+
+        // One extra row tells whether another page follows without counting
+        Limit limit = Limit.of(size + 1);
+        List<SignedDocumentSummary> rows = after == null
+                ? signedDocumentRepo.findSummaries(userId, pattern, limit)
+                : signedDocumentRepo.findSummariesAfter(userId, pattern, after.signedAt(), after.id(), limit);
+        boolean hasMore = rows.size() > size;
+        List<SignedDocumentSummary> page = hasMore ? rows.subList(0, size) : rows;
+
+        Long total = null;
+        if (includeTotal) {
+            total = searching ? signedDocumentRepo.countMatching(userId, pattern) : signedDocumentRepo.countByUserId(userId);
+        }
+
+        CursorPageResponseDto<SignedDocumentDto> response = new CursorPageResponseDto<>(
+                page.stream().map(this::toDto).collect(Collectors.toList()),
+                hasMore ? DocumentCursor.of(page.get(page.size() - 1)).encode() : null,
+                hasMore,
+                size,
+                total
+        );
+
+        return ResponseEntity.ok(
+                ResponseWrapperUtil.success(response, "Documents retrieved successfully")
+        );
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ResponseWrapperUtil<SignedDocumentDto>> getDocument(
             @PathVariable UUID id,
@@ -95,7 +160,8 @@ public class DocumentController {
     @GetMapping("/{id}/download")
     public ResponseEntity<?> downloadDocument(
             @PathVariable UUID id,
-            Authentication authentication) {
+            Authentication authentication,
+            ServletWebRequest webRequest) throws IOException {
         UUID userId = getUserId(authentication);
         SignedDocument document = signedDocumentRepo.findByIdAndUserId(id, userId);
 
@@ -104,28 +170,18 @@ public class DocumentController {
                     .body(ResponseWrapperUtil.error("Document not found"));
         }
 
-        Optional<byte[]> content = storageService.retrieve(id, userId);
-        if (content.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(ResponseWrapperUtil.error("Document file not found"));
-        }
-
         String filename = document.getOriginalFileName().replace(".pdf", "_signed.pdf");
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDisposition(ContentDisposition.attachment().filename(filename).build());
-        headers.setContentLength(content.get().length);
-
         log.info("Downloading document {} for user {}", id, userId);
-        return new ResponseEntity<>(content.get(), headers, HttpStatus.OK);
+        return streamDocument(document, ContentDisposition.attachment().filename(filename).build(), webRequest);
     }
 
 
     @GetMapping("/{id}/preview")
     public ResponseEntity<?> previewDocument(
             @PathVariable UUID id,
-            Authentication authentication) {
+            Authentication authentication,
+            ServletWebRequest webRequest) throws IOException {
         UUID userId = getUserId(authentication);
         SignedDocument document = signedDocumentRepo.findByIdAndUserId(id, userId);
 
@@ -134,7 +190,23 @@ public class DocumentController {
                     .body(ResponseWrapperUtil.error("Document not found"));
         }
 
-        Optional<byte[]> content = storageService.retrieve(id, userId);
+        log.info("Previewing document {} for user {}", id, userId);
+        return streamDocument(document,
+                ContentDisposition.inline().filename(document.getOriginalFileName()).build(), webRequest);
+    }
+
+    /**
+     * Streams a stored document, answering conditional requests before storage is touched.
+     */
+    private ResponseEntity<?> streamDocument(SignedDocument document, ContentDisposition disposition,
+                                             ServletWebRequest webRequest) throws IOException {
+        String etag = DocumentStreamingUtil.etag(document.getId());
+        long lastModified = document.getSignedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return null;
+        }
+
+        Optional<Resource> content = storageService.openResource(document.getId(), document.getUserId());
         if (content.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(ResponseWrapperUtil.error("Document file not found"));
@@ -142,10 +214,11 @@ public class DocumentController {
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDisposition(ContentDisposition.inline().filename(document.getOriginalFileName()).build());
-
-        log.info("Previewing document {} for user {}", id, userId);
-        return new ResponseEntity<>(content.get(), headers, HttpStatus.OK);
+        headers.setContentDisposition(disposition);
+        headers.setETag(etag);
+        headers.setLastModified(lastModified);
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        return DocumentStreamingUtil.stream(content.get(), headers, webRequest.getRequest());
     }
 
     @DeleteMapping("/{id}")
@@ -160,11 +233,8 @@ public class DocumentController {
                     .body(ResponseWrapperUtil.error("Document not found"));
         }
 
-        // Delete from storage
-        storageService.delete(id, userId);
-        
-        // Delete from database
-        signedDocumentRepo.delete(document);
+        // Delete from storage and database
+        signatureService.deleteSignedDocument(document);
 
         log.info("Deleted document {} for user {}", id, userId);
         return ResponseEntity.ok(
@@ -183,10 +253,34 @@ public class DocumentController {
     }
 
     private UUID getUserId(Authentication authentication) {
-        String username = authentication.getName();
-        User user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getId();
+        return UserPrincipal.from(authentication).userId();
+    }
+
+    /**
+     * Case-insensitive "contains" pattern for the summary queries, with LIKE wildcards escaped by {@code !}.
+     */
+    private static String likePattern(String search) {
+        String escaped = search.toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return "%" + escaped + "%";
+    }
+
+    private SignedDocumentDto toDto(SignedDocumentSummary document) {
+        String baseUrl = "/api/documents/" + document.id();
+        return new SignedDocumentDto(
+                document.id(),
+                document.originalFileName(),
+                document.pageNumber(),
+                document.signerRole(),
+                document.signerLocation(),
+                document.signerReason(),
+                document.fileSizeBytes(),
+                document.signedAt(),
+                baseUrl + "/download",
+                baseUrl + "/preview"
+        );
     }
 
     private SignedDocumentDto toDto(SignedDocument document) {
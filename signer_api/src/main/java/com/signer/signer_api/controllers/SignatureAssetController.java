@@ -0,0 +1,68 @@
+package com.signer.signer_api.controllers;
+
+import com.signer.signer_api.models.UserPrincipal;
+import com.signer.signer_api.models.dto.signature.SignatureAssetDto;
+import com.signer.signer_api.services.SignatureAssetService;
+import com.signer.signer_api.utils.ResponseWrapperUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * REST controller for the user's stored signature images.
+ * A stored signature is referenced from signing requests by {@code signatureAssetId}.
+ */
+@RestController
+@RequestMapping("/api/signature/assets")
+@RequiredArgsConstructor
+@Slf4j
+public class SignatureAssetController {
+
+    private final SignatureAssetService signatureAssetService;
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ResponseWrapperUtil<SignatureAssetDto>> uploadAsset(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(required = false) String name,
+            Authentication authentication) throws IOException {
+        UUID userId = getUserId(authentication);
+        try {
+            return new ResponseEntity<>(
+                    ResponseWrapperUtil.success(signatureAssetService.upload(userId, file, name), "Signature saved"),
+                    HttpStatus.CREATED
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ResponseWrapperUtil.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<ResponseWrapperUtil<List<SignatureAssetDto>>> listAssets(Authentication authentication) {
+        return ResponseEntity.ok(ResponseWrapperUtil.success(
+                signatureAssetService.list(getUserId(authentication)), "Signatures retrieved successfully"));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ResponseWrapperUtil<String>> deleteAsset(
+            @PathVariable UUID id,
+            Authentication authentication) {
+        if (!signatureAssetService.delete(getUserId(authentication), id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ResponseWrapperUtil.error("Signature not found"));
+        }
+        return ResponseEntity.ok(ResponseWrapperUtil.success(null, "Signature deleted successfully"));
+    }
+
+    private UUID getUserId(Authentication authentication) {
+        return UserPrincipal.from(authentication).userId();
+    }
+}
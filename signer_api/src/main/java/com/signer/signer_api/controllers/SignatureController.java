@@ -1,16 +1,36 @@
 package com.signer.signer_api.controllers;
 
+import com.signer.signer_api.models.dto.signature.HashSigningRequestDto;
+import com.signer.signer_api.models.dto.signature.HashSigningResponseDto;
 import com.signer.signer_api.models.dto.signature.SignatureRequestDto;
+import com.signer.signer_api.models.dto.signature.SigningCertificateDto;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.services.BatchSigningService;
+import com.signer.signer_api.services.DeferredSigningService;
 import com.signer.signer_api.services.SignatureService;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import com.signer.signer_api.services.spool.SpooledRequest;
+import com.signer.signer_api.services.upload.UploadSessionService;
 import com.signer.signer_api.utils.ResponseWrapperUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Base64;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/signature")
@@ -19,9 +39,37 @@ public class SignatureController {
     @Autowired
     private SignatureService signatureService;
 
-    @PostMapping("/sign")
-    public ResponseEntity<ResponseWrapperUtil<String>> signPdf(@RequestBody SignatureRequestDto signatureRequestDto) throws Exception {
-        byte[] signedPdf = signatureService.processPdf(signatureRequestDto);
+    @Autowired
+    private PdfSpoolService pdfSpoolService;
+
+    @Autowired
+    private BatchSigningService batchSigningService;
+
+    @Autowired
+    private DeferredSigningService deferredSigningService;
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Value("${app.signing.batch.request-timeout-ms:1800000}")
+    private long batchRequestTimeoutMs;
+
+    /**
+     * JSON signing request with the document inline as base64, or by {@code uploadId} of a committed upload.
+     * The base64 text is decoded as it streams in, so it is never held as a whole string.
+     */
+    @PostMapping(value = "/sign", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResponseWrapperUtil<String>> signPdf(
+            HttpServletRequest request,
+            Authentication authentication) throws Exception {
+        byte[] signedPdf;
+        try (SpooledRequest<SignatureRequestDto> spooled =
+                     pdfSpoolService.spoolJson(request.getInputStream(), SignatureRequestDto.class, "base64Pdf", false);
+             SpooledPdf input = uploadSessionService.documentOf(spooled, authentication.getName());
+             SpooledPdf signed = signatureService.processPdf(spooled.request(), input)) {
+            uploadSessionService.consume(spooled, authentication.getName());
+            signedPdf = signed.toByteArray();
+        }
 
         String base64SignedPdf = Base64.getEncoder().encodeToString(signedPdf);
 
@@ -34,4 +82,95 @@ public class SignatureController {
         );
     }
 
+    /**
+     * Multipart signing request: the PDF is sent as the {@code file} part and the
+     * placement settings as form fields. Returns the signed PDF as binary.
+     */
+    @PostMapping(value = "/sign", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> signPdfUpload(
+            @RequestPart("file") MultipartFile file,
+            @ModelAttribute SignatureRequestDto signatureRequestDto) throws Exception {
+        try (SpooledPdf input = pdfSpoolService.spool(file)) {
+            return pdfResponse(signatureService.processPdf(signatureRequestDto, input));
+        }
+    }
+
+    /**
+     * Raw {@code application/pdf} signing request with the placement settings as query parameters.
+     * Returns the signed PDF as binary.
+     */
+    @PostMapping(value = "/sign", consumes = MediaType.APPLICATION_PDF_VALUE)
+    public ResponseEntity<StreamingResponseBody> signPdfBinary(
+            @ModelAttribute SignatureRequestDto signatureRequestDto,
+            HttpServletRequest request) throws Exception {
+        try (SpooledPdf input = pdfSpoolService.spool(request.getInputStream())) {
+            return pdfResponse(signatureService.processPdf(signatureRequestDto, input));
+        }
+    }
+
+    /**
+     * Batch signing: many PDFs as repeated {@code files} parts and/or one {@code archive} ZIP, all signed
+     * with the same placement settings. Responds with a ZIP that streams each signed PDF as it finishes,
+     * followed by a {@code manifest.json}.
+     */
+    @PostMapping(value = "/sign/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> signBatch(
+            @RequestPart(value = "files", required = false) List<MultipartFile> files,
+            @RequestPart(value = "archive", required = false) MultipartFile archive,
+            @ModelAttribute SignatureRequestDto settings,
+            HttpServletRequest request) {
+        SigningContext context = signatureService.resolveContext();
+        List<BatchSigningService.BatchDocument> documents = batchSigningService.spool(files, archive);
+        // The response streams for as long as signing takes; other async requests keep the default timeout
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(batchRequestTimeoutMs);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDisposition(ContentDisposition.attachment().filename("signed-documents.zip").build());
+
+        StreamingResponseBody body = out -> batchSigningService.signBatch(context, settings, documents, out);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Hash-only signing: signs the byte-range digest of a PDF prepared by the client and returns
+     * the detached CMS container to embed. The document itself is never uploaded.
+     */
+    @PostMapping(value = "/sign-hash", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResponseWrapperUtil<HashSigningResponseDto>> signHash(
+            @RequestBody HashSigningRequestDto hashSigningRequestDto) {
+        SigningContext context = signatureService.resolveContext();
+        try {
+            return ResponseEntity.ok(ResponseWrapperUtil.success(
+                    deferredSigningService.signHash(context, hashSigningRequestDto), "Digest Signed Successfully"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ResponseWrapperUtil.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * The session certificate chain and the container size to reserve when preparing a document
+     * for {@code /sign-hash}.
+     */
+    @GetMapping("/certificate")
+    public ResponseEntity<ResponseWrapperUtil<SigningCertificateDto>> getSigningCertificate() {
+        SigningContext context = signatureService.resolveContext();
+        return ResponseEntity.ok(ResponseWrapperUtil.success(
+                deferredSigningService.describeCertificate(context), "Signing certificate retrieved"));
+    }
+
+    private ResponseEntity<StreamingResponseBody> pdfResponse(SpooledPdf signedPdf) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDisposition(ContentDisposition.inline().filename("signed.pdf").build());
+        headers.setContentLength(signedPdf.size());
+
+        StreamingResponseBody body = out -> {
+            try (signedPdf) {
+                signedPdf.transferTo(out);
+            }
+        };
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
 }
@@ -0,0 +1,152 @@
+package com.signer.signer_api.controllers;
+
+import com.signer.signer_api.models.SigningJob;
+import com.signer.signer_api.models.SigningJobStatus;
+import com.signer.signer_api.models.UserPrincipal;
+import com.signer.signer_api.models.dto.job.SigningJobDto;
+import com.signer.signer_api.models.dto.signature.SignatureRequestDto;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.services.SignatureService;
+import com.signer.signer_api.services.SigningJobService;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import com.signer.signer_api.services.spool.SpooledRequest;
+import com.signer.signer_api.services.storage.DocumentStorageService;
+import com.signer.signer_api.services.upload.UploadSessionService;
+import com.signer.signer_api.utils.DocumentStreamingUtil;
+import com.signer.signer_api.utils.ResponseWrapperUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.http.*;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * REST controller for asynchronous signing.
+ * Submitting a document returns a job id immediately; the document is signed by a background worker.
+ */
+@RestController
+@RequestMapping("/api/signature/jobs")
+@RequiredArgsConstructor
+@Slf4j
+public class SigningJobController {
+
+    private final SigningJobService signingJobService;
+    private final SignatureService signatureService;
+    private final PdfSpoolService pdfSpoolService;
+    private final DocumentStorageService storageService;
+    private final UploadSessionService uploadSessionService;
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ResponseWrapperUtil<SigningJobDto>> submitUpload(
+            @RequestPart("file") MultipartFile file,
+            @ModelAttribute SignatureRequestDto signatureRequestDto) throws IOException {
+        SigningContext context = signatureService.resolveContext();
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : "document.pdf";
+        try (SpooledPdf input = pdfSpoolService.spool(file)) {
+            return accepted(signingJobService.submit(context, signatureRequestDto, input, fileName));
+        }
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResponseWrapperUtil<SigningJobDto>> submitJson(HttpServletRequest request) throws IOException {
+        SigningContext context = signatureService.resolveContext();
+        try (SpooledRequest<SignatureRequestDto> spooled =
+                     pdfSpoolService.spoolJson(request.getInputStream(), SignatureRequestDto.class, "base64Pdf", false);
+             SpooledPdf input = uploadSessionService.documentOf(spooled, context.username())) {
+            SigningJob job = signingJobService.submit(context, spooled.request(), input, "document.pdf");
+            uploadSessionService.consume(spooled, context.username());
+            return accepted(job);
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ResponseWrapperUtil<SigningJobDto>> getJob(
+            @PathVariable UUID id,
+            Authentication authentication) {
+        SigningJob job = signingJobService.findJob(id, getUserId(authentication));
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ResponseWrapperUtil.error("Signing job not found"));
+        }
+        return ResponseEntity.ok(
+                ResponseWrapperUtil.success(toDto(job), "Signing job retrieved successfully")
+        );
+    }
+
+    @GetMapping("/{id}/result")
+    public ResponseEntity<?> getResult(
+            @PathVariable UUID id,
+            Authentication authentication,
+            ServletWebRequest webRequest) throws IOException {
+        UUID userId = getUserId(authentication);
+        SigningJob job = signingJobService.findJob(id, userId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ResponseWrapperUtil.error("Signing job not found"));
+        }
+        if (job.getStatus() != SigningJobStatus.SUCCEEDED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ResponseWrapperUtil.error("Signing job is " + job.getStatus()));
+        }
+
+        // Streamed the same way as a document download, with range and conditional requests
+        String etag = DocumentStreamingUtil.etag(job.getResultDocumentId());
+        long lastModified = job.getCompletedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return null;
+        }
+
+        Optional<Resource> content = storageService.openResource(job.getResultDocumentId(), userId);
+        if (content.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ResponseWrapperUtil.error("Document file not found"));
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(job.getOriginalFileName().replace(".pdf", "_signed.pdf")).build());
+        headers.setETag(etag);
+        headers.setLastModified(lastModified);
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        return DocumentStreamingUtil.stream(content.get(), headers, webRequest.getRequest());
+    }
+
+    private ResponseEntity<ResponseWrapperUtil<SigningJobDto>> accepted(SigningJob job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/signature/jobs/" + job.getId()))
+                .body(ResponseWrapperUtil.success(toDto(job), "Signing job queued"));
+    }
+
+    private UUID getUserId(Authentication authentication) {
+        return UserPrincipal.from(authentication).userId();
+    }
+
+    private SigningJobDto toDto(SigningJob job) {
+        String resultUrl = job.getStatus() == SigningJobStatus.SUCCEEDED
+                ? "/api/signature/jobs/" + job.getId() + "/result"
+                : null;
+        return new SigningJobDto(
+                job.getId(),
+                job.getStatus().name(),
+                job.getOriginalFileName(),
+                job.getAttempts(),
+                job.getError(),
+                job.getCreatedAt(),
+                job.getCompletedAt(),
+                job.getResultDocumentId(),
+                resultUrl
+        );
+    }
+}
@@ -0,0 +1,107 @@
+package com.signer.signer_api.controllers;
+
+import com.signer.signer_api.models.dto.upload.UploadSessionDto;
+import com.signer.signer_api.models.dto.upload.UploadSessionRequestDto;
+import com.signer.signer_api.services.upload.UploadSessionService;
+import com.signer.signer_api.utils.ResponseWrapperUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * REST controller for resumable uploads of large documents.
+ * Open an upload, {@code PUT} its chunks (in any order, in parallel, each with an {@code X-Chunk-Sha256}
+ * header), commit it, then sign it by passing {@code uploadId} instead of {@code base64Pdf}.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+@RequiredArgsConstructor
+@Slf4j
+public class UploadController {
+
+    private final UploadSessionService uploadSessionService;
+
+    @PostMapping
+    public ResponseEntity<ResponseWrapperUtil<UploadSessionDto>> createUpload(
+            @RequestBody UploadSessionRequestDto uploadSessionRequestDto,
+            Authentication authentication) throws IOException {
+        try {
+            UploadSessionDto upload = uploadSessionService.create(authentication.getName(), uploadSessionRequestDto);
+            return ResponseEntity.created(URI.create("/api/uploads/" + upload.uploadId()))
+                    .body(ResponseWrapperUtil.success(upload, "Upload opened"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ResponseWrapperUtil.error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ResponseWrapperUtil.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ResponseWrapperUtil<UploadSessionDto>> getUpload(
+            @PathVariable UUID id,
+            Authentication authentication) {
+        return respond(uploadSessionService.find(id, authentication.getName()), "Upload retrieved successfully");
+    }
+
+    @PutMapping("/{id}/chunks/{index}")
+    public ResponseEntity<ResponseWrapperUtil<UploadSessionDto>> putChunk(
+            @PathVariable UUID id,
+            @PathVariable int index,
+            @RequestHeader(value = "X-Chunk-Sha256", required = false) String sha256,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+        try {
+            return respond(uploadSessionService.writeChunk(id, authentication.getName(), index,
+                    request.getInputStream(), sha256), "Chunk received");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ResponseWrapperUtil.error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ResponseWrapperUtil.error(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/commit")
+    public ResponseEntity<ResponseWrapperUtil<UploadSessionDto>> commitUpload(
+            @PathVariable UUID id,
+            Authentication authentication) throws IOException {
+        try {
+            return respond(uploadSessionService.commit(id, authentication.getName()), "Upload committed");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ResponseWrapperUtil.error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ResponseWrapperUtil.error(e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ResponseWrapperUtil<String>> deleteUpload(
+            @PathVariable UUID id,
+            Authentication authentication) {
+        try {
+            if (!uploadSessionService.abort(id, authentication.getName())) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ResponseWrapperUtil.error("Upload not found"));
+            }
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ResponseWrapperUtil.error(e.getMessage()));
+        }
+        return ResponseEntity.ok(ResponseWrapperUtil.success(null, "Upload cancelled"));
+    }
+
+    private ResponseEntity<ResponseWrapperUtil<UploadSessionDto>> respond(Optional<UploadSessionDto> upload,
+                                                                          String message) {
+        return upload
+                .map(dto -> ResponseEntity.ok(ResponseWrapperUtil.success(dto, message)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ResponseWrapperUtil.error("Upload not found")));
+    }
+}
@@ -56,12 +56,14 @@ public class UserController {
     }
 
     @GetMapping("/logout")
-    public ResponseEntity<ResponseWrapperUtil<String>> logoutUser(Authentication authentication){
+    public ResponseEntity<ResponseWrapperUtil<String>> logoutUser(
+            Authentication authentication,
+            @CookieValue(value = "auth_token", required = false) String token){
         log.info("Logout Api is Called");
         
-        // Invalidate session certificate
+        // Invalidate session certificate and revoke the token
         if (authentication != null) {
-            authService.logout(authentication.getName());
+            authService.logout(authentication.getName(), token);
         }
         
         ResponseCookie cookie = authService.createLogoutCookie();
@@ -0,0 +1,61 @@
+package com.signer.signer_api.controllers;
+
+import com.signer.signer_api.models.dto.verification.VerificationReportDto;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import com.signer.signer_api.services.verification.SignatureVerificationService;
+import com.signer.signer_api.utils.ResponseWrapperUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+/**
+ * REST controller for checking the signatures of a signed PDF, whoever produced it.
+ */
+@RestController
+@RequestMapping("/api/verification")
+@RequiredArgsConstructor
+public class VerificationController {
+
+    private final SignatureVerificationService verificationService;
+    private final PdfSpoolService pdfSpoolService;
+
+    /**
+     * Verifies a PDF sent as the {@code file} part.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ResponseWrapperUtil<VerificationReportDto>> verifyUpload(
+            @RequestPart("file") MultipartFile file) throws IOException {
+        try (SpooledPdf pdf = pdfSpoolService.spool(file)) {
+            return verify(pdf);
+        }
+    }
+
+    /**
+     * Verifies a PDF sent as a raw {@code application/pdf} body.
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_PDF_VALUE)
+    public ResponseEntity<ResponseWrapperUtil<VerificationReportDto>> verifyBinary(
+            HttpServletRequest request) throws IOException {
+        try (SpooledPdf pdf = pdfSpoolService.spool(request.getInputStream())) {
+            return verify(pdf);
+        }
+    }
+
+    private ResponseEntity<ResponseWrapperUtil<VerificationReportDto>> verify(SpooledPdf pdf) throws IOException {
+        try {
+            return ResponseEntity.ok(ResponseWrapperUtil.success(
+                    verificationService.verify(pdf), "Document verified"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ResponseWrapperUtil.error(e.getMessage()));
+        }
+    }
+}
@@ -1,8 +1,11 @@
 
 package com.signer.signer_api.filters;
 
-import com.signer.signer_api.services.UserDetailsService;
+import com.signer.signer_api.models.UserPrincipal;
+import com.signer.signer_api.services.UserCache;
+import com.signer.signer_api.services.VerifiedTokenCache;
 import com.signer.signer_api.utils.JWTUtils;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -12,12 +15,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Slf4j
 public class JwtAuthFilter extends OncePerRequestFilter {
@@ -26,7 +28,10 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     private JWTUtils jwtUtils;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserCache userCache;
+
+    @Autowired
+    private VerifiedTokenCache tokenCache;
 
     // Public endpoints that don't require JWT validation
     private static final String[] PUBLIC_URLS = {
@@ -46,18 +51,12 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         try {
             String token = getToken(request);
-            if (token != null && jwtUtils.validateToken(token)) {
-                String username = jwtUtils.getUsernameFromJWT(token);
-                try {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                } catch (UsernameNotFoundException e) {
-                    log.warn("User not found for token username: {}", username);
-                    SecurityContextHolder.clearContext();
-                }
+            UserPrincipal principal = token != null ? authenticate(token) : null;
+            if (principal != null) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(principal, null, List.of());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         } catch (Exception e) {
             log.error("Authentication filter error: ", e);
@@ -66,6 +65,41 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Verifies the token, or takes it from the cache of verified tokens.
+     *
+     * @return the token's principal, or null if the token is invalid, expired or revoked
+     */
+    private UserPrincipal authenticate(String token) {
+        String digest = VerifiedTokenCache.digest(token);
+        UserPrincipal principal = tokenCache.get(digest);
+        if (principal != null || tokenCache.isRevoked(digest)) {
+            return principal;
+        }
+        Claims claims = jwtUtils.parseToken(token);
+        if (claims == null) {
+            return null;
+        }
+        principal = resolvePrincipal(claims);
+        if (principal == null) {
+            log.warn("User not found for token username: {}", claims.getSubject());
+            return null;
+        }
+        tokenCache.put(digest, principal, claims.getExpiration());
+        return principal;
+    }
+
+    /**
+     * The principal comes from the claims; only tokens issued before they carried a user id need a lookup.
+     */
+    private UserPrincipal resolvePrincipal(Claims claims) {
+        UserPrincipal principal = JWTUtils.toPrincipal(claims);
+        if (principal != null) {
+            return principal;
+        }
+        return userCache.findByUsername(claims.getSubject()).map(UserPrincipal::of).orElse(null);
+    }
+
     private boolean isPublicUrl(String requestPath) {
         for (String publicUrl : PUBLIC_URLS) {
             if (requestPath.equals(publicUrl)) {
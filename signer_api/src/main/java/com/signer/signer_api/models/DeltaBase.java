@@ -0,0 +1,30 @@
+package com.signer.signer_api.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reference count of a shared delta base, keyed by the SHA-256 of the original.
+ * A reference is taken before a delta is stored against the base and dropped when its document is deleted;
+ * a base is only removed from storage once its count has stayed at zero for the grace period.
+ */
+@Entity(name = "delta_bases")
+@Table(indexes = @Index(name = "idx_delta_bases_released", columnList = "releasedAt"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeltaBase {
+
+    @Id
+    @Column(length = 64)
+    private String baseHash;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    // When the count last dropped to zero; null while referenced
+    private LocalDateTime releasedAt;
+}
@@ -0,0 +1,47 @@
+package com.signer.signer_api.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Marks a deleted signed document, so a write-behind journal replaying it does not store it again.
+ * Kept for {@code app.signing.write-behind.tombstone-retention-days}.
+ */
+@Entity(name = "document_tombstones")
+@Table(indexes = @Index(name = "idx_document_tombstones_deleted", columnList = "deletedAt"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentTombstone implements Persistable<UUID> {
+
+    @Id
+    private UUID documentId;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+
+    @Transient
+    @Builder.Default
+    private boolean isNew = true;
+
+    @Override
+    public UUID getId() {
+        return documentId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PrePersist
+    @PostLoad
+    protected void markNotNew() {
+        this.isNew = false;
+    }
+}
@@ -0,0 +1,29 @@
+package com.signer.signer_api.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One start of a node that issues certificates without a configured node id. The row id, drawn from a
+ * sequence, gives the node its id for certificate serial numbers.
+ */
+@Entity(name = "issuance_nodes")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IssuanceNode {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "issuance_node_seq")
+    @SequenceGenerator(name = "issuance_node_seq", sequenceName = "issuance_node_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(nullable = false)
+    private String hostName;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+}
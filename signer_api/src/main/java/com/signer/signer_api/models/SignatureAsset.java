@@ -0,0 +1,64 @@
+package com.signer.signer_api.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A signature image (drawn or uploaded) kept for reuse across signing requests.
+ */
+@Entity(name = "signature_assets")
+@Table(indexes = @Index(name = "idx_signature_assets_user", columnList = "userId"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SignatureAsset implements Persistable<UUID> {
+
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    // SHA-256 of the image bytes, also the key of the decoded image cache
+    @Column(nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    @ToString.Exclude
+    @Column(nullable = false)
+    private byte[] content;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Transient
+    @Builder.Default
+    private boolean isNew = true;
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PrePersist
+    @PostLoad
+    protected void markNotNew() {
+        this.isNew = false;
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+}
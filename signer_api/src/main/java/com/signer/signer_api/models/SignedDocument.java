@@ -14,6 +14,7 @@ import java.util.UUID;
  * Implements Persistable to avoid "Optimistic Locking" errors when using manual ID assignment.
  */
 @Entity(name = "signed_documents")
+@Table(indexes = @Index(name = "idx_signed_documents_user_signed", columnList = "userId, signedAt, id"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -42,6 +43,14 @@ public class SignedDocument implements Persistable<UUID> {
     @Column(nullable = false)
     private long fileSizeBytes;
 
+    // Size of the document as uploaded, and as signed after the optimization stage (equal if it was not rewritten)
+    private Long originalSizeBytes;
+    private Long optimizedSizeBytes;
+
+    // SHA-256 of the shared base the file is stored against, or null if it is stored in full
+    @Column(length = 64)
+    private String baseHash;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime signedAt;
 
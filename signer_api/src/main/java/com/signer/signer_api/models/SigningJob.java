@@ -0,0 +1,76 @@
+package com.signer.signer_api.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A signing request queued for a background worker.
+ * The input PDF is kept in DocumentStorageService under the job id until the job finishes;
+ * the placement settings are stored as the request JSON.
+ */
+@Entity(name = "signing_jobs")
+@Table(indexes = @Index(name = "idx_signing_jobs_status_created", columnList = "status, createdAt"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SigningJob implements Persistable<UUID> {
+
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    // Certificate sessions are held per node by username, so workers claim by username
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false)
+    private String originalFileName;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String settingsJson;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SigningJobStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    private String workerId;
+    private LocalDateTime leaseExpiresAt;
+
+    private UUID resultDocumentId;
+
+    @Column(columnDefinition = "text")
+    private String error;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime completedAt;
+
+    @Transient
+    @Builder.Default
+    private boolean isNew = true;
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PrePersist
+    @PostLoad
+    protected void markNotNew() {
+        this.isNew = false;
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+}
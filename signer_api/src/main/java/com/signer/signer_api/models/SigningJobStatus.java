@@ -0,0 +1,11 @@
+package com.signer.signer_api.models;
+
+/**
+ * Lifecycle of an asynchronous signing job.
+ */
+public enum SigningJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,32 @@
+package com.signer.signer_api.models;
+
+import org.springframework.security.core.Authentication;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * The authenticated user as carried in the JWT claims, so request handling needs no user lookup.
+ */
+public record UserPrincipal(
+        UUID userId,
+        String username,
+        String fullName
+) implements Principal {
+
+    public static UserPrincipal of(User user) {
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getFullname());
+    }
+
+    /**
+     * @return the principal of an authentication made by {@code JwtAuthFilter}
+     */
+    public static UserPrincipal from(Authentication authentication) {
+        return (UserPrincipal) authentication.getPrincipal();
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
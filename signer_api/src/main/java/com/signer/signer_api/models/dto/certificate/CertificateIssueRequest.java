@@ -0,0 +1,13 @@
+package com.signer.signer_api.models.dto.certificate;
+
+import java.security.PublicKey;
+
+/**
+ * One user certificate to be issued by the Root CA.
+ */
+public record CertificateIssueRequest(
+        PublicKey publicKey,
+        String fullName,
+        int validityHours
+) {
+}
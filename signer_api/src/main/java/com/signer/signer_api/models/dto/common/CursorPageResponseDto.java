@@ -0,0 +1,16 @@
+package com.signer.signer_api.models.dto.common;
+
+import java.util.List;
+
+/**
+ * Generic DTO for cursor paginated responses.
+ * Pass {@code nextCursor} back to fetch the following page; it is null on the last page.
+ * {@code totalItems} is only filled in when the caller asked for it.
+ */
+public record CursorPageResponseDto<T>(
+    List<T> content,
+    String nextCursor,
+    boolean hasMore,
+    int pageSize,
+    Long totalItems
+) {}
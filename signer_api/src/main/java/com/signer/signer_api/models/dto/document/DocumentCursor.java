@@ -0,0 +1,37 @@
+package com.signer.signer_api.models.dto.document;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a user's document listing: the last document returned, by sign date then id.
+ * Handed to clients as an opaque URL-safe token.
+ */
+public record DocumentCursor(LocalDateTime signedAt, UUID id) {
+
+    public static DocumentCursor of(SignedDocumentSummary document) {
+        return new DocumentCursor(document.signedAt(), document.id());
+    }
+
+    public String encode() {
+        String value = signedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static DocumentCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new DocumentCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    UUID.fromString(value.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.signer.signer_api.models.dto.document;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The columns of a signed document needed for a listing, selected without loading the entity.
+ */
+public record SignedDocumentSummary(
+    UUID id,
+    String originalFileName,
+    int pageNumber,
+    String signerRole,
+    String signerLocation,
+    String signerReason,
+    long fileSizeBytes,
+    LocalDateTime signedAt
+) {}
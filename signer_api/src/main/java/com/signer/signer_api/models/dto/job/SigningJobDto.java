@@ -0,0 +1,19 @@
+package com.signer.signer_api.models.dto.job;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO for returning signing job status in API responses.
+ */
+public record SigningJobDto(
+    UUID id,
+    String status,
+    String originalFileName,
+    int attempts,
+    String error,
+    LocalDateTime createdAt,
+    LocalDateTime completedAt,
+    UUID documentId,
+    String resultUrl
+) {}
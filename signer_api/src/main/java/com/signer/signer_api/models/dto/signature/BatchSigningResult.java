@@ -0,0 +1,17 @@
+package com.signer.signer_api.models.dto.signature;
+
+import java.util.UUID;
+
+/**
+ * Outcome of signing one document in a batch, written to the batch manifest.
+ */
+public record BatchSigningResult(
+        String fileName,
+        String signedFileName,
+        UUID documentId,
+        boolean success,
+        String error,
+        long fileSizeBytes,
+        long elapsedMillis
+) {
+}
@@ -0,0 +1,13 @@
+package com.signer.signer_api.models.dto.signature;
+
+/**
+ * Request DTO for hash-only signing.
+ *
+ * @param digest          base64 digest of the PDF byte ranges covered by the signature
+ * @param digestAlgorithm SHA-256 (default), SHA-384 or SHA-512
+ */
+public record HashSigningRequestDto(
+        String digest,
+        String digestAlgorithm
+) {
+}
@@ -0,0 +1,11 @@
+package com.signer.signer_api.models.dto.signature;
+
+/**
+ * Response DTO for hash-only signing: a detached CMS container ready to embed in the prepared PDF.
+ */
+public record HashSigningResponseDto(
+        String signatureContainer,
+        String digestAlgorithm,
+        int containerSizeBytes
+) {
+}
@@ -0,0 +1,17 @@
+package com.signer.signer_api.models.dto.signature;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO for returning stored signature metadata in API responses.
+ */
+public record SignatureAssetDto(
+        UUID id,
+        String name,
+        String contentType,
+        long sizeBytes,
+        String contentHash,
+        LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,13 @@
+package com.signer.signer_api.models.dto.signature;
+
+/**
+ * Position of one visible signature stamp on a page.
+ */
+public record SignaturePlacement(
+        int pageNumber,
+        float x,
+        float y,
+        float width,
+        float height
+) {
+}
@@ -1,7 +1,15 @@
 package com.signer.signer_api.models.dto.signature;
 
+import java.util.List;
+import java.util.UUID;
+
 /**
  * Request DTO for PDF signing operation.
+ * When {@code placements} is given, every placement gets a stamp under one signature and the
+ * single-box fields ({@code pageNumber}, {@code x}, {@code y}, {@code width}, {@code height}) are ignored.
+ * A stored signature referenced by {@code signatureAssetId} takes precedence over an inline {@code signatureImage}.
+ * {@code appendMode} chooses between an incremental update and a full rewrite; null uses the server default.
+ * A JSON request may reference a committed resumable upload by {@code uploadId} in place of {@code base64Pdf}.
  */
 public record SignatureRequestDto(
          int pageNumber,
@@ -19,6 +27,10 @@ public record SignatureRequestDto(
          String base64Pdf,
          String signatureImage,
          String signatureText,
-         String signatureFont
+         String signatureFont,
+         List<SignaturePlacement> placements,
+         UUID signatureAssetId,
+         Boolean appendMode,
+         UUID uploadId
 ) {
 }
@@ -0,0 +1,19 @@
+package com.signer.signer_api.models.dto.signature;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The current session certificate, so clients can build the signature appearance and
+ * reserve enough space for the container before requesting a hash signature.
+ *
+ * @param certificateChain       base64 DER certificates, signer first
+ * @param estimatedContainerSize bytes to reserve for the signature container
+ */
+public record SigningCertificateDto(
+        String subject,
+        List<String> certificateChain,
+        Instant expiresAt,
+        int estimatedContainerSize
+) {
+}
@@ -0,0 +1,16 @@
+package com.signer.signer_api.models.dto.signature;
+
+import com.signer.signer_api.models.dto.certificate.CertificateSession;
+
+import java.util.UUID;
+
+/**
+ * Internal DTO with the signer's identity and certificate session, resolved once per request.
+ */
+public record SigningContext(
+        UUID userId,
+        String username,
+        String fullName,
+        CertificateSession session
+) {
+}
@@ -0,0 +1,21 @@
+package com.signer.signer_api.models.dto.upload;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO for returning the state of a resumable upload.
+ * {@code missingChunks} lists the chunk indexes still to be sent; a committed upload is passed to
+ * the signing endpoints as {@code uploadId}.
+ */
+public record UploadSessionDto(
+        UUID uploadId,
+        long sizeBytes,
+        int chunkSizeBytes,
+        int chunkCount,
+        List<Integer> missingChunks,
+        boolean committed,
+        LocalDateTime expiresAt
+) {
+}
@@ -0,0 +1,12 @@
+package com.signer.signer_api.models.dto.upload;
+
+/**
+ * Request DTO for opening a resumable upload.
+ * {@code chunkSizeBytes} and {@code sha256} (hex digest of the whole document, checked on commit) are optional.
+ */
+public record UploadSessionRequestDto(
+        long sizeBytes,
+        Integer chunkSizeBytes,
+        String sha256
+) {
+}
@@ -0,0 +1,33 @@
+package com.signer.signer_api.models.dto.verification;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Verification result for one signature field.
+ *
+ * @param revision              the document revision this signature closes (1 = oldest)
+ * @param integrityValid        the ByteRange digest matches and the CMS signature verifies
+ * @param certificateChainValid the signer's chain leads to the Root CA and was valid at signing time
+ * @param problems              why the signature or its chain failed, empty if it is valid
+ * @param cached                reused from an earlier verification of the same revision
+ */
+public record SignatureVerificationDto(
+        String fieldName,
+        int revision,
+        boolean coversWholeDocument,
+        boolean integrityValid,
+        boolean certificateChainValid,
+        boolean timestamp,
+        String signerName,
+        String signerSubject,
+        String issuerSubject,
+        String digestAlgorithm,
+        Instant signingTime,
+        String reason,
+        String location,
+        List<String> problems,
+        long verificationMillis,
+        boolean cached
+) {
+}
@@ -0,0 +1,22 @@
+package com.signer.signer_api.models.dto.verification;
+
+import java.util.List;
+
+/**
+ * Verification report for a signed PDF, one entry per signature in revision order.
+ *
+ * @param valid  true if the document has signatures, all of them verify against the Root CA,
+ *               and the latest one covers the whole file
+ * @param cached the whole report was reused from an earlier verification of the same document
+ */
+public record VerificationReportDto(
+        String documentSha256,
+        long sizeBytes,
+        int totalRevisions,
+        int signatureCount,
+        boolean valid,
+        List<SignatureVerificationDto> signatures,
+        long elapsedMillis,
+        boolean cached
+) {
+}
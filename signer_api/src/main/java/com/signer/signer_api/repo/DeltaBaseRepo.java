@@ -0,0 +1,71 @@
+package com.signer.signer_api.repo;
+
+import com.signer.signer_api.models.DeltaBase;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DeltaBaseRepo extends JpaRepository<DeltaBase, String> {
+
+    /**
+     * Takes a reference on a base, creating its entry if needed. Waits for a sweep that holds the row lock,
+     * so a base is never deleted after a reference on it was taken.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO delta_bases (base_hash, ref_count, released_at) VALUES (:hash, 1, NULL)
+            ON CONFLICT (base_hash) DO UPDATE SET ref_count = delta_bases.ref_count + 1, released_at = NULL
+            """, nativeQuery = true)
+    int acquire(@Param("hash") String hash);
+
+    /**
+     * Drops a reference on a base and stamps the time once no reference is left.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO delta_bases (base_hash, ref_count, released_at) VALUES (:hash, 0, :now)
+            ON CONFLICT (base_hash) DO UPDATE SET
+                ref_count = GREATEST(delta_bases.ref_count - 1, 0),
+                released_at = CASE WHEN delta_bases.ref_count <= 1 THEN :now ELSE NULL END
+            """, nativeQuery = true)
+    int release(@Param("hash") String hash, @Param("now") LocalDateTime now);
+
+    /**
+     * Bases that have had no reference since before the cutoff.
+     */
+    @Query(value = """
+            SELECT base_hash FROM delta_bases
+            WHERE ref_count = 0 AND released_at < :cutoff
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<String> findReleasedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * Locks a base that is still unreferenced since before the cutoff. Rows locked by another node's sweep
+     * are skipped. Must run inside a transaction.
+     */
+    @Query(value = """
+            SELECT * FROM delta_bases
+            WHERE base_hash = :hash AND ref_count = 0 AND released_at < :cutoff
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    Optional<DeltaBase> lockReleased(@Param("hash") String hash, @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Resets the count of a base to the number of saved documents stored against it.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE delta_bases
+            SET ref_count = (SELECT count(*) FROM signed_documents d WHERE d.base_hash = :hash), released_at = NULL
+            WHERE base_hash = :hash
+            """, nativeQuery = true)
+    int recount(@Param("hash") String hash);
+}
@@ -0,0 +1,24 @@
+package com.signer.signer_api.repo;
+
+import com.signer.signer_api.models.DocumentTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface DocumentTombstoneRepo extends JpaRepository<DocumentTombstone, UUID> {
+
+    /**
+     * Drops tombstones recorded before the cutoff.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from document_tombstones t where t.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
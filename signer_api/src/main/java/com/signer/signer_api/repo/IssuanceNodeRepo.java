@@ -0,0 +1,9 @@
+package com.signer.signer_api.repo;
+
+import com.signer.signer_api.models.IssuanceNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IssuanceNodeRepo extends JpaRepository<IssuanceNode, Long> {
+}
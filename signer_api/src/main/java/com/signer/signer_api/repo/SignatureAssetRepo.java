@@ -0,0 +1,41 @@
+package com.signer.signer_api.repo;
+
+import com.signer.signer_api.models.SignatureAsset;
+import com.signer.signer_api.models.dto.signature.SignatureAssetDto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface SignatureAssetRepo extends JpaRepository<SignatureAsset, UUID> {
+
+    /**
+     * List a user's signatures without loading the image bytes.
+     */
+    @Query("""
+            select new com.signer.signer_api.models.dto.signature.SignatureAssetDto(
+                a.id, a.name, a.contentType, a.sizeBytes, a.contentHash, a.createdAt)
+            from signature_assets a where a.userId = :userId order by a.createdAt desc
+            """)
+    List<SignatureAssetDto> findSummariesByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Content hash of a user's signature, used to hit the decoded image cache without loading the bytes.
+     */
+    @Query("select a.contentHash from signature_assets a where a.id = :id and a.userId = :userId")
+    Optional<String> findContentHash(@Param("id") UUID id, @Param("userId") UUID userId);
+
+    @Query("select a.content from signature_assets a where a.id = :id and a.userId = :userId")
+    Optional<byte[]> findContent(@Param("id") UUID id, @Param("userId") UUID userId);
+
+    Optional<SignatureAssetDto> findFirstByUserIdAndContentHash(UUID userId, String contentHash);
+
+    long deleteByIdAndUserId(UUID id, UUID userId);
+
+    long countByUserId(UUID userId);
+}
@@ -1,11 +1,16 @@
 package com.signer.signer_api.repo;
 
 import com.signer.signer_api.models.SignedDocument;
+import com.signer.signer_api.models.dto.document.SignedDocumentSummary;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -27,6 +32,48 @@ public interface SignedDocumentRepo extends JpaRepository<SignedDocument, UUID>
      */
     Page<SignedDocument> findByUserIdAndOriginalFileNameContainingIgnoreCase(UUID userId, String name, Pageable pageable);
     
+    /**
+     * First page of a user's documents, newest first, whose lowercased file name matches {@code pattern}.
+     */
+    @Query("""
+            select new com.signer.signer_api.models.dto.document.SignedDocumentSummary(
+                d.id, d.originalFileName, d.pageNumber, d.signerRole, d.signerLocation, d.signerReason,
+                d.fileSizeBytes, d.signedAt)
+            from signed_documents d
+            where d.userId = :userId and lower(d.originalFileName) like :pattern escape '!'
+            order by d.signedAt desc, d.id desc
+            """)
+    List<SignedDocumentSummary> findSummaries(@Param("userId") UUID userId, @Param("pattern") String pattern,
+                                              Limit limit);
+
+    /**
+     * The documents after ({@code signedAt}, {@code id}) in the same order, seeking on the
+     * (userId, signedAt, id) index instead of skipping an offset. The redundant {@code signedAt <= :signedAt}
+     * bounds the index range; the OR on its own would scan from the newest document every time.
+     */
+    @Query("""
+            select new com.signer.signer_api.models.dto.document.SignedDocumentSummary(
+                d.id, d.originalFileName, d.pageNumber, d.signerRole, d.signerLocation, d.signerReason,
+                d.fileSizeBytes, d.signedAt)
+            from signed_documents d
+            where d.userId = :userId and lower(d.originalFileName) like :pattern escape '!'
+              and d.signedAt <= :signedAt
+              and (d.signedAt < :signedAt or d.id < :id)
+            order by d.signedAt desc, d.id desc
+            """)
+    List<SignedDocumentSummary> findSummariesAfter(@Param("userId") UUID userId, @Param("pattern") String pattern,
+                                                   @Param("signedAt") LocalDateTime signedAt, @Param("id") UUID id,
+                                                   Limit limit);
+
+    /**
+     * Count a user's documents whose lowercased file name matches {@code pattern}.
+     */
+    @Query("""
+            select count(d) from signed_documents d
+            where d.userId = :userId and lower(d.originalFileName) like :pattern escape '!'
+            """)
+    long countMatching(@Param("userId") UUID userId, @Param("pattern") String pattern);
+
     /**
      * Find a specific document by ID and user ID (for security).
      */
@@ -36,4 +83,9 @@ public interface SignedDocumentRepo extends JpaRepository<SignedDocument, UUID>
      * Count documents for a user.
      */
     long countByUserId(UUID userId);
+
+    /**
+     * Whether any document is still stored against the given base.
+     */
+    boolean existsByBaseHash(String baseHash);
 }
@@ -0,0 +1,72 @@
+package com.signer.signer_api.repo;
+
+import com.signer.signer_api.models.SigningJob;
+import com.signer.signer_api.models.SigningJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface SigningJobRepo extends JpaRepository<SigningJob, UUID> {
+
+    /**
+     * Locks up to {@code limit} queued jobs of the given users, oldest first.
+     * Rows already locked by another worker are skipped rather than waited on, so any number of
+     * nodes can poll the queue concurrently. Must run inside a transaction.
+     */
+    @Query(value = """
+            SELECT * FROM signing_jobs
+            WHERE status = 'QUEUED' AND username IN (:usernames)
+            ORDER BY created_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<SigningJob> lockQueued(@Param("usernames") Collection<String> usernames, @Param("limit") int limit);
+
+    /**
+     * Find a specific job by ID and user ID (for security).
+     */
+    SigningJob findByIdAndUserId(UUID id, UUID userId);
+
+    /**
+     * Records the outcome of a job, but only if this worker still holds its lease.
+     */
+    @Modifying
+    @Query("""
+            update signing_jobs j
+            set j.status = :status, j.resultDocumentId = :documentId, j.error = :error,
+                j.completedAt = :completedAt, j.leaseExpiresAt = null
+            where j.id = :id and j.workerId = :workerId and j.status = :running
+            """)
+    int complete(@Param("id") UUID id, @Param("workerId") String workerId,
+                 @Param("running") SigningJobStatus running, @Param("status") SigningJobStatus status,
+                 @Param("documentId") UUID documentId, @Param("error") String error,
+                 @Param("completedAt") LocalDateTime completedAt);
+
+    /**
+     * Locks running jobs whose worker let the lease lapse (crashed or stalled node).
+     */
+    @Query(value = """
+            SELECT * FROM signing_jobs
+            WHERE status = 'RUNNING' AND lease_expires_at < :now
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<SigningJob> lockExpiredLeases(@Param("now") LocalDateTime now);
+
+    /**
+     * Locks queued jobs that nobody picked up before the cutoff.
+     */
+    @Query(value = """
+            SELECT * FROM signing_jobs
+            WHERE status = 'QUEUED' AND created_at < :cutoff
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<SigningJob> lockStaleQueued(@Param("cutoff") LocalDateTime cutoff);
+}
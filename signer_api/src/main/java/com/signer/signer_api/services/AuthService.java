@@ -1,9 +1,10 @@
 package com.signer.signer_api.services;
 
+import com.signer.signer_api.models.CustomUserDetails;
 import com.signer.signer_api.models.User;
 import com.signer.signer_api.models.dto.auth.LoginRequest;
-import com.signer.signer_api.repo.UserRepo;
 import com.signer.signer_api.utils.JWTUtils;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseCookie;
@@ -20,7 +21,8 @@ public class AuthService {
     private final AuthenticationManager authenticationManager;
     private final JWTUtils jwtUtils;
     private final SessionCertificateService sessionCertificateService;
-    private final UserRepo userRepo;
+    private final UserCache userCache;
+    private final VerifiedTokenCache tokenCache;
 
     public String authenticateAndGenerateToken(LoginRequest userData) {
         log.info("Authenticating user: {}", userData.username());
@@ -32,20 +34,27 @@ public class AuthService {
 
         String username = authentication.getName();
 
-        // 2. Get user's full name for certificate
-        User user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // 2. Get user's full name for certificate (loaded by the authentication above)
+        User user = ((CustomUserDetails) authentication.getPrincipal()).getuser();
 
         // 3. Create temporary session certificate
         sessionCertificateService.createSession(username, user.getFullname());
         log.info("Session certificate created for user: {}", username);
 
-        // 4. Generate the JWT
-        return jwtUtils.generateToken(username);
+        // 4. Generate the JWT, carrying the user id and full name
+        return jwtUtils.generateToken(user);
     }
 
-    public void logout(String username) {
+    /**
+     * Ends the user's certificate session and revokes the token they logged out with.
+     */
+    public void logout(String username, String token) {
         sessionCertificateService.invalidateSession(username);
+        userCache.evict(username);
+        Claims claims = token != null ? jwtUtils.parseToken(token) : null;
+        if (claims != null) {
+            tokenCache.revoke(VerifiedTokenCache.digest(token), claims.getExpiration());
+        }
         log.info("User logged out and certificate session invalidated: {}", username);
     }
 
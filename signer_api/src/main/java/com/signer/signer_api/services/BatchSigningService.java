@@ -0,0 +1,305 @@
+package com.signer.signer_api.services;
+
+import com.signer.signer_api.models.SignedDocument;
+import com.signer.signer_api.models.dto.signature.BatchSigningResult;
+import com.signer.signer_api.models.dto.signature.SignatureRequestDto;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.repo.SignedDocumentRepo;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpoolException;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Signs many documents for one user with shared placement settings.
+ * The user lookup, certificate session and signature image are resolved once, the documents are
+ * signed on a bounded pool, and each signed PDF is streamed back in a ZIP as soon as it finishes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchSigningService {
+
+    private static final String MANIFEST_ENTRY = "manifest.json";
+
+    private final SignatureService signatureService;
+    private final PdfSpoolService pdfSpoolService;
+    private final PdfOptimizer pdfOptimizer;
+    private final SignedDocumentRepo signedDocumentRepo;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.signing.batch.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.signing.batch.max-documents:2000}")
+    private int maxDocuments;
+
+    @Value("${app.signing.batch.insert-batch-size:50}")
+    private int insertBatchSize;
+
+    private ExecutorService executor;
+
+    /**
+     * A document waiting to be signed in a batch. Closing it releases the spooled input.
+     */
+    public record BatchDocument(String fileName, SpooledPdf pdf) implements AutoCloseable {
+        @Override
+        public void close() {
+            pdf.close();
+        }
+    }
+
+    private record Outcome(BatchDocument source, SpooledPdf signedPdf, SignedDocument document,
+                           String error, long elapsedMillis) {
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "batch-signer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Spools the uploaded PDFs and/or the PDF entries of a ZIP archive.
+     */
+    public List<BatchDocument> spool(List<MultipartFile> files, MultipartFile archive) {
+        List<BatchDocument> documents = new ArrayList<>();
+        try {
+            if (files != null) {
+                for (MultipartFile file : files) {
+                    checkLimit(documents);
+                    String name = file.getOriginalFilename() != null
+                            ? file.getOriginalFilename()
+                            : "document-" + (documents.size() + 1) + ".pdf";
+                    documents.add(new BatchDocument(name, pdfSpoolService.spool(file)));
+                }
+            }
+            if (archive != null && !archive.isEmpty()) {
+                spoolArchive(archive, documents);
+            }
+        } catch (RuntimeException e) {
+            documents.forEach(BatchDocument::close);
+            throw e;
+        }
+        if (documents.isEmpty()) {
+            throw new SpoolException("No documents provided for batch signing");
+        }
+        return documents;
+    }
+
+    private void spoolArchive(MultipartFile archive, List<BatchDocument> documents) {
+        try (InputStream in = archive.getInputStream(); ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory() || !entry.getName().toLowerCase().endsWith(".pdf")) {
+                    continue;
+                }
+                checkLimit(documents);
+                String name = Paths.get(entry.getName()).getFileName().toString();
+                documents.add(new BatchDocument(name, pdfSpoolService.spool(zip)));
+            }
+        } catch (IOException e) {
+            throw new SpoolException("Failed to read batch archive", e);
+        }
+    }
+
+    private void checkLimit(List<BatchDocument> documents) {
+        if (documents.size() >= maxDocuments) {
+            throw new SpoolException("A batch may contain at most " + maxDocuments + " documents");
+        }
+    }
+
+    /**
+     * Signs every document and writes a ZIP to {@code out}: one entry per signed PDF in completion order,
+     * followed by a {@code manifest.json} describing each result. Metadata rows are inserted in batches.
+     * If the batch does not finish, every document it stored is removed again, rows included, since the
+     * client is left with a truncated archive. The documents are closed when this method returns.
+     */
+    public void signBatch(SigningContext context, SignatureRequestDto settings,
+                          List<BatchDocument> documents, OutputStream out) throws IOException {
+        log.info("Batch signing {} documents for user {} with parallelism {}",
+                documents.size(), context.username(), parallelism);
+        long start = System.currentTimeMillis();
+
+        SignatureImage signatureImage = signatureService.resolveSignatureImage(context, settings);
+        CompletionService<Outcome> completion = new ExecutorCompletionService<>(executor);
+        for (BatchDocument document : documents) {
+            completion.submit(() -> signOne(context, settings, signatureImage, document));
+        }
+
+        List<BatchSigningResult> results = new ArrayList<>(documents.size());
+        // Stored by a worker but not inserted yet; their files are removed if the batch does not finish
+        List<SignedDocument> pendingRows = new ArrayList<>(insertBatchSize);
+        List<SignedDocument> insertedRows = new ArrayList<>();
+        Set<String> entryNames = new HashSet<>();
+        int remaining = documents.size();
+        boolean finished = false;
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            while (remaining > 0) {
+                Outcome outcome = completion.take().get();
+                remaining--;
+                String fileName = outcome.source().fileName();
+                if (outcome.error() != null) {
+                    results.add(new BatchSigningResult(fileName, null, null, false, outcome.error(), 0,
+                            outcome.elapsedMillis()));
+                    continue;
+                }
+                pendingRows.add(outcome.document());
+                String entryName = uniqueEntryName(fileName, entryNames);
+                try (SpooledPdf signedPdf = outcome.signedPdf()) {
+                    zip.putNextEntry(new ZipEntry(entryName));
+                    signedPdf.transferTo(zip);
+                    zip.closeEntry();
+                    zip.flush();
+                }
+                results.add(new BatchSigningResult(fileName, entryName, outcome.document().getId(), true, null,
+                        outcome.document().getFileSizeBytes(), outcome.elapsedMillis()));
+
+                if (pendingRows.size() >= insertBatchSize) {
+                    insertRows(pendingRows, insertedRows);
+                }
+            }
+            insertRows(pendingRows, insertedRows);
+            finished = true;
+
+            zip.putNextEntry(new ZipEntry(MANIFEST_ENTRY));
+            zip.write(objectMapper.writeValueAsBytes(results));
+            zip.closeEntry();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch signing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch signing failed", e.getCause());
+        } finally {
+            if (!finished) {
+                // Wait for outcomes that were not written, then remove everything stored without a row
+                drain(completion, remaining, pendingRows);
+                discardStored(pendingRows);
+                deleteInserted(insertedRows);
+            }
+            documents.forEach(BatchDocument::close);
+        }
+
+        long succeeded = results.stream().filter(BatchSigningResult::success).count();
+        log.info("Batch for user {} finished: {}/{} signed in {} ms",
+                context.username(), succeeded, documents.size(), System.currentTimeMillis() - start);
+    }
+
+    private Outcome signOne(SigningContext context, SignatureRequestDto settings,
+                            SignatureImage signatureImage, BatchDocument source) {
+        long start = System.currentTimeMillis();
+        SpooledPdf signedPdf = null;
+        try (source; PdfOptimizer.Result original = pdfOptimizer.optimize(source.pdf())) {
+            signedPdf = signatureService.sign(context, settings, signatureImage, original.document());
+            SignedDocument document = signatureService.storeSignedDocument(
+                    context, original, signedPdf, settings, source.fileName());
+            return new Outcome(source, signedPdf, document, null, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Batch signing failed for {}", source.fileName(), e);
+            if (signedPdf != null) {
+                signedPdf.close();
+            }
+            return new Outcome(source, null, null, e.getMessage(), System.currentTimeMillis() - start);
+        }
+    }
+
+    private void insertRows(List<SignedDocument> rows, List<SignedDocument> inserted) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        signedDocumentRepo.saveAll(rows);
+        log.info("Inserted {} signed document rows", rows.size());
+        inserted.addAll(rows);
+        rows.clear();
+    }
+
+    private void drain(CompletionService<Outcome> completion, int remaining, List<SignedDocument> stored) {
+        for (int i = 0; i < remaining; i++) {
+            try {
+                Outcome outcome = completion.take().get();
+                if (outcome.signedPdf() != null) {
+                    outcome.signedPdf().close();
+                }
+                if (outcome.document() != null) {
+                    stored.add(outcome.document());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException ignored) {
+                // Already reported by the caller
+            }
+        }
+    }
+
+    private void discardStored(List<SignedDocument> stored) {
+        if (!stored.isEmpty()) {
+            log.warn("Batch did not finish, removing {} stored documents that have no row", stored.size());
+        }
+        for (SignedDocument document : stored) {
+            try {
+                signatureService.discardStoredDocument(document);
+            } catch (RuntimeException e) {
+                log.error("Failed to remove stored document {} of an unfinished batch", document.getId(), e);
+            }
+        }
+    }
+
+    private void deleteInserted(List<SignedDocument> inserted) {
+        if (!inserted.isEmpty()) {
+            log.warn("Batch did not finish, deleting {} documents it already saved", inserted.size());
+        }
+        for (SignedDocument document : inserted) {
+            try {
+                signatureService.deleteSignedDocument(document);
+            } catch (RuntimeException e) {
+                log.error("Failed to delete document {} of an unfinished batch", document.getId(), e);
+            }
+        }
+    }
+
+    private String uniqueEntryName(String fileName, Set<String> used) {
+        String base = fileName.toLowerCase().endsWith(".pdf")
+                ? fileName.substring(0, fileName.length() - 4)
+                : fileName;
+        String name = base + "_signed.pdf";
+        for (int i = 2; !used.add(name); i++) {
+            name = base + "_signed (" + i + ").pdf";
+        }
+        return name;
+    }
+}
@@ -0,0 +1,120 @@
+package com.signer.signer_api.services;
+
+import com.itextpdf.signatures.BouncyCastleDigest;
+import com.itextpdf.signatures.IExternalSignature;
+import com.itextpdf.signatures.PdfPKCS7;
+import com.itextpdf.signatures.PdfSigner;
+import com.itextpdf.signatures.PrivateKeySignature;
+import com.signer.signer_api.models.dto.certificate.CertificateSession;
+import com.signer.signer_api.models.dto.signature.HashSigningRequestDto;
+import com.signer.signer_api.models.dto.signature.HashSigningResponseDto;
+import com.signer.signer_api.models.dto.signature.SigningCertificateDto;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.security.GeneralSecurityException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash-only signing. The client prepares the PDF with an empty signature container and sends only the
+ * digest of its byte ranges; the server returns a detached CMS container built from the session key,
+ * so the document itself never crosses the wire.
+ */
+@Slf4j
+@Service
+public class DeferredSigningService {
+
+    // Digest name accepted from clients -> iText hash algorithm name and digest length
+    private static final Map<String, String> HASH_ALGORITHMS = Map.of(
+            "SHA-256", "SHA256",
+            "SHA-384", "SHA384",
+            "SHA-512", "SHA512"
+    );
+    private static final Map<String, Integer> DIGEST_LENGTHS = Map.of(
+            "SHA-256", 32,
+            "SHA-384", 48,
+            "SHA-512", 64
+    );
+
+    // Room for signed attributes, algorithm identifiers and the signature value on top of the certificates
+    private static final int CONTAINER_OVERHEAD_BYTES = 4096;
+
+    /**
+     * Builds a detached CMS container over the given byte-range digest.
+     *
+     * @throws IllegalArgumentException if the digest or algorithm is malformed
+     */
+    public HashSigningResponseDto signHash(SigningContext context, HashSigningRequestDto request) {
+        String digestAlgorithm = request.digestAlgorithm() == null || request.digestAlgorithm().isBlank()
+                ? "SHA-256"
+                : request.digestAlgorithm().trim().toUpperCase();
+        String hashAlgorithm = HASH_ALGORITHMS.get(digestAlgorithm);
+        if (hashAlgorithm == null) {
+            throw new IllegalArgumentException("Unsupported digest algorithm: " + request.digestAlgorithm());
+        }
+        if (request.digest() == null || request.digest().isBlank()) {
+            throw new IllegalArgumentException("No digest provided");
+        }
+
+        byte[] digest;
+        try {
+            digest = Base64.getDecoder().decode(request.digest().trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Digest is not valid base64");
+        }
+        if (digest.length != DIGEST_LENGTHS.get(digestAlgorithm)) {
+            throw new IllegalArgumentException("Digest length " + digest.length + " does not match " + digestAlgorithm);
+        }
+
+        CertificateSession session = context.session();
+        try {
+            PdfPKCS7 pkcs7 = new PdfPKCS7(null, session.certificateChain(), hashAlgorithm, null,
+                    new BouncyCastleDigest(), false);
+            byte[] attributes = pkcs7.getAuthenticatedAttributeBytes(digest, PdfSigner.CryptoStandard.CMS, null, null);
+
+            IExternalSignature signature = new PrivateKeySignature(session.privateKey(), hashAlgorithm, "BC");
+            pkcs7.setExternalDigest(signature.sign(attributes), null, signature.getEncryptionAlgorithm());
+
+            byte[] container = pkcs7.getEncodedPKCS7(digest, PdfSigner.CryptoStandard.CMS, null, null, null);
+            log.info("Signed {} digest for user {} ({} byte container)", digestAlgorithm, context.username(),
+                    container.length);
+            return new HashSigningResponseDto(
+                    Base64.getEncoder().encodeToString(container),
+                    digestAlgorithm,
+                    container.length
+            );
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Failed to sign document digest", e);
+        }
+    }
+
+    /**
+     * Describes the session certificate so the client can prepare the document.
+     */
+    public SigningCertificateDto describeCertificate(SigningContext context) {
+        CertificateSession session = context.session();
+        List<String> chain = new ArrayList<>();
+        int certificateBytes = 0;
+        try {
+            for (X509Certificate certificate : session.certificateChain()) {
+                byte[] encoded = certificate.getEncoded();
+                certificateBytes += encoded.length;
+                chain.add(Base64.getEncoder().encodeToString(encoded));
+            }
+        } catch (CertificateEncodingException e) {
+            throw new RuntimeException("Failed to encode certificate chain", e);
+        }
+        return new SigningCertificateDto(
+                session.userCertificate().getSubjectX500Principal().getName(),
+                chain,
+                session.expiresAt(),
+                certificateBytes + CONTAINER_OVERHEAD_BYTES
+        );
+    }
+}
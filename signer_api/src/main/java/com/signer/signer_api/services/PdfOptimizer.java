@@ -0,0 +1,277 @@
+package com.signer.signer_api.services;
+
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.kernel.exceptions.BadPasswordException;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfIndirectReference;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfVersion;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.ReaderProperties;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.signatures.SignatureUtil;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpoolOutputStream;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optional stage that shrinks a document before it is signed.
+ * <p>
+ * The document is rewritten in full with object streams and a compressed xref. Identical streams (typically
+ * an image or font embedded once per page) are merged, streams stored without a filter are deflated at the
+ * best level, and objects nothing refers to are dropped. Already encoded streams are copied as they are.
+ * Documents that are encrypted, already signed (a rewrite would break their signatures) or PDF/A-1 (which
+ * forbids object streams) are left alone, as is any document the rewrite does not make smaller.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PdfOptimizer {
+
+    private static final byte[] HEADER = "%PDF-1.".getBytes(StandardCharsets.US_ASCII);
+
+    private final PdfSpoolService pdfSpoolService;
+
+    @Value("${app.signing.optimize.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.signing.optimize.max-bytes:67108864}")
+    private long maxBytes;
+
+    /**
+     * The document to sign and the size it was uploaded with. Closing releases the optimized copy, if one
+     * was made; the input stays with its owner.
+     */
+    public record Result(SpooledPdf document, long originalSizeBytes, boolean optimized) implements AutoCloseable {
+
+        public static Result unchanged(SpooledPdf input) {
+            return new Result(input, input.size(), false);
+        }
+
+        @Override
+        public void close() {
+            if (optimized) {
+                document.close();
+            }
+        }
+    }
+
+    public Result optimize(SpooledPdf input) {
+        if (!enabled || input.size() > maxBytes) {
+            return Result.unchanged(input);
+        }
+        long start = System.currentTimeMillis();
+        SpoolOutputStream out = pdfSpoolService.newOutput();
+        PdfReader reader = null;
+        try {
+            WriterProperties properties = new WriterProperties()
+                    .setFullCompressionMode(true)
+                    .setCompressionLevel(CompressionConstants.BEST_COMPRESSION);
+            if (headerMinorVersion(input) < 5) {
+                // Object streams and xref streams need PDF 1.5
+                properties.setPdfVersion(PdfVersion.PDF_1_5);
+            }
+            reader = openReader(input);
+            PdfDocument pdf = new PdfDocument(reader, new PdfWriter(out, properties));
+            String skipReason = skipReason(pdf);
+            if (skipReason != null) {
+                pdf.getReader().close();
+                out.discard();
+                log.debug("Not optimizing document: {}", skipReason);
+                return Result.unchanged(input);
+            }
+
+            int merged = mergeDuplicateStreams(pdf);
+            pdf.close();
+
+            SpooledPdf optimized = out.toSpooledPdf();
+            if (optimized.size() >= input.size()) {
+                optimized.close();
+                log.debug("Optimizing did not shrink document ({} bytes), keeping it", input.size());
+                return Result.unchanged(input);
+            }
+            log.info("Optimized document from {} to {} bytes ({} duplicate streams merged) in {} ms",
+                    input.size(), optimized.size(), merged, System.currentTimeMillis() - start);
+            return new Result(optimized, input.size(), true);
+        } catch (BadPasswordException e) {
+            // Rewriting an encrypted document takes its owner password, so it is refused on open
+            closeQuietly(reader);
+            out.discard();
+            log.debug("Not optimizing document: encrypted");
+            return Result.unchanged(input);
+        } catch (Exception e) {
+            // Optimizing is best effort; the document is signed as uploaded
+            closeQuietly(reader);
+            out.discard();
+            log.warn("Failed to optimize document, signing it as uploaded: {}", e.getMessage());
+            return Result.unchanged(input);
+        }
+    }
+
+    private PdfReader openReader(SpooledPdf input) throws IOException {
+        if (input.isOnDisk()) {
+            return new PdfReader(input.file().orElseThrow().toFile());
+        }
+        return new PdfReader(new RandomAccessSourceFactory().createSource(input.toByteArray()), new ReaderProperties());
+    }
+
+    private static void closeQuietly(PdfReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                log.debug("Failed to close reader: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static String skipReason(PdfDocument pdf) {
+        if (pdf.getReader().isEncrypted()) {
+            return "encrypted";
+        }
+        PdfAConformanceLevel conformance = pdf.getReader().getPdfAConformanceLevel();
+        if (conformance != null && "1".equals(conformance.getPart())) {
+            return "PDF/A-1";
+        }
+        if (!new SignatureUtil(pdf).getSignatureNames().isEmpty()) {
+            return "already signed";
+        }
+        return null;
+    }
+
+    /**
+     * Points every reference to a stream at the first stream with the same dictionary and encoded bytes,
+     * leaving the copies unreferenced so they are not written.
+     *
+     * @return the number of streams merged away
+     */
+    private static int mergeDuplicateStreams(PdfDocument pdf) {
+        int objectCount = pdf.getNumberOfPdfObjects();
+        Map<String, PdfIndirectReference> firstByContent = new HashMap<>();
+        Map<Integer, PdfIndirectReference> replacements = new HashMap<>();
+        for (int i = 1; i < objectCount; i++) {
+            if (pdf.getPdfObject(i) instanceof PdfStream stream && !isStructural(stream)) {
+                String key = SignatureImageCache.hash(stream.getBytes(false)) + canonical(stream);
+                PdfIndirectReference first = firstByContent.putIfAbsent(key, stream.getIndirectReference());
+                if (first != null) {
+                    replacements.put(i, first);
+                }
+            }
+        }
+        if (replacements.isEmpty()) {
+            return 0;
+        }
+        for (int i = 1; i < objectCount; i++) {
+            PdfObject object = pdf.getPdfObject(i);
+            if (object != null && !replacements.containsKey(i)) {
+                redirect(object, replacements);
+            }
+        }
+        redirect(pdf.getTrailer(), replacements);
+        return replacements.size();
+    }
+
+    private static boolean isStructural(PdfStream stream) {
+        PdfName type = stream.getAsName(PdfName.Type);
+        return PdfName.ObjStm.equals(type) || PdfName.XRef.equals(type);
+    }
+
+    private static void redirect(PdfObject object, Map<Integer, PdfIndirectReference> replacements) {
+        if (object instanceof PdfDictionary dictionary) {
+            for (PdfName key : new ArrayList<>(dictionary.keySet())) {
+                PdfObject value = dictionary.get(key, false);
+                if (value instanceof PdfIndirectReference reference) {
+                    PdfIndirectReference replacement = replacements.get(reference.getObjNumber());
+                    if (replacement != null) {
+                        dictionary.put(key, replacement);
+                    }
+                } else {
+                    redirect(value, replacements);
+                }
+            }
+        } else if (object instanceof PdfArray array) {
+            for (int i = 0; i < array.size(); i++) {
+                PdfObject value = array.get(i, false);
+                if (value instanceof PdfIndirectReference reference) {
+                    PdfIndirectReference replacement = replacements.get(reference.getObjNumber());
+                    if (replacement != null) {
+                        array.set(i, replacement);
+                    }
+                } else {
+                    redirect(value, replacements);
+                }
+            }
+        }
+    }
+
+    /**
+     * A stable rendering of a stream dictionary without its length, for comparing two streams.
+     */
+    private static String canonical(PdfStream stream) {
+        StringBuilder out = new StringBuilder();
+        for (PdfName key : stream.keySet()) {
+            if (!PdfName.Length.equals(key)) {
+                out.append(key);
+                appendCanonical(out, stream.get(key, false));
+            }
+        }
+        return out.toString();
+    }
+
+    private static void appendCanonical(StringBuilder out, PdfObject value) {
+        if (value instanceof PdfIndirectReference reference) {
+            out.append(' ').append(reference.getObjNumber()).append(' ').append(reference.getGenNumber()).append(" R");
+        } else if (value instanceof PdfDictionary dictionary) {
+            out.append("<<");
+            for (PdfName key : dictionary.keySet()) {
+                out.append(key);
+                appendCanonical(out, dictionary.get(key, false));
+            }
+            out.append(">>");
+        } else if (value instanceof PdfArray array) {
+            out.append('[');
+            for (int i = 0; i < array.size(); i++) {
+                appendCanonical(out, array.get(i, false));
+            }
+            out.append(']');
+        } else {
+            out.append(' ').append(value.getClass().getSimpleName()).append(':').append(value);
+        }
+    }
+
+    /**
+     * @return the minor version from the {@code %PDF-1.x} header, or 7 if there is no such header
+     */
+    private static int headerMinorVersion(SpooledPdf input) throws IOException {
+        byte[] header;
+        try (InputStream in = input.openStream()) {
+            header = in.readNBytes(HEADER.length + 1);
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (header.length <= HEADER.length || header[i] != HEADER[i]) {
+                return 7;
+            }
+        }
+        int minor = header[HEADER.length] - '0';
+        return minor >= 0 && minor <= 9 ? minor : 7;
+    }
+}
@@ -1,6 +1,7 @@
 package com.signer.signer_api.services;
 
 import com.signer.signer_api.models.dto.certificate.CertificateSession;
+import com.signer.signer_api.services.keys.SessionKeyPairPool;
 import com.signer.signer_api.utils.RootCAManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,10 +10,11 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.security.KeyPair;
-import java.security.KeyPairGenerator;
 import java.security.cert.X509Certificate;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 
@@ -22,6 +24,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class SessionCertificateService {
 
     private final RootCAManager rootCAManager;
+    private final SessionKeyPairPool sessionKeyPairPool;
 
     @Value("${app.certificates.session.validity-hours:24}")
     private int sessionValidityHours;
@@ -32,10 +35,8 @@ public class SessionCertificateService {
 
     public CertificateSession createSession(String username, String fullName) {
         try {
-            // Generate a new key pair for this session
-            KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
-            keyGen.initialize(2048);
-            KeyPair keyPair = keyGen.generateKeyPair();
+            // Take a pre-generated key pair for this session
+            KeyPair keyPair = sessionKeyPairPool.take();
 
             // Get Root CA to sign the user certificate
             X509Certificate userCert = rootCAManager.signUserCertificate(
@@ -113,6 +114,20 @@ public class SessionCertificateService {
     }
 
 
+    /**
+     * @return usernames that currently hold an unexpired session on this node
+     */
+    public Set<String> getActiveUsernames() {
+        Set<String> usernames = new HashSet<>();
+        sessions.forEach((username, session) -> {
+            if (!session.isExpired()) {
+                usernames.add(username);
+            }
+        });
+        return usernames;
+    }
+
+
     public int getActiveSessionCount() {
         return sessions.size();
     }
@@ -0,0 +1,176 @@
+package com.signer.signer_api.services;
+
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.Canvas;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.layout.LayoutArea;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cache of pre-rendered signature appearances.
+ * The border, the signature image and the static description lines are rendered once per
+ * {@link TemplateKey} into a small template PDF. Signing copies that template into the document as
+ * a form XObject and lays out only the variable text (the date) underneath it.
+ * <p>
+ * The layout mirrors what {@code PdfSignatureAppearance} draws for the DESCRIPTION and
+ * GRAPHIC_AND_DESCRIPTION rendering modes.
+ */
+@Slf4j
+@Component
+public class SignatureAppearanceTemplates {
+
+    // Same geometry as PdfSignatureAppearance
+    private static final float MARGIN = 2;
+    private static final float TOP_SECTION = 0.3f;
+
+    /**
+     * Everything that affects the pre-rendered part of an appearance.
+     *
+     * @param imageHash content hash of the signature image, or null for a description-only appearance
+     */
+    public record TemplateKey(
+            UUID userId,
+            String staticText,
+            String imageHash,
+            float fontSize,
+            String fontColor,
+            String borderColor,
+            float width,
+            float height
+    ) {
+    }
+
+    /**
+     * @param source   single-page PDF holding the pre-rendered part; reads are not thread-safe
+     * @param textArea space left below the static text for the variable text, or null if there is none
+     */
+    private record Template(PdfDocument source, Rectangle textArea) {
+    }
+
+    @Value("${app.signing.appearance-cache.max-entries:1000}")
+    private int maxEntries;
+
+    private final LinkedHashMap<TemplateKey, Template> templates = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TemplateKey, Template> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * Draws the appearance for {@code key} into {@code layer2} of the document being signed.
+     */
+    public void render(PdfDocument document, PdfFormXObject layer2, TemplateKey key, SignatureImage image,
+                       Color fontColor, Color borderColor, String variableText) throws IOException {
+        Template template = getOrCreate(key, image, fontColor, borderColor);
+
+        PdfFormXObject staticPart;
+        synchronized (template.source()) {
+            staticPart = template.source().getFirstPage().copyAsFormXObject(document);
+        }
+
+        PdfCanvas canvas = new PdfCanvas(layer2, document);
+        canvas.addXObjectAt(staticPart, 0, 0);
+        if (template.textArea() != null) {
+            new Canvas(canvas, template.textArea()).add(paragraph(variableText, key.fontSize(), fontColor));
+        }
+    }
+
+    public synchronized int size() {
+        return templates.size();
+    }
+
+    private Template getOrCreate(TemplateKey key, SignatureImage image, Color fontColor, Color borderColor)
+            throws IOException {
+        synchronized (this) {
+            Template cached = templates.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // Render outside the lock; a concurrent miss for the same key just renders twice
+        Template template = createTemplate(key, image, fontColor, borderColor);
+        synchronized (this) {
+            Template existing = templates.putIfAbsent(key, template);
+            return existing != null ? existing : template;
+        }
+    }
+
+    private Template createTemplate(TemplateKey key, SignatureImage image, Color fontColor, Color borderColor)
+            throws IOException {
+        float width = key.width();
+        float height = key.height();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Rectangle textArea;
+
+        try (PdfDocument templateDocument = new PdfDocument(new PdfWriter(out))) {
+            PdfCanvas canvas = new PdfCanvas(templateDocument.addNewPage(new PageSize(width, height)));
+            canvas.setStrokeColor(borderColor);
+            canvas.setLineWidth(1);
+            canvas.rectangle(0, 0, width, height);
+            canvas.stroke();
+
+            Rectangle dataRect;
+            if (image != null) {
+                Rectangle signatureRect;
+                if (height > width) {
+                    signatureRect = new Rectangle(MARGIN, height / 2, width - 2 * MARGIN, height / 2);
+                    dataRect = new Rectangle(MARGIN, MARGIN, width - 2 * MARGIN, height / 2 - 2 * MARGIN);
+                } else {
+                    signatureRect = new Rectangle(MARGIN, MARGIN, width / 2 - 2 * MARGIN, height - 2 * MARGIN);
+                    dataRect = new Rectangle(width / 2 + MARGIN / 2, MARGIN, width / 2 - MARGIN, height - 2 * MARGIN);
+                }
+                drawImage(canvas, image.data(), signatureRect);
+            } else {
+                dataRect = new Rectangle(MARGIN, MARGIN, width - 2 * MARGIN, height * (1 - TOP_SECTION) - 2 * MARGIN);
+            }
+
+            Canvas layout = new Canvas(canvas, dataRect);
+            layout.add(paragraph(key.staticText(), key.fontSize(), fontColor));
+            LayoutArea remaining = layout.getRenderer().getCurrentArea();
+            textArea = remaining != null && remaining.getBBox().getHeight() > 0
+                    ? remaining.getBBox().clone()
+                    : null;
+        }
+
+        log.debug("Rendered signature appearance template for user {}", key.userId());
+        return new Template(new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray()))), textArea);
+    }
+
+    private static void drawImage(PdfCanvas canvas, ImageData image, Rectangle signatureRect) {
+        float multiplier = Math.min(signatureRect.getWidth() / image.getWidth(),
+                signatureRect.getHeight() / image.getHeight());
+        float imgWidth = image.getWidth() * multiplier;
+        float imgHeight = image.getHeight() * multiplier;
+        float x = signatureRect.getRight() - imgWidth;
+        float y = signatureRect.getBottom() + (signatureRect.getHeight() - imgHeight) / 2;
+        canvas.addImageWithTransformationMatrix(image, imgWidth, 0, 0, imgHeight, x, y);
+    }
+
+    private static Paragraph paragraph(String text, float fontSize, Color fontColor) throws IOException {
+        return new Paragraph(text)
+                .setFont(PdfFontFactory.createFont())
+                .setFontSize(fontSize)
+                .setFontColor(fontColor)
+                .setMargin(0)
+                .setMultipliedLeading(0.9f);
+    }
+}
@@ -0,0 +1,112 @@
+package com.signer.signer_api.services;
+
+import com.signer.signer_api.models.SignatureAsset;
+import com.signer.signer_api.models.dto.signature.SignatureAssetDto;
+import com.signer.signer_api.repo.SignatureAssetRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Per-user library of signature images, so signing requests can reference a stored signature by id
+ * instead of sending it inline. Decoded images are served from {@link SignatureImageCache}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SignatureAssetService {
+
+    private final SignatureAssetRepo signatureAssetRepo;
+    private final SignatureImageCache signatureImageCache;
+
+    @Value("${app.signing.assets.max-bytes:1048576}")
+    private long maxAssetBytes;
+
+    @Value("${app.signing.assets.max-per-user:20}")
+    private int maxAssetsPerUser;
+
+    /**
+     * Stores an uploaded signature image. Uploading the same image twice returns the existing asset.
+     */
+    public SignatureAssetDto upload(UUID userId, MultipartFile file, String name) throws IOException {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("Signature image is empty");
+        }
+        if (file.getSize() > maxAssetBytes) {
+            throw new IllegalArgumentException("Signature image exceeds " + maxAssetBytes + " bytes");
+        }
+        byte[] content = file.getBytes();
+        String contentHash = SignatureImageCache.hash(content);
+
+        Optional<SignatureAssetDto> existing = signatureAssetRepo.findFirstByUserIdAndContentHash(userId, contentHash);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        if (signatureAssetRepo.countByUserId(userId) >= maxAssetsPerUser) {
+            throw new IllegalArgumentException("A user may store at most " + maxAssetsPerUser + " signatures");
+        }
+
+        // Reject anything iText cannot use, and warm the cache while we are at it
+        try {
+            signatureImageCache.decode(content);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Unsupported signature image");
+        }
+
+        SignatureAsset asset = SignatureAsset.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .name(name != null && !name.isBlank() ? name : defaultName(file))
+                .contentType(file.getContentType() != null ? file.getContentType() : "application/octet-stream")
+                .contentHash(contentHash)
+                .sizeBytes(content.length)
+                .content(content)
+                .build();
+        signatureAssetRepo.save(asset);
+        log.info("Stored signature asset {} for user {}", asset.getId(), userId);
+        return toDto(asset);
+    }
+
+    public List<SignatureAssetDto> list(UUID userId) {
+        return signatureAssetRepo.findSummariesByUserId(userId);
+    }
+
+    @Transactional
+    public boolean delete(UUID userId, UUID assetId) {
+        return signatureAssetRepo.deleteByIdAndUserId(assetId, userId) > 0;
+    }
+
+    /**
+     * Returns the decoded image of a stored signature. The image bytes are only read from the
+     * database when the decoded image is not cached.
+     */
+    public SignatureImage loadImage(UUID userId, UUID assetId) {
+        String contentHash = signatureAssetRepo.findContentHash(assetId, userId)
+                .orElseThrow(() -> new RuntimeException("Signature asset not found"));
+        return signatureImageCache.getOrDecode(contentHash, () -> signatureAssetRepo.findContent(assetId, userId)
+                .orElseThrow(() -> new RuntimeException("Signature asset not found")));
+    }
+
+    private static String defaultName(MultipartFile file) {
+        return file.getOriginalFilename() != null ? file.getOriginalFilename() : "signature";
+    }
+
+    private static SignatureAssetDto toDto(SignatureAsset asset) {
+        return new SignatureAssetDto(
+                asset.getId(),
+                asset.getName(),
+                asset.getContentType(),
+                asset.getSizeBytes(),
+                asset.getContentHash(),
+                asset.getCreatedAt()
+        );
+    }
+}
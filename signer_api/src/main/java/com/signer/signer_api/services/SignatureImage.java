@@ -0,0 +1,12 @@
+package com.signer.signer_api.services;
+
+import com.itextpdf.io.image.ImageData;
+
+/**
+ * A decoded signature image together with the SHA-256 of its encoded bytes.
+ */
+public record SignatureImage(
+        String contentHash,
+        ImageData data
+) {
+}
@@ -0,0 +1,100 @@
+package com.signer.signer_api.services;
+
+import com.itextpdf.io.image.ImageDataFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of decoded signature images keyed by the SHA-256 of the encoded bytes.
+ * Entries are weighed by their encoded and decoded sizes so a few large images cannot crowd
+ * the heap; the least recently used images are evicted once the byte budget is exceeded.
+ */
+@Slf4j
+@Component
+public class SignatureImageCache {
+
+    private record Entry(SignatureImage image, long weight) {
+    }
+
+    @Value("${app.signing.image-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    public static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the cached image for {@code contentHash}, or null
+     */
+    public synchronized SignatureImage get(String contentHash) {
+        Entry entry = entries.get(contentHash);
+        return entry != null ? entry.image() : null;
+    }
+
+    /**
+     * Returns the decoded image for the given bytes, decoding and caching it on a miss.
+     */
+    public SignatureImage decode(byte[] content) {
+        String contentHash = hash(content);
+        return getOrDecode(contentHash, () -> content);
+    }
+
+    /**
+     * Returns the cached image for {@code contentHash}; on a miss the bytes are fetched from
+     * {@code loader}, decoded and cached.
+     */
+    public SignatureImage getOrDecode(String contentHash, Supplier<byte[]> loader) {
+        SignatureImage cached = get(contentHash);
+        if (cached != null) {
+            return cached;
+        }
+        // Decode outside the lock; a concurrent miss for the same image just decodes twice
+        byte[] content = loader.get();
+        SignatureImage image = new SignatureImage(contentHash, ImageDataFactory.create(content));
+        put(contentHash, image, content.length);
+        return image;
+    }
+
+    private synchronized void put(String contentHash, SignatureImage image, int encodedLength) {
+        byte[] decoded = image.data().getData();
+        long weight = encodedLength + (decoded != null ? decoded.length : 0);
+        if (weight > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(contentHash, new Entry(image, weight));
+        if (previous != null) {
+            totalBytes -= previous.weight();
+        }
+        totalBytes += weight;
+
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            totalBytes -= iterator.next().getValue().weight();
+            iterator.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+}
@@ -1,36 +1,62 @@
 package com.signer.signer_api.services;
 
-import com.itextpdf.io.image.ImageData;
-import com.itextpdf.io.image.ImageDataFactory;
-import com.itextpdf.io.source.ByteArrayOutputStream;
+import com.itextpdf.io.source.RandomAccessSourceFactory;
 import com.itextpdf.kernel.colors.Color;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.exceptions.KernelExceptionMessageConstant;
+import com.itextpdf.kernel.exceptions.PdfException;
 import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.forms.PdfAcroForm;
+import com.itextpdf.forms.fields.PdfFormField;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
 import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.ReaderProperties;
 import com.itextpdf.kernel.pdf.StampingProperties;
+import com.itextpdf.kernel.pdf.annot.PdfAnnotation;
+import com.itextpdf.kernel.pdf.annot.PdfWidgetAnnotation;
 import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
 import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
 import com.itextpdf.signatures.*;
+import com.signer.signer_api.models.DocumentTombstone;
 import com.signer.signer_api.models.SignedDocument;
-import com.signer.signer_api.models.User;
+import com.signer.signer_api.models.UserPrincipal;
 import com.signer.signer_api.models.dto.certificate.CertificateSession;
+import com.signer.signer_api.models.dto.signature.SignaturePlacement;
 import com.signer.signer_api.models.dto.signature.SignatureRequestDto;
+import com.signer.signer_api.models.dto.signature.SigningContext;
 import com.signer.signer_api.models.dto.signature.SigningProperties;
+import com.signer.signer_api.repo.DocumentTombstoneRepo;
 import com.signer.signer_api.repo.SignedDocumentRepo;
-import com.signer.signer_api.repo.UserRepo;
+import com.signer.signer_api.services.journal.JournalRecord;
+import com.signer.signer_api.services.journal.WriteBehindDocumentWriter;
+import com.signer.signer_api.services.storage.DeltaBaseService;
+import com.signer.signer_api.services.storage.DocumentDelta;
 import com.signer.signer_api.services.storage.DocumentStorageService;
-import com.signer.signer_api.services.storage.LocalFileStorageService;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpoolOutputStream;
+import com.signer.signer_api.services.spool.SpooledPdf;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
+import java.time.LocalDateTime;
 import java.util.Base64;
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -38,82 +64,388 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class SignatureService {
 
-    @Autowired
-    private  UserRepo userRepo;
     @Autowired
     private  SessionCertificateService sessionCertificateService;
     @Autowired
     private DocumentStorageService storageService;
     @Autowired
     private  SignedDocumentRepo signedDocumentRepo;
+    @Autowired
+    private DocumentTombstoneRepo documentTombstoneRepo;
+    @Autowired
+    private PdfSpoolService pdfSpoolService;
+    @Autowired
+    private SignatureAssetService signatureAssetService;
+    @Autowired
+    private SignatureImageCache signatureImageCache;
+    @Autowired
+    private SignatureAppearanceTemplates appearanceTemplates;
+    @Autowired
+    private WriteBehindDocumentWriter writeBehindDocumentWriter;
+    @Autowired
+    private PdfOptimizer pdfOptimizer;
+    @Autowired
+    private DeltaBaseService deltaBaseService;
+
+    @Value("${app.signing.large-document-threshold-bytes:33554432}")
+    private long largeDocumentThreshold;
+
+    @Value("${app.signing.append-mode:true}")
+    private boolean appendModeByDefault;
+
+    @Value("${app.storage.delta.enabled:true}")
+    private boolean deltaStorageEnabled;
+
+    @Value("${app.storage.delta.min-base-bytes:1048576}")
+    private long deltaMinBaseBytes;
 
+    /**
+     * Signs a document supplied inline as base64 in {@link SignatureRequestDto#base64Pdf()}.
+     */
     public byte[] processPdf(SignatureRequestDto signatureRequestDto) throws Exception {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        log.info("Processing PDF signature for user: {}", username);
+        try (SpooledPdf input = pdfSpoolService.spoolBase64(signatureRequestDto.base64Pdf());
+             SpooledPdf signedPdf = processPdf(signatureRequestDto, input)) {
+            return signedPdf.toByteArray();
+        }
+    }
 
-        // Get user info
-        User user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    /**
+     * Signs a spooled document. The caller owns both the input and the returned spool and must close them.
+     */
+    public SpooledPdf processPdf(SignatureRequestDto signatureRequestDto, SpooledPdf input) throws Exception {
+        SigningContext context = resolveContext();
+        log.info("Processing PDF signature for user: {}", context.username());
+
+        SpooledPdf signedPdf;
+        try (PdfOptimizer.Result original = pdfOptimizer.optimize(input)) {
+            signedPdf = sign(context, signatureRequestDto, resolveSignatureImage(context, signatureRequestDto),
+                    original.document());
+            try {
+                if (writeBehindDocumentWriter.isEnabled()) {
+                    // Stored and saved in the background once the journal has it on disk
+                    journalSignedDocument(context, original, signedPdf, signatureRequestDto, "document.pdf");
+                } else {
+                    // Save signed document to storage and database
+                    SignedDocument document = storeSignedDocument(context, original, signedPdf, signatureRequestDto,
+                            "document.pdf");
+                    signedDocumentRepo.save(document);
+                }
+            } catch (Exception e) {
+                signedPdf.close();
+                throw e;
+            }
+        }
+
+        log.info("PDF signed and saved successfully for user: {}", context.username());
+        return signedPdf;
+    }
+
+    /**
+     * Looks up the authenticated user and their certificate session once, so it can be reused
+     * across several documents.
+     */
+    public SigningContext resolveContext() {
+        // User info comes from the token claims
+        UserPrincipal principal = UserPrincipal.from(SecurityContextHolder.getContext().getAuthentication());
+        String username = principal.username();
 
         // Get session certificate
         CertificateSession session = sessionCertificateService.getSession(username);
         if (session == null) {
             throw new RuntimeException("No valid certificate session found. Please login again.");
         }
+        return new SigningContext(principal.userId(), username, principal.fullName(), session);
+    }
 
-        String pdfBase64 = signatureRequestDto.base64Pdf();
-        if (pdfBase64.contains(",")) {
-            pdfBase64 = pdfBase64.split(",")[1];
-        }
-        byte[] inputBytes = Base64.getDecoder().decode(pdfBase64);
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PdfReader reader = new PdfReader(new ByteArrayInputStream(inputBytes));
-        PdfSigner signer = new PdfSigner(reader, outputStream, new StampingProperties());
-
+    /**
+     * Signs a spooled document without persisting it. Safe to call concurrently with a shared context.
+     *
+     * @param signatureImage pre-decoded signature graphic, or null for a description-only appearance
+     */
+    public SpooledPdf sign(SigningContext context, SignatureRequestDto dto, SignatureImage signatureImage,
+                           SpooledPdf input) throws Exception {
         SigningProperties signingProperties = new SigningProperties(
-                user.getFullname(),
-                signatureRequestDto.role(),
-                signatureRequestDto.location(),
-                signatureRequestDto.reason()
+                context.fullName(),
+                dto.role(),
+                dto.location(),
+                dto.reason()
         );
 
-        createSignatureBox(signer, signatureRequestDto, signingProperties);
-        applyDigitalSignature(signer, session);
+        boolean appendMode = dto.appendMode() != null ? dto.appendMode() : appendModeByDefault;
+        return input.isOnDisk() && input.size() >= largeDocumentThreshold
+                ? signLargeDocument(input, dto, signingProperties, signatureImage, context, appendMode)
+                : signInMemory(input, dto, signingProperties, signatureImage, context, appendMode);
+    }
 
-        byte[] signedPdf = outputStream.toByteArray();
-        
-        // Save signed document to storage and database
-        saveSignedDocument(user.getId(), signedPdf, signatureRequestDto);
+    /**
+     * Resolves the custom signature image: a stored signature referenced by {@code signatureAssetId},
+     * or an inline base64 image (drawn, uploaded, or generated from text). Both go through the decoded
+     * image cache.
+     *
+     * @return the decoded image, or null if there is none or an inline image cannot be decoded
+     */
+    public SignatureImage resolveSignatureImage(SigningContext context, SignatureRequestDto dto) {
+        if (dto.signatureAssetId() != null) {
+            return signatureAssetService.loadImage(context.userId(), dto.signatureAssetId());
+        }
+        if (dto.signatureImage() == null || dto.signatureImage().isEmpty()) {
+            return null;
+        }
+        try {
+            String imgBase64 = dto.signatureImage();
+            if (imgBase64.contains(",")) {
+                imgBase64 = imgBase64.split(",")[1];
+            }
+            byte[] imageBytes = Base64.getDecoder().decode(imgBase64);
+            return signatureImageCache.decode(imageBytes);
+        } catch (Exception e) {
+            log.error("Failed to decode custom signature image, falling back to description only", e);
+            return null;
+        }
+    }
 
-        log.info("PDF signed and saved successfully for user: {}", username);
-        return signedPdf;
+    private SpooledPdf signInMemory(SpooledPdf input, SignatureRequestDto dto, SigningProperties signingProperties,
+                                    SignatureImage signatureImage, SigningContext context,
+                                    boolean appendMode) throws Exception {
+        SpoolOutputStream outputStream = pdfSpoolService.newOutput();
+        ReleasablePdfSigner signer = null;
+        try {
+            signer = openSigner(appendMode, properties -> newSigner(input, outputStream, null, properties));
+            createSignatureBox(signer, context, dto, signingProperties, signatureImage);
+            applyDigitalSignature(signer, context.session());
+            return outputStream.toSpooledPdf();
+        } catch (Exception e) {
+            if (signer != null) {
+                signer.release();
+            }
+            outputStream.discard();
+            throw e;
+        }
+    }
+
+    /**
+     * Large-document mode: PdfSigner writes the new revision straight into a spool file (no output stream)
+     * and patches the signature in place instead of buffering it.
+     */
+    private SpooledPdf signLargeDocument(SpooledPdf input, SignatureRequestDto dto, SigningProperties signingProperties,
+                                         SignatureImage signatureImage, SigningContext context,
+                                         boolean appendMode) throws Exception {
+        log.info("Signing large document ({} bytes) from a memory-mapped source", input.size());
+        Path outputFile = pdfSpoolService.newSpoolFile();
+        ReleasablePdfSigner signer = null;
+        try {
+            signer = openSigner(appendMode, properties -> newSigner(input, null, outputFile.toString(), properties));
+            createSignatureBox(signer, context, dto, signingProperties, signatureImage);
+            applyDigitalSignature(signer, context.session());
+            return pdfSpoolService.adopt(outputFile);
+        } catch (Exception e) {
+            // The file's space is only freed once nothing holds it open
+            if (signer != null) {
+                signer.release();
+            }
+            Files.deleteIfExists(outputFile);
+            throw e;
+        }
     }
 
+    /**
+     * Opens a signer over the input. A spool on disk is read through a memory-mapped, random-access source,
+     * so only the xref and the objects iText touches are paged in; a spool on the heap is read in place.
+     */
+    private static ReleasablePdfSigner newSigner(SpooledPdf input, OutputStream outputStream, String outputPath,
+                                                 StampingProperties properties) throws IOException {
+        PdfReader reader = input.isOnDisk()
+                ? new PdfReader(input.file().orElseThrow().toFile())
+                : new PdfReader(new RandomAccessSourceFactory().createSource(input.memory().orElseThrow()),
+                        new ReaderProperties());
+        try {
+            return new ReleasablePdfSigner(reader, outputStream, outputPath, properties);
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * A signer that can give back what it holds open after a failed signing: the input reader (a memory
+     * mapping for a file), the output writer and, once the signature is being written, the output file.
+     */
+    private static final class ReleasablePdfSigner extends PdfSigner {
+
+        ReleasablePdfSigner(PdfReader reader, OutputStream outputStream, String path,
+                            StampingProperties properties) throws IOException {
+            super(reader, outputStream, path, properties);
+        }
 
-    private void saveSignedDocument(UUID userId, byte[] signedPdf, SignatureRequestDto dto) {
+        void release() {
+            closeQuietly(document.getReader());
+            closeQuietly(document.getWriter());
+            closeQuietly(raf);
+        }
+
+        private static void closeQuietly(Closeable closeable) {
+            if (closeable == null) {
+                return;
+            }
+            try {
+                closeable.close();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to release signer after a failed signing: {}", e.getMessage());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SignerFactory {
+        ReleasablePdfSigner create(StampingProperties properties) throws IOException;
+    }
+
+    /**
+     * In append mode the original bytes are copied unchanged and only the new revision is written, which
+     * keeps earlier signatures valid and skips re-serialising every object. Files that iText has to repair
+     * cannot be appended to, so those fall back to a full rewrite.
+     */
+    private ReleasablePdfSigner openSigner(boolean appendMode, SignerFactory factory) throws IOException {
+        if (!appendMode) {
+            return factory.create(new StampingProperties());
+        }
+        try {
+            return factory.create(new StampingProperties().useAppendMode());
+        } catch (PdfException e) {
+            if (!KernelExceptionMessageConstant.APPEND_MODE_REQUIRES_A_DOCUMENT_WITHOUT_ERRORS_EVEN_IF_RECOVERY_IS_POSSIBLE
+                    .equals(e.getMessage())) {
+                throw e;
+            }
+            log.warn("Document needed repair and cannot be signed incrementally, rewriting it in full");
+            return factory.create(new StampingProperties());
+        }
+    }
+
+    /**
+     * Stores the signed file and returns its metadata entity. The entity is not saved, so callers
+     * can persist several documents in one batch.
+     * <p>
+     * If the signed file is the original with a revision appended, only the appended bytes are stored
+     * per document and the original is kept once as a shared base.
+     *
+     * @param original the document that was signed, as it came out of the optimization stage
+     */
+    public SignedDocument storeSignedDocument(SigningContext context, PdfOptimizer.Result original,
+                                              SpooledPdf signedPdf, SignatureRequestDto dto,
+                                              String originalFileName) throws IOException {
         UUID documentId = UUID.randomUUID();
-        
-        // Extract original filename or generate one
-        String originalFileName = "document.pdf"; // Could be passed in DTO in future
-        
+        UUID userId = context.userId();
+
         // Store the PDF file
-        String storagePath = storageService.store(documentId, userId, signedPdf, originalFileName);
-        
-        // Save metadata to database
-        SignedDocument document = SignedDocument.builder()
+        SpooledPdf base = original.document();
+        String baseHash = deltaBaseHash(base, signedPdf);
+        String storagePath;
+        if (baseHash != null) {
+            byte[] appended = DocumentDelta.appendedBytes(signedPdf, base.size());
+            deltaBaseService.acquire(baseHash);
+            try {
+                storagePath = storageService.storeDelta(documentId, userId, baseHash, base, appended,
+                        originalFileName);
+            } catch (RuntimeException e) {
+                deltaBaseService.release(baseHash);
+                throw e;
+            }
+        } else {
+            try (InputStream in = signedPdf.openStream()) {
+                storagePath = storageService.store(documentId, userId, in, signedPdf.size(), originalFileName);
+            }
+        }
+
+        log.info("Stored signed document {} for user {}", documentId, userId);
+        return SignedDocument.builder()
                 .id(documentId)
                 .userId(userId)
                 .originalFileName(originalFileName)
                 .storagePath(storagePath)
-                .pageNumber(dto.pageNumber())
+                .pageNumber(resolvePlacements(dto).get(0).pageNumber())
                 .signerRole(dto.role())
                 .signerLocation(dto.location())
                 .signerReason(dto.reason())
-                .fileSizeBytes(signedPdf.length)
+                .fileSizeBytes(signedPdf.size())
+                .originalSizeBytes(original.originalSizeBytes())
+                .optimizedSizeBytes(base.size())
+                .baseHash(baseHash)
                 .build();
-        
-        signedDocumentRepo.save(document);
-        log.info("Saved signed document {} for user {}", documentId, userId);
+    }
+
+    /**
+     * Appends the signed file and its metadata to the write-behind journal instead of storing it.
+     */
+    private void journalSignedDocument(SigningContext context, PdfOptimizer.Result original, SpooledPdf signedPdf,
+                                       SignatureRequestDto dto, String originalFileName) throws IOException {
+        SpooledPdf base = original.document();
+        String baseHash = deltaBaseHash(base, signedPdf);
+        UUID documentId = UUID.randomUUID();
+        if (baseHash != null) {
+            // Held by the journaled document until it is deleted, so the base outlives the queue
+            deltaBaseService.acquire(baseHash);
+        }
+        try {
+            writeBehindDocumentWriter.submit(new JournalRecord(
+                    documentId,
+                    context.userId(),
+                    originalFileName,
+                    resolvePlacements(dto).get(0).pageNumber(),
+                    dto.role(),
+                    dto.location(),
+                    dto.reason(),
+                    baseHash,
+                    baseHash != null ? base.size() : 0,
+                    LocalDateTime.now(),
+                    original.originalSizeBytes(),
+                    base.size()), signedPdf);
+        } catch (IOException | RuntimeException e) {
+            if (baseHash != null) {
+                deltaBaseService.release(baseHash);
+            }
+            throw e;
+        }
+        log.info("Journaled signed document {} for user {}", documentId, context.userId());
+    }
+
+    /**
+     * @return the SHA-256 of the original if the signed file should be stored as a delta on it, else null
+     */
+    private String deltaBaseHash(SpooledPdf original, SpooledPdf signedPdf) throws IOException {
+        if (!deltaStorageEnabled || original.size() < deltaMinBaseBytes) {
+            return null;
+        }
+        return DocumentDelta.matchBase(original, signedPdf).orElse(null);
+    }
+
+    /**
+     * Deletes a signed document's row and file. Its shared base is left to {@link DeltaBaseService}.
+     * The row, the tombstone and the base reference change in one transaction; the file goes last, so a
+     * failed delete leaves the row in place.
+     */
+    @Transactional
+    public void deleteSignedDocument(SignedDocument document) {
+        signedDocumentRepo.delete(document);
+        // Keeps a write-behind journal that replays the document from storing it again
+        documentTombstoneRepo.save(DocumentTombstone.builder()
+                .documentId(document.getId())
+                .deletedAt(LocalDateTime.now())
+                .build());
+        if (document.getBaseHash() != null) {
+            deltaBaseService.release(document.getBaseHash());
+        }
+        storageService.delete(document.getId(), document.getUserId());
+    }
+
+    /**
+     * Deletes the stored file of a document returned by {@link #storeSignedDocument} whose row was never saved,
+     * and drops its reference on the shared base.
+     */
+    public void discardStoredDocument(SignedDocument document) {
+        storageService.delete(document.getId(), document.getUserId());
+        if (document.getBaseHash() != null) {
+            deltaBaseService.release(document.getBaseHash());
+        }
     }
 
     private Color convertHexToColor(String hexColor) {
@@ -125,60 +457,120 @@ public class SignatureService {
         return new DeviceRgb(r, g, b);
     }
 
-    private void createSignatureBox(PdfSigner signer, SignatureRequestDto dto, SigningProperties signingProperties) {
-        Rectangle rect = new Rectangle(dto.x(), dto.y(), dto.width(), dto.height());
+    /**
+     * @return the requested placements, or the single box from the legacy fields
+     */
+    public List<SignaturePlacement> resolvePlacements(SignatureRequestDto dto) {
+        if (dto.placements() != null && !dto.placements().isEmpty()) {
+            return dto.placements();
+        }
+        return List.of(new SignaturePlacement(dto.pageNumber(), dto.x(), dto.y(), dto.width(), dto.height()));
+    }
+
+    // Package-private so the benchmarks can time the pipeline stages one at a time
+    void createSignatureBox(PdfSigner signer, SigningContext context, SignatureRequestDto dto,
+                                    SigningProperties signingProperties, SignatureImage signatureImage)
+            throws IOException {
+        List<SignaturePlacement> placements = resolvePlacements(dto);
+        int numberOfPages = signer.getDocument().getNumberOfPages();
+        for (SignaturePlacement placement : placements) {
+            if (placement.pageNumber() < 1 || placement.pageNumber() > numberOfPages) {
+                throw new RuntimeException("Signature placement page " + placement.pageNumber()
+                        + " is out of range (1-" + numberOfPages + ")");
+            }
+        }
+
+        SignaturePlacement primary = placements.get(0);
+        Rectangle rect = new Rectangle(primary.x(), primary.y(), primary.width(), primary.height());
         PdfSignatureAppearance appearance = signer.getSignatureAppearance()
                 .setLocation(signingProperties.location())
                 .setReason(signingProperties.reason());
         appearance.setPageRect(rect);
-        appearance.setPageNumber(dto.pageNumber());
+        appearance.setPageNumber(primary.pageNumber());
+        appearance.setReuseAppearance(false);
 
-        String formattedText = String.format(
-                "Digitally Signed By : %s\nRole : %s\nLocation : %s\nDate : %s",
+        String staticText = String.format(
+                "Digitally Signed By : %s\nRole : %s\nLocation : %s",
                 signingProperties.fullName(),
                 signingProperties.role(),
-                signingProperties.location(),
-                new java.util.Date()
+                signingProperties.location()
         );
-
-        appearance.setLayer2Text(formattedText);
-        appearance.setLayer2FontSize(dto.fontSize());
+        String dateText = "Date : " + new java.util.Date();
         Color fontColor = convertHexToColor(dto.fontColor());
-        appearance.setLayer2FontColor(fontColor);
+        Color borderColor = convertHexToColor(dto.borderColor());
 
-        // If we have a custom signature image (drawn, uploaded, or generated from text)
-        if (dto.signatureImage() != null && !dto.signatureImage().isEmpty()) {
-            try {
+        // Templates are laid out for an upright page and a fixed font size; anything else is rendered by iText
+        int rotation = signer.getDocument().getPage(primary.pageNumber()).getRotation();
+        if (dto.fontSize() > 0 && rotation == 0) {
+            SignatureAppearanceTemplates.TemplateKey key = new SignatureAppearanceTemplates.TemplateKey(
+                    context.userId(),
+                    staticText,
+                    signatureImage != null ? signatureImage.contentHash() : null,
+                    dto.fontSize(),
+                    dto.fontColor(),
+                    dto.borderColor(),
+                    primary.width(),
+                    primary.height()
+            );
+            appearanceTemplates.render(signer.getDocument(), appearance.getLayer2(), key, signatureImage,
+                    fontColor, borderColor, dateText);
+        } else {
+            appearance.setLayer2Text(staticText + "\n" + dateText);
+            appearance.setLayer2FontSize(dto.fontSize());
+            appearance.setLayer2FontColor(fontColor);
+
+            // If we have a custom signature image (drawn, uploaded, or generated from text)
+            if (signatureImage != null) {
                 log.info("Applying custom signature image");
-                String imgBase64 = dto.signatureImage();
-                if (imgBase64.contains(",")) {
-                    imgBase64 = imgBase64.split(",")[1];
-                }
-                byte[] imageBytes = Base64.getDecoder().decode(imgBase64);
-                ImageData imageData = ImageDataFactory.create(imageBytes);
-                appearance.setSignatureGraphic(imageData);
+                appearance.setSignatureGraphic(signatureImage.data());
                 appearance.setRenderingMode(PdfSignatureAppearance.RenderingMode.GRAPHIC_AND_DESCRIPTION);
-            } catch (Exception e) {
-                log.error("Failed to apply custom signature image, falling back to description only", e);
+            } else {
                 appearance.setRenderingMode(PdfSignatureAppearance.RenderingMode.DESCRIPTION);
             }
-        } else {
-            appearance.setRenderingMode(PdfSignatureAppearance.RenderingMode.DESCRIPTION);
+
+            // Clear layer 0 to hide default iText text if needed, or just draw our border
+            PdfFormXObject layer0 = appearance.getLayer0();
+            PdfCanvas canvas = new PdfCanvas(layer0, signer.getDocument());
+            canvas.setStrokeColor(borderColor);
+            canvas.setLineWidth(1);
+            canvas.rectangle(0, 0, primary.width(), primary.height());
+            canvas.stroke();
         }
 
-        appearance.setReuseAppearance(false);
+        if (placements.size() > 1) {
+            // The signature field exists only once PdfSigner pre-closes the document; the signature event
+            // fires at that point, before the revision is written and hashed.
+            List<SignaturePlacement> extraPlacements = placements.subList(1, placements.size());
+            signer.setSignatureEvent(signatureDictionary -> addPlacementWidgets(signer, extraPlacements));
+        }
+    }
+
+    /**
+     * Adds one widget per extra placement to the signature field. Every widget points at the primary
+     * widget's appearance stream, so all stamps share a single form XObject and are covered by one signature.
+     * Viewers scale the shared appearance to each widget's rectangle.
+     */
+    private void addPlacementWidgets(PdfSigner signer, List<SignaturePlacement> placements) {
+        PdfDocument document = signer.getDocument();
+        PdfFormField field = PdfAcroForm.getAcroForm(document, false).getField(signer.getFieldName());
+        PdfDictionary sharedAppearance = field.getWidgets().get(0).getNormalAppearanceObject();
+        sharedAppearance.makeIndirect(document);
 
-        // Clear layer 0 to hide default iText text if needed, or just draw our border
-        PdfFormXObject layer0 = appearance.getLayer0();
-        PdfCanvas canvas = new PdfCanvas(layer0, signer.getDocument());
-        canvas.setStrokeColor(convertHexToColor(dto.borderColor()));
-        canvas.setLineWidth(1);
-        canvas.rectangle(0, 0, dto.width(), dto.height());
-        canvas.stroke();
+        for (SignaturePlacement placement : placements) {
+            PdfPage page = document.getPage(placement.pageNumber());
+            PdfWidgetAnnotation widget = new PdfWidgetAnnotation(
+                    new Rectangle(placement.x(), placement.y(), placement.width(), placement.height()));
+            widget.setFlags(PdfAnnotation.PRINT | PdfAnnotation.LOCKED);
+            widget.setNormalAppearance(sharedAppearance);
+            widget.makeIndirect(document);
+            field.addKid(widget);
+            page.addAnnotation(widget);
+        }
+        log.info("Added {} additional signature placements sharing one appearance", placements.size());
     }
 
 
-    private void applyDigitalSignature(PdfSigner signer, CertificateSession session) throws Exception {
+    void applyDigitalSignature(PdfSigner signer, CertificateSession session) throws Exception {
         PrivateKey privateKey = session.privateKey();
         X509Certificate[] chain = session.certificateChain();
 
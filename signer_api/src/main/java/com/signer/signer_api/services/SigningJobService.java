@@ -0,0 +1,165 @@
+package com.signer.signer_api.services;
+
+import com.signer.signer_api.models.SigningJob;
+import com.signer.signer_api.models.SigningJobStatus;
+import com.signer.signer_api.models.dto.signature.SignatureRequestDto;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.repo.SigningJobRepo;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import com.signer.signer_api.services.storage.DocumentStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Durable queue of signing jobs in the {@code signing_jobs} table.
+ * Workers on any node claim jobs with {@code FOR UPDATE SKIP LOCKED} and hold them under a lease;
+ * jobs whose lease lapses are put back on the queue until they run out of attempts.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SigningJobService {
+
+    private final SigningJobRepo signingJobRepo;
+    private final DocumentStorageService storageService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.signing.jobs.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.signing.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.signing.jobs.queued-ttl-minutes:60}")
+    private long queuedTtlMinutes;
+
+    /**
+     * Stores the input document and queues a job for it.
+     */
+    public SigningJob submit(SigningContext context, SignatureRequestDto settings, SpooledPdf input,
+                             String originalFileName) throws IOException {
+        UUID jobId = UUID.randomUUID();
+        try (InputStream in = input.openStream()) {
+            storageService.store(jobId, context.userId(), in, input.size(), originalFileName);
+        }
+
+        SigningJob job = SigningJob.builder()
+                .id(jobId)
+                .userId(context.userId())
+                .username(context.username())
+                .originalFileName(originalFileName)
+                .settingsJson(objectMapper.writeValueAsString(settings))
+                .status(SigningJobStatus.QUEUED)
+                .build();
+        try {
+            signingJobRepo.save(job);
+        } catch (RuntimeException e) {
+            storageService.delete(jobId, context.userId());
+            throw e;
+        }
+        log.info("Queued signing job {} for user {}", jobId, context.username());
+        return job;
+    }
+
+    public SigningJob findJob(UUID id, UUID userId) {
+        return signingJobRepo.findByIdAndUserId(id, userId);
+    }
+
+    /**
+     * Claims up to {@code limit} queued jobs of users whose certificate sessions live on this node.
+     */
+    @Transactional
+    public List<SigningJob> claim(Collection<String> usernames, int limit, String workerId) {
+        if (usernames.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        List<SigningJob> jobs = signingJobRepo.lockQueued(usernames, limit);
+        LocalDateTime leaseExpiresAt = LocalDateTime.now().plusSeconds(leaseSeconds);
+        for (SigningJob job : jobs) {
+            job.setStatus(SigningJobStatus.RUNNING);
+            job.setWorkerId(workerId);
+            job.setLeaseExpiresAt(leaseExpiresAt);
+            job.setAttempts(job.getAttempts() + 1);
+        }
+        return jobs;
+    }
+
+    public SignatureRequestDto readSettings(SigningJob job) {
+        return objectMapper.readValue(job.getSettingsJson(), SignatureRequestDto.class);
+    }
+
+    /**
+     * Opens the stored input document of a job. The caller must close the stream.
+     */
+    public InputStream openInput(SigningJob job) {
+        return storageService.openStream(job.getId(), job.getUserId())
+                .orElseThrow(() -> new RuntimeException("Input document for job " + job.getId() + " not found"));
+    }
+
+    /**
+     * Records the outcome of a claimed job and releases its input.
+     *
+     * @param error null on success
+     * @return false if the lease was lost and the job no longer belongs to this worker
+     */
+    @Transactional
+    public boolean complete(SigningJob job, String workerId, UUID documentId, String error) {
+        SigningJobStatus status = error == null ? SigningJobStatus.SUCCEEDED : SigningJobStatus.FAILED;
+        int updated = signingJobRepo.complete(job.getId(), workerId, SigningJobStatus.RUNNING, status,
+                documentId, error, LocalDateTime.now());
+        if (updated == 0) {
+            return false;
+        }
+        storageService.delete(job.getId(), job.getUserId());
+        return true;
+    }
+
+    /**
+     * Requeues jobs whose lease expired, or fails them once they have used all their attempts.
+     */
+    @Transactional
+    public void recoverExpiredLeases() {
+        for (SigningJob job : signingJobRepo.lockExpiredLeases(LocalDateTime.now())) {
+            if (job.getAttempts() >= maxAttempts) {
+                fail(job, "Signing job abandoned after " + job.getAttempts() + " attempts");
+            } else {
+                job.setStatus(SigningJobStatus.QUEUED);
+                job.setWorkerId(null);
+                job.setLeaseExpiresAt(null);
+                log.warn("Requeued signing job {} after its lease expired", job.getId());
+            }
+        }
+    }
+
+    /**
+     * Fails queued jobs that no node could pick up in time, e.g. because the user's session is gone.
+     */
+    @Transactional
+    public void expireStaleJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(queuedTtlMinutes);
+        for (SigningJob job : signingJobRepo.lockStaleQueued(cutoff)) {
+            fail(job, "Signing job expired before a worker could pick it up");
+        }
+    }
+
+    private void fail(SigningJob job, String error) {
+        job.setStatus(SigningJobStatus.FAILED);
+        job.setError(error);
+        job.setWorkerId(null);
+        job.setLeaseExpiresAt(null);
+        job.setCompletedAt(LocalDateTime.now());
+        storageService.delete(job.getId(), job.getUserId());
+        log.warn("Signing job {} failed: {}", job.getId(), error);
+    }
+}
@@ -0,0 +1,159 @@
+package com.signer.signer_api.services;
+
+import com.signer.signer_api.models.SignedDocument;
+import com.signer.signer_api.models.SigningJob;
+import com.signer.signer_api.models.User;
+import com.signer.signer_api.models.dto.certificate.CertificateSession;
+import com.signer.signer_api.models.dto.signature.SignatureRequestDto;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.repo.SignedDocumentRepo;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls the signing job queue and signs claimed jobs on a bounded worker pool.
+ * A node only claims jobs of users whose certificate session it holds, so jobs are drained by
+ * whichever node the user is logged in to.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SigningJobWorker {
+
+    private final SigningJobService signingJobService;
+    private final SignatureService signatureService;
+    private final SessionCertificateService sessionCertificateService;
+    private final SignedDocumentRepo signedDocumentRepo;
+    private final UserCache userCache;
+    private final PdfSpoolService pdfSpoolService;
+    private final PdfOptimizer pdfOptimizer;
+
+    @Value("${app.signing.jobs.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.signing.jobs.workers:2}")
+    private int workers;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private ExecutorService executor;
+    private String workerId;
+
+    @PostConstruct
+    public void init() {
+        workerId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "job-signer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Signing job worker {} started with {} workers (enabled: {})", workerId, workers, enabled);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${app.signing.jobs.poll-interval-ms:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        int capacity = workers - inFlight.get();
+        if (capacity <= 0) {
+            return;
+        }
+        Set<String> usernames = sessionCertificateService.getActiveUsernames();
+        if (usernames.isEmpty()) {
+            return;
+        }
+        List<SigningJob> jobs = signingJobService.claim(usernames, capacity, workerId);
+        for (SigningJob job : jobs) {
+            inFlight.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    run(job);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        signingJobService.recoverExpiredLeases();
+        signingJobService.expireStaleJobs();
+    }
+
+    private void run(SigningJob job) {
+        long start = System.currentTimeMillis();
+        UUID documentId = null;
+        String error = null;
+        try {
+            CertificateSession session = sessionCertificateService.getSession(job.getUsername());
+            if (session == null) {
+                throw new RuntimeException("No valid certificate session found. Please login again.");
+            }
+            User user = userCache.findByUsername(job.getUsername())
+                    .filter(found -> found.getId().equals(job.getUserId()))
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            SigningContext context = new SigningContext(user.getId(), job.getUsername(), user.getFullname(), session);
+            SignatureRequestDto settings = signingJobService.readSettings(job);
+
+            try (InputStream stored = signingJobService.openInput(job);
+                 SpooledPdf input = pdfSpoolService.spool(stored);
+                 PdfOptimizer.Result original = pdfOptimizer.optimize(input);
+                 SpooledPdf signedPdf = signatureService.sign(context, settings,
+                         signatureService.resolveSignatureImage(context, settings), original.document())) {
+                SignedDocument document = signatureService.storeSignedDocument(
+                        context, original, signedPdf, settings, job.getOriginalFileName());
+                signedDocumentRepo.save(document);
+                documentId = document.getId();
+            }
+        } catch (Exception e) {
+            log.error("Signing job {} failed", job.getId(), e);
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+
+        if (signingJobService.complete(job, workerId, documentId, error)) {
+            log.info("Signing job {} finished in {} ms ({})", job.getId(), System.currentTimeMillis() - start,
+                    error == null ? "succeeded" : "failed");
+        } else {
+            // Another worker owns the job now and will produce its own document
+            log.warn("Signing job {} lost its lease before finishing; outcome discarded", job.getId());
+            if (documentId != null) {
+                signedDocumentRepo.findById(documentId).ifPresent(signatureService::deleteSignedDocument);
+            }
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "worker";
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.signer.signer_api.services;
+
+import com.signer.signer_api.models.User;
+import com.signer.signer_api.repo.UserRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Short-lived cache of user entities by username, for the few paths that need more than the JWT claims.
+ * Entries expire after {@code ttl-seconds} so renames and deletions show up quickly; only users that
+ * were found are cached. Disabled, every lookup goes to the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCache {
+
+    private record Entry(User user, long expiresAt) {
+    }
+
+    private final UserRepo userRepo;
+
+    @Value("${app.auth.user-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.auth.user-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${app.auth.user-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public Optional<User> findByUsername(String username) {
+        if (!enabled) {
+            return userRepo.findByUsername(username);
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = entries.get(username);
+            if (entry != null && entry.expiresAt() > now) {
+                return Optional.of(entry.user());
+            }
+        }
+        Optional<User> user = userRepo.findByUsername(username);
+        user.ifPresent(found -> {
+            synchronized (this) {
+                entries.put(username, new Entry(found, now + ttlSeconds * 1000));
+            }
+        });
+        return user;
+    }
+
+    public synchronized void evict(String username) {
+        entries.remove(username);
+    }
+}
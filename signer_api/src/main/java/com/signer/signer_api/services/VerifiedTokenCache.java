@@ -0,0 +1,96 @@
+package com.signer.signer_api.services;
+
+import com.signer.signer_api.models.UserPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of tokens whose signature has already been verified, keyed by the SHA-256 of the token,
+ * so repeated requests with the same token skip the HMAC check. An entry is only served until the token
+ * expires. Tokens revoked by logout are remembered until they expire and are neither served nor cached again.
+ * Revocations are held in memory, so they apply on the node that handled the logout.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private record Entry(UserPrincipal principal, long expiresAt) {
+    }
+
+    @Value("${app.auth.token-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.auth.token-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * Revoked token digests with the time their token expires.
+     */
+    private final Map<String, Long> revoked = new HashMap<>();
+
+    public static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the principal of a verified, unexpired and unrevoked token, or null if it has to be verified
+     */
+    public synchronized UserPrincipal get(String digest) {
+        Entry entry = entries.get(digest);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(digest);
+            return null;
+        }
+        return entry.principal();
+    }
+
+    public synchronized boolean isRevoked(String digest) {
+        return revoked.containsKey(digest);
+    }
+
+    public synchronized void put(String digest, UserPrincipal principal, Date expiresAt) {
+        // A token revoked while it was being verified stays out
+        if (!enabled || expiresAt == null || revoked.containsKey(digest)) {
+            return;
+        }
+        entries.put(digest, new Entry(principal, expiresAt.getTime()));
+    }
+
+    /**
+     * Rejects the token from now until it expires.
+     */
+    public synchronized void revoke(String digest, Date expiresAt) {
+        entries.remove(digest);
+        revoked.put(digest, expiresAt.getTime());
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public synchronized void cleanupExpiredRevocations() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+}
@@ -0,0 +1,29 @@
+package com.signer.signer_api.services.journal;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Metadata of a journaled signed document: everything needed to store its file and insert its row.
+ *
+ * @param baseHash SHA-256 of the original if the signed file only appends to it, so it is stored as a delta;
+ *                 null to store the file in full
+ * @param baseSize length of the original, which is the start of the signed file, if {@code baseHash} is set
+ * @param originalSizeBytes size of the document as uploaded, before the optimization stage
+ * @param optimizedSizeBytes size of the document that was signed
+ */
+public record JournalRecord(
+        UUID documentId,
+        UUID userId,
+        String originalFileName,
+        int pageNumber,
+        String signerRole,
+        String signerLocation,
+        String signerReason,
+        String baseHash,
+        long baseSize,
+        LocalDateTime signedAt,
+        Long originalSizeBytes,
+        Long optimizedSizeBytes
+) {
+}
@@ -0,0 +1,435 @@
+package com.signer.signer_api.services.journal;
+
+import com.signer.signer_api.services.spool.SpooledPdf;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Durable append-only journal of signed documents waiting to be persisted.
+ * <p>
+ * Each document is appended as one checksummed record holding its metadata and signed file, and the
+ * segment is fsynced before {@link #append} returns. Once persisted, a document is acknowledged with a
+ * small ack record, written to the active segment. Segments roll over at {@code segment-bytes}. A segment is
+ * deleted once all its documents are acknowledged and every older segment is gone: an ack can sit in a later
+ * segment than its document, so deleting out of order could drop the ack of a document that is still kept.
+ * On start the journal is read back and unacknowledged documents are handed out for replay; a torn record at
+ * the end of a segment is a crash mid-append, whose append never returned, and is ignored. An ack is not
+ * fsynced: if it is lost the document is replayed, so persisting must be idempotent.
+ * <p>
+ * A document that cannot be persisted is moved to {@code dead-letter/} with its metadata and acknowledged.
+ */
+@Slf4j
+@Component
+public class SignedDocumentJournal {
+
+    /**
+     * A journaled document and where its signed file lies in the journal.
+     */
+    public record Entry(JournalRecord record, Path segment, long contentOffset, long contentLength) {
+    }
+
+    private static final int MAGIC = 0x534A524E;
+    private static final byte TYPE_DOCUMENT = 1;
+    private static final byte TYPE_ACK = 2;
+    // magic, type, header length, content length
+    private static final int FRAME_BYTES = 4 + 1 + 4 + 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String DEAD_LETTER_DIR = "dead-letter";
+
+    @Value("${app.signing.write-behind.journal-path:./uploads/journal}")
+    private String journalPath;
+
+    @Value("${app.signing.write-behind.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    private Path journalDir;
+    private long nextSegment;
+    private Path activeSegment;
+    private FileChannel activeChannel;
+    private OutputStream activeOut;
+    /**
+     * Every segment on disk, oldest first, with the number of its documents not yet acknowledged.
+     */
+    private final TreeMap<Path, Integer> pendingBySegment = new TreeMap<>();
+    private List<Entry> recovered = List.of();
+
+    @PostConstruct
+    public void init() {
+        journalDir = Paths.get(journalPath);
+        try {
+            Files.createDirectories(journalDir);
+            recovered = replay();
+            openSegment();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open signed document journal at " + journalDir, e);
+        }
+        log.info("Signed document journal at {} ({} documents to replay)", journalDir.toAbsolutePath(), recovered.size());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (activeChannel != null) {
+            activeOut.flush();
+            activeChannel.force(true);
+            activeChannel.close();
+            activeChannel = null;
+        }
+    }
+
+    /**
+     * Documents journaled before the last shutdown that were never acknowledged, oldest first.
+     * Handed out once.
+     */
+    public synchronized List<Entry> recover() {
+        List<Entry> entries = recovered;
+        recovered = List.of();
+        return entries;
+    }
+
+    /**
+     * Appends a document and forces it to disk. Once this returns the document survives a crash.
+     */
+    public synchronized Entry append(JournalRecord record, SpooledPdf content) throws IOException {
+        if (activeChannel.position() >= segmentBytes) {
+            rollSegment();
+        }
+        byte[] header = encode(record);
+        long start = activeChannel.position();
+        try {
+            DataOutputStream frame = new DataOutputStream(activeOut);
+            frame.writeInt(MAGIC);
+            frame.writeByte(TYPE_DOCUMENT);
+            frame.writeInt(header.length);
+            frame.writeLong(content.size());
+            CRC32C crc = new CRC32C();
+            CheckedOutputStream checked = new CheckedOutputStream(activeOut, crc);
+            checked.write(header);
+            content.transferTo(checked);
+            frame.writeLong(crc.getValue());
+            frame.flush();
+            activeChannel.force(true);
+        } catch (IOException e) {
+            // Cut the partial record off, so records appended later stay readable on replay
+            activeOut = new BufferedOutputStream(Channels.newOutputStream(activeChannel), 64 * 1024);
+            activeChannel.truncate(start);
+            throw e;
+        }
+
+        pendingBySegment.merge(activeSegment, 1, Integer::sum);
+        return new Entry(record, activeSegment, start + FRAME_BYTES + header.length, content.size());
+    }
+
+    /**
+     * Records that a document is persisted, and deletes its segment once nothing in it is pending.
+     */
+    public synchronized void acknowledge(Entry entry) throws IOException {
+        byte[] id = uuidBytes(entry.record().documentId());
+        DataOutputStream frame = new DataOutputStream(activeOut);
+        frame.writeInt(MAGIC);
+        frame.writeByte(TYPE_ACK);
+        frame.writeInt(id.length);
+        frame.writeLong(0);
+        CRC32C crc = new CRC32C();
+        crc.update(id);
+        frame.write(id);
+        frame.writeLong(crc.getValue());
+        frame.flush();
+
+        pendingBySegment.computeIfPresent(entry.segment(), (segment, count) -> count - 1);
+        deleteDrainedSegments();
+    }
+
+    /**
+     * Copies a document that cannot be persisted to {@code dead-letter/}, as its signed file and a
+     * properties file of its metadata, and acknowledges it.
+     *
+     * @return the dead-lettered signed file
+     */
+    public Path deadLetter(Entry entry, String reason) throws IOException {
+        JournalRecord record = entry.record();
+        Path dir = journalDir.resolve(DEAD_LETTER_DIR);
+        Files.createDirectories(dir);
+        Path content = dir.resolve(record.documentId() + ".pdf");
+        try (InputStream in = openContent(entry, 0, entry.contentLength())) {
+            Files.copy(in, content, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Properties metadata = new Properties();
+        metadata.setProperty("documentId", record.documentId().toString());
+        metadata.setProperty("userId", record.userId().toString());
+        metadata.setProperty("originalFileName", record.originalFileName());
+        metadata.setProperty("pageNumber", Integer.toString(record.pageNumber()));
+        metadata.setProperty("signedAt", record.signedAt().toString());
+        metadata.setProperty("reason", String.valueOf(reason));
+        if (record.baseHash() != null) {
+            metadata.setProperty("baseHash", record.baseHash());
+        }
+        try (OutputStream out = Files.newOutputStream(dir.resolve(record.documentId() + ".properties"))) {
+            metadata.store(out, "Signed document the write-behind writer gave up on");
+        }
+        acknowledge(entry);
+        return content;
+    }
+
+    /**
+     * Deletes the oldest segments while nothing in them is pending. Stops at the first segment still
+     * needed, so the acks in later segments stay readable for the documents it holds.
+     */
+    private void deleteDrainedSegments() throws IOException {
+        while (!pendingBySegment.isEmpty()) {
+            Map.Entry<Path, Integer> oldest = pendingBySegment.firstEntry();
+            if (oldest.getValue() > 0 || oldest.getKey().equals(activeSegment)) {
+                return;
+            }
+            pendingBySegment.pollFirstEntry();
+            Files.deleteIfExists(oldest.getKey());
+            log.debug("Deleted drained journal segment {}", oldest.getKey().getFileName());
+        }
+    }
+
+    /**
+     * Opens {@code length} bytes of a journaled document's signed file, starting at {@code offset}.
+     */
+    public InputStream openContent(Entry entry, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(entry.segment(), StandardOpenOption.READ);
+        channel.position(entry.contentOffset() + offset);
+        return new FilterInputStream(new BufferedInputStream(Channels.newInputStream(channel))) {
+            private long remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int b = super.read();
+                if (b != -1) {
+                    remaining--;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int off, int count) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int read = super.read(buffer, off, (int) Math.min(count, remaining));
+                if (read > 0) {
+                    remaining -= read;
+                }
+                return read;
+            }
+        };
+    }
+
+    /**
+     * Reads every segment and returns the documents without an ack. Segments with nothing pending are deleted.
+     */
+    private List<Entry> replay() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(journalDir)) {
+            segments = files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+        Map<UUID, Entry> pending = new LinkedHashMap<>();
+        for (Path segment : segments) {
+            nextSegment = Math.max(nextSegment, segmentNumber(segment) + 1);
+            readSegment(segment, pending);
+        }
+        for (Path segment : segments) {
+            pendingBySegment.put(segment, 0);
+        }
+        for (Entry entry : pending.values()) {
+            pendingBySegment.merge(entry.segment(), 1, Integer::sum);
+        }
+        deleteDrainedSegments();
+        return new ArrayList<>(pending.values());
+    }
+
+    private void readSegment(Path segment, Map<UUID, Entry> pending) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+            long position = 0;
+            while (true) {
+                int magic;
+                try {
+                    magic = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                try {
+                    if (magic != MAGIC) {
+                        throw new IOException("bad record marker");
+                    }
+                    byte type = in.readByte();
+                    byte[] header = new byte[in.readInt()];
+                    long contentLength = in.readLong();
+                    in.readFully(header);
+                    CRC32C crc = new CRC32C();
+                    crc.update(header);
+                    byte[] chunk = new byte[64 * 1024];
+                    for (long left = contentLength; left > 0; ) {
+                        int read = (int) Math.min(chunk.length, left);
+                        in.readFully(chunk, 0, read);
+                        crc.update(chunk, 0, read);
+                        left -= read;
+                    }
+                    if (in.readLong() != crc.getValue()) {
+                        throw new IOException("checksum mismatch");
+                    }
+
+                    if (type == TYPE_DOCUMENT) {
+                        JournalRecord record = decode(header);
+                        pending.put(record.documentId(), new Entry(record, segment,
+                                position + FRAME_BYTES + header.length, contentLength));
+                    } else if (type == TYPE_ACK) {
+                        pending.remove(uuid(header));
+                    }
+                    position += FRAME_BYTES + header.length + contentLength + 8;
+                } catch (EOFException e) {
+                    log.warn("Ignoring truncated journal record in {} at offset {}", segment.getFileName(), position);
+                    return;
+                } catch (IOException e) {
+                    log.warn("Ignoring torn journal record in {} at offset {}: {}",
+                            segment.getFileName(), position, e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        close();
+        openSegment();
+        deleteDrainedSegments();
+    }
+
+    private void openSegment() throws IOException {
+        activeSegment = journalDir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSegment++, SEGMENT_SUFFIX));
+        activeChannel = FileChannel.open(activeSegment,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeOut = new BufferedOutputStream(Channels.newOutputStream(activeChannel), 64 * 1024);
+        pendingBySegment.put(activeSegment, 0);
+        // Make the new file's directory entry durable too
+        try (FileChannel dir = FileChannel.open(journalDir, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            log.debug("Directory fsync not supported for {}: {}", journalDir, e.getMessage());
+        }
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] encode(JournalRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(uuidBytes(record.documentId()));
+        out.write(uuidBytes(record.userId()));
+        out.writeUTF(record.originalFileName());
+        out.writeInt(record.pageNumber());
+        writeNullable(out, record.signerRole());
+        writeNullable(out, record.signerLocation());
+        writeNullable(out, record.signerReason());
+        writeNullable(out, record.baseHash());
+        out.writeLong(record.baseSize());
+        out.writeLong(record.signedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        out.writeLong(record.originalSizeBytes() != null ? record.originalSizeBytes() : -1);
+        out.writeLong(record.optimizedSizeBytes() != null ? record.optimizedSizeBytes() : -1);
+        return bytes.toByteArray();
+    }
+
+    private static JournalRecord decode(byte[] header) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+        return new JournalRecord(
+                readUuid(in),
+                readUuid(in),
+                in.readUTF(),
+                in.readInt(),
+                readNullable(in),
+                readNullable(in),
+                readNullable(in),
+                readNullable(in),
+                in.readLong(),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneOffset.UTC),
+                // Records journaled before the sizes were added end here
+                readSize(in),
+                readSize(in));
+    }
+
+    private static Long readSize(DataInputStream in) throws IOException {
+        if (in.available() < Long.BYTES) {
+            return null;
+        }
+        long size = in.readLong();
+        return size >= 0 ? size : null;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static byte[] uuidBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static UUID uuid(byte[] bytes) throws IOException {
+        return readUuid(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+}
@@ -0,0 +1,246 @@
+package com.signer.signer_api.services.journal;
+
+import com.signer.signer_api.models.SignedDocument;
+import com.signer.signer_api.repo.DocumentTombstoneRepo;
+import com.signer.signer_api.repo.SignedDocumentRepo;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import com.signer.signer_api.services.storage.DeltaBaseService;
+import com.signer.signer_api.services.storage.DocumentStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Persists signed documents behind the request: the signed file is appended to the
+ * {@link SignedDocumentJournal} and the caller returns, while a background thread stores each journaled
+ * file and inserts its row, in journal order.
+ * <p>
+ * A failed document is retried with exponential backoff, up to {@code max-attempts} times; after that it is
+ * moved to the journal's dead letters, so one bad document does not hold up the ones behind it. Documents
+ * left in the journal by a shutdown or crash are replayed on start. A document that may already be partly
+ * persisted (replayed or retried) is checked first, so it is neither stored nor inserted twice, and one the
+ * user has deleted since, which left a tombstone, is skipped. The backlog is published as the
+ * {@code signer.journal.pending} metric and dead letters as {@code signer.journal.dead-letters}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WriteBehindDocumentWriter {
+
+    private record Pending(SignedDocumentJournal.Entry entry, boolean mayExist, int attempts) {
+    }
+
+    private final SignedDocumentJournal journal;
+    private final DocumentStorageService storageService;
+    private final SignedDocumentRepo signedDocumentRepo;
+    private final DocumentTombstoneRepo documentTombstoneRepo;
+    private final DeltaBaseService deltaBaseService;
+    private final PdfSpoolService pdfSpoolService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.signing.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.signing.write-behind.retry-initial-ms:1000}")
+    private long retryInitialMs;
+
+    @Value("${app.signing.write-behind.retry-max-ms:300000}")
+    private long retryMaxMs;
+
+    @Value("${app.signing.write-behind.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.signing.write-behind.tombstone-retention-days:30}")
+    private long tombstoneRetentionDays;
+
+    private Counter deadLetters;
+
+    private final BlockingDeque<Pending> queue = new LinkedBlockingDeque<>();
+    private Thread drainer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("signer.journal.pending", queue, BlockingDeque::size)
+                .description("Signed documents journaled but not yet stored and inserted")
+                .register(meterRegistry);
+        deadLetters = Counter.builder("signer.journal.dead-letters")
+                .description("Journaled documents given up on after repeated failures")
+                .register(meterRegistry);
+
+        // Replay even when disabled, so switching write-behind off never strands journaled documents
+        for (SignedDocumentJournal.Entry entry : journal.recover()) {
+            queue.add(new Pending(entry, true, 0));
+        }
+        if (!queue.isEmpty()) {
+            log.info("Replaying {} journaled signed documents", queue.size());
+        }
+
+        running = true;
+        drainer = new Thread(this::drain, "journal-writer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        drainer.interrupt();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Journals a signed document for persisting in the background. Returns once the journal is on disk.
+     */
+    public void submit(JournalRecord record, SpooledPdf signedPdf) throws IOException {
+        queue.add(new Pending(journal.append(record, signedPdf), false, 0));
+    }
+
+    private void drain() {
+        long backoff = retryInitialMs;
+        while (running) {
+            Pending pending;
+            try {
+                pending = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                persist(pending);
+                journal.acknowledge(pending.entry());
+                backoff = retryInitialMs;
+            } catch (Exception e) {
+                int attempts = pending.attempts() + 1;
+                if (attempts >= maxAttempts) {
+                    deadLetter(pending, e);
+                    backoff = retryInitialMs;
+                    continue;
+                }
+                log.warn("Failed to persist journaled document {} (attempt {} of {}), retrying in {} ms: {}",
+                        pending.entry().record().documentId(), attempts, maxAttempts, backoff, e.getMessage());
+                queue.addFirst(new Pending(pending.entry(), true, attempts));
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, retryMaxMs);
+            }
+        }
+    }
+
+    /**
+     * Gives up on a document: keeps its file and metadata in the journal's dead letters, removes whatever part
+     * of it was stored, and drops its base reference.
+     */
+    private void deadLetter(Pending pending, Exception failure) {
+        SignedDocumentJournal.Entry entry = pending.entry();
+        JournalRecord record = entry.record();
+        deadLetters.increment();
+        try {
+            Path file = journal.deadLetter(entry, failure.getMessage());
+            log.error("Gave up on journaled document {} for user {} after {} attempts, moved to {}",
+                    record.documentId(), record.userId(), maxAttempts, file, failure);
+        } catch (IOException e) {
+            // Still unacknowledged, so it is replayed on the next start
+            log.error("Gave up on journaled document {} for user {} after {} attempts and could not dead-letter it",
+                    record.documentId(), record.userId(), maxAttempts, e);
+            return;
+        }
+        try {
+            if (!signedDocumentRepo.existsById(record.documentId())) {
+                storageService.delete(record.documentId(), record.userId());
+                if (record.baseHash() != null) {
+                    deltaBaseService.release(record.baseHash());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to clean up dead-lettered document {}: {}", record.documentId(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRate = 3600000)
+    public void purgeTombstones() {
+        int purged = documentTombstoneRepo.deleteOlderThan(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+        if (purged > 0) {
+            log.info("Purged {} document tombstones", purged);
+        }
+    }
+
+    private void persist(Pending pending) throws IOException {
+        SignedDocumentJournal.Entry entry = pending.entry();
+        JournalRecord record = entry.record();
+        if (pending.mayExist() && signedDocumentRepo.existsById(record.documentId())) {
+            return;
+        }
+        if (pending.mayExist() && documentTombstoneRepo.existsById(record.documentId())) {
+            // Persisted before, then deleted by the user; only the ack was lost
+            log.info("Skipping journaled document {}, deleted since it was persisted", record.documentId());
+            return;
+        }
+
+        String storagePath = null;
+        if (pending.mayExist() && storageService.exists(record.documentId(), record.userId())) {
+            storagePath = storageService.getStoragePath(record.documentId(), record.userId()).orElse(null);
+        }
+        if (storagePath == null) {
+            storagePath = store(entry);
+        }
+
+        signedDocumentRepo.save(SignedDocument.builder()
+                .id(record.documentId())
+                .userId(record.userId())
+                .originalFileName(record.originalFileName())
+                .storagePath(storagePath)
+                .pageNumber(record.pageNumber())
+                .signerRole(record.signerRole())
+                .signerLocation(record.signerLocation())
+                .signerReason(record.signerReason())
+                .fileSizeBytes(entry.contentLength())
+                .originalSizeBytes(record.originalSizeBytes())
+                .optimizedSizeBytes(record.optimizedSizeBytes())
+                .baseHash(record.baseHash())
+                .signedAt(record.signedAt())
+                .build());
+        log.info("Persisted journaled document {} for user {}", record.documentId(), record.userId());
+    }
+
+    private String store(SignedDocumentJournal.Entry entry) throws IOException {
+        JournalRecord record = entry.record();
+        if (record.baseHash() == null) {
+            try (InputStream in = journal.openContent(entry, 0, entry.contentLength())) {
+                return storageService.store(record.documentId(), record.userId(), in, entry.contentLength(),
+                        record.originalFileName());
+            }
+        }
+
+        // The signed file starts with the original, so the base is read back from the journal
+        byte[] appended;
+        try (InputStream in = journal.openContent(entry, record.baseSize(), entry.contentLength() - record.baseSize())) {
+            appended = in.readAllBytes();
+        }
+        try (InputStream in = journal.openContent(entry, 0, record.baseSize());
+             SpooledPdf base = pdfSpoolService.spool(in)) {
+            return storageService.storeDelta(record.documentId(), record.userId(), record.baseHash(), base,
+                    appended, record.originalFileName());
+        }
+    }
+}
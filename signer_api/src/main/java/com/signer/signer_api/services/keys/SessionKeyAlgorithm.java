@@ -0,0 +1,38 @@
+package com.signer.signer_api.services.keys;
+
+/**
+ * Key algorithms supported for session certificates.
+ */
+public enum SessionKeyAlgorithm {
+    /**
+     * RSA, sized by {@code app.certificates.session.rsa-key-size}.
+     */
+    RSA("RSA"),
+    /**
+     * ECDSA on the curve set by {@code app.certificates.session.ec-curve} (P-256 by default).
+     * Key generation is orders of magnitude cheaper than RSA and signatures are smaller.
+     */
+    EC("EC");
+
+    private final String jcaName;
+
+    SessionKeyAlgorithm(String jcaName) {
+        this.jcaName = jcaName;
+    }
+
+    public String getJcaName() {
+        return jcaName;
+    }
+
+    public static SessionKeyAlgorithm fromConfig(String value) {
+        String normalized = value.trim().toUpperCase();
+        return switch (normalized) {
+            case "RSA" -> RSA;
+            case "EC", "ECDSA" -> EC;
+            // PdfPKCS7 in iText 7.2 cannot produce EdDSA CMS containers
+            case "ED25519", "EDDSA" -> throw new IllegalArgumentException(
+                    "Ed25519 session keys are not supported by the PDF signing library; use EC instead");
+            default -> throw new IllegalArgumentException("Unknown session key algorithm: " + value);
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.signer.signer_api.services.keys;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+
+/**
+ * Generates session key pairs with the configured algorithm.
+ */
+@Slf4j
+@Component
+public class SessionKeyGenerator {
+
+    @Value("${app.certificates.session.key-algorithm:RSA}")
+    private String keyAlgorithmName;
+
+    @Value("${app.certificates.session.rsa-key-size:2048}")
+    private int rsaKeySize;
+
+    @Value("${app.certificates.session.ec-curve:secp256r1}")
+    private String ecCurve;
+
+    private SessionKeyAlgorithm keyAlgorithm;
+
+    @PostConstruct
+    public void init() {
+        keyAlgorithm = SessionKeyAlgorithm.fromConfig(keyAlgorithmName);
+        // Fail at startup rather than on the first login if the parameters are wrong
+        generate();
+        log.info("Session keys use {} ({})", keyAlgorithm,
+                keyAlgorithm == SessionKeyAlgorithm.RSA ? rsaKeySize + " bits" : ecCurve);
+    }
+
+    public SessionKeyAlgorithm getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    public KeyPair generate() {
+        try {
+            KeyPairGenerator keyGen = KeyPairGenerator.getInstance(keyAlgorithm.getJcaName());
+            if (keyAlgorithm == SessionKeyAlgorithm.RSA) {
+                keyGen.initialize(rsaKeySize);
+            } else {
+                keyGen.initialize(new ECGenParameterSpec(ecCurve));
+            }
+            return keyGen.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Session key generation failed", e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.signer.signer_api.services.keys;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of pre-generated session key pairs, so a login normally takes a ready key instead of
+ * generating one on the request thread.
+ * <p>
+ * Low-priority background threads fill the pool up to the high watermark, then sleep until logins
+ * drain it below the low watermark. When the pool is empty a login generates its own key (a miss).
+ * Depth, hits and misses are published as {@code signer.session.keypool.*} metrics.
+ */
+@Slf4j
+@Component
+public class SessionKeyPairPool {
+
+    private final SessionKeyGenerator sessionKeyGenerator;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.certificates.session.key-pool.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.certificates.session.key-pool.high-watermark:64}")
+    private int highWatermark;
+
+    @Value("${app.certificates.session.key-pool.low-watermark:16}")
+    private int lowWatermark;
+
+    @Value("${app.certificates.session.key-pool.refill-threads:1}")
+    private int refillThreads;
+
+    private BlockingQueue<KeyPair> pool;
+    private final List<Thread> refillers = new ArrayList<>();
+    private final Object demand = new Object();
+    private volatile boolean running;
+
+    private Counter hits;
+    private Counter misses;
+
+    public SessionKeyPairPool(SessionKeyGenerator sessionKeyGenerator, MeterRegistry meterRegistry) {
+        this.sessionKeyGenerator = sessionKeyGenerator;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("signer.session.keypool.hits")
+                .description("Logins served from the pre-generated key pool")
+                .register(meterRegistry);
+        misses = Counter.builder("signer.session.keypool.misses")
+                .description("Logins that generated their own key because the pool was empty")
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        if (lowWatermark < 0 || lowWatermark >= highWatermark) {
+            throw new IllegalStateException("Key pool low watermark must be below the high watermark");
+        }
+
+        pool = new ArrayBlockingQueue<>(highWatermark);
+        Gauge.builder("signer.session.keypool.depth", pool, BlockingQueue::size)
+                .description("Pre-generated session key pairs ready for login")
+                .register(meterRegistry);
+
+        running = true;
+        for (int i = 1; i <= refillThreads; i++) {
+            Thread thread = new Thread(this::refill, "session-key-refill-" + i);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+            refillers.add(thread);
+        }
+        log.info("Session key pool started (low {}, high {}, {} refill threads)",
+                lowWatermark, highWatermark, refillThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        refillers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Takes a ready key pair, or generates one on the caller's thread if the pool is empty.
+     */
+    public KeyPair take() {
+        if (!enabled) {
+            return sessionKeyGenerator.generate();
+        }
+        KeyPair keyPair = pool.poll();
+        if (pool.size() < lowWatermark) {
+            synchronized (demand) {
+                demand.notifyAll();
+            }
+        }
+        if (keyPair != null) {
+            hits.increment();
+            return keyPair;
+        }
+        misses.increment();
+        return sessionKeyGenerator.generate();
+    }
+
+    public int depth() {
+        return pool != null ? pool.size() : 0;
+    }
+
+    private void refill() {
+        while (running) {
+            try {
+                if (pool.size() >= highWatermark) {
+                    awaitDemand();
+                    continue;
+                }
+                // offer fails only if other refill threads topped the pool up meanwhile
+                pool.offer(sessionKeyGenerator.generate());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Session key pre-generation failed", e);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void awaitDemand() throws InterruptedException {
+        synchronized (demand) {
+            while (running && pool.size() >= lowWatermark) {
+                demand.wait();
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.signer.signer_api.services.spool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Push-style base64 decoder: base64 text written to this stream is decoded in fixed-size
+ * chunks and written to the target, so the encoded text is never held in full.
+ * An optional data URL prefix (e.g. {@code data:application/pdf;base64,}) and whitespace are skipped.
+ */
+public class Base64DecodingOutputStream extends OutputStream {
+
+    private static final byte[] DATA_URL_PREFIX = "data:".getBytes(StandardCharsets.US_ASCII);
+    private static final int CHUNK_CHARS = 16 * 1024;
+
+    private final OutputStream target;
+    private final Base64.Decoder decoder = Base64.getDecoder();
+    private final byte[] encoded = new byte[CHUNK_CHARS];
+    private final byte[] decoded = new byte[CHUNK_CHARS / 4 * 3];
+
+    private int encodedLength;
+    private int prefixMatched;
+    private boolean skippingPrefix;
+    private boolean prefixResolved;
+    private boolean closed;
+
+    public Base64DecodingOutputStream(OutputStream target) {
+        this.target = target;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!prefixResolved) {
+            resolvePrefix((byte) b);
+            return;
+        }
+        if (skippingPrefix) {
+            if (b == ',') {
+                skippingPrefix = false;
+            }
+            return;
+        }
+        if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+            return;
+        }
+        encoded[encodedLength++] = (byte) b;
+        if (encodedLength == encoded.length) {
+            decodeBuffered();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            write(b[i]);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!prefixResolved) {
+            // Fewer bytes than the prefix were written; they are plain base64
+            prefixResolved = true;
+            byte[] pending = new byte[prefixMatched];
+            System.arraycopy(DATA_URL_PREFIX, 0, pending, 0, prefixMatched);
+            write(pending, 0, pending.length);
+        }
+        if (encodedLength > 0) {
+            decodeBuffered();
+        }
+        target.close();
+    }
+
+    private void resolvePrefix(byte b) throws IOException {
+        if (b == DATA_URL_PREFIX[prefixMatched]) {
+            prefixMatched++;
+            if (prefixMatched == DATA_URL_PREFIX.length) {
+                prefixResolved = true;
+                skippingPrefix = true;
+            }
+            return;
+        }
+        prefixResolved = true;
+        byte[] pending = new byte[prefixMatched + 1];
+        System.arraycopy(DATA_URL_PREFIX, 0, pending, 0, prefixMatched);
+        pending[prefixMatched] = b;
+        write(pending, 0, pending.length);
+    }
+
+    private void decodeBuffered() throws IOException {
+        try {
+            byte[] src = encodedLength == encoded.length ? encoded : Arrays.copyOf(encoded, encodedLength);
+            int n = decoder.decode(src, decoded);
+            target.write(decoded, 0, n);
+            encodedLength = 0;
+        } catch (IllegalArgumentException e) {
+            throw new SpoolException("Invalid base64 document content", e);
+        }
+    }
+}
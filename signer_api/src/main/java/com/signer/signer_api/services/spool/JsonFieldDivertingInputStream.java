@@ -0,0 +1,211 @@
+package com.signer.signer_api.services.spool;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Filters a JSON request body so that the string value of one top-level field is
+ * diverted to a sink instead of being handed to the JSON parser.
+ * <p>
+ * The parser sees the field as an empty string ({@code ""}), while the raw characters of the
+ * value are written to the sink as they stream past. This lets a large base64 payload be decoded
+ * to a spool without ever materialising it as a {@link String}.
+ * <p>
+ * Escapes in the diverted value are decoded before they reach the sink. A base64 value can only
+ * contain ASCII, so a unicode escape of anything else, or an escaped quote or backslash, is rejected.
+ */
+public class JsonFieldDivertingInputStream extends FilterInputStream {
+
+    private final byte[] fieldName;
+    private final OutputStream sink;
+    private final byte[] chunk = new byte[8192];
+
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private boolean expectKey;
+    private boolean capturingKey;
+    private final byte[] keyBuffer;
+    private int keyLength;
+    private boolean keyMatched;
+    private boolean awaitingValue;
+    private boolean diverting;
+    private boolean fieldFound;
+    private int hexRemaining;
+    private int hexValue;
+
+    public JsonFieldDivertingInputStream(InputStream in, String fieldName, OutputStream sink) {
+        super(in);
+        this.fieldName = fieldName.getBytes(StandardCharsets.UTF_8);
+        this.keyBuffer = new byte[this.fieldName.length];
+        this.sink = sink;
+    }
+
+    /**
+     * @return true once the value of the diverted field has started streaming to the sink
+     */
+    public boolean isFieldFound() {
+        return fieldFound;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            int n = in.read(chunk, 0, Math.min(len, chunk.length));
+            if (n == -1) {
+                return -1;
+            }
+            int written = 0;
+            for (int i = 0; i < n; i++) {
+                if (accept(chunk[i])) {
+                    b[off + written++] = chunk[i];
+                }
+            }
+            if (written > 0) {
+                return written;
+            }
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("skip is not supported");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Advances the scanner by one byte.
+     *
+     * @return true if the byte should be passed through to the parser
+     */
+    private boolean accept(byte c) throws IOException {
+        if (diverting) {
+            if (hexRemaining > 0) {
+                acceptHexDigit(c);
+                return false;
+            }
+            if (escaped) {
+                escaped = false;
+                acceptEscape(c);
+                return false;
+            }
+            if (c == '\\') {
+                escaped = true;
+                return false;
+            }
+            if (c == '"') {
+                diverting = false;
+                inString = false;
+                sink.close();
+                return true;
+            }
+            sink.write(c);
+            return false;
+        }
+
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+                if (capturingKey) {
+                    capturingKey = false;
+                    keyMatched = keyLength == fieldName.length && Arrays.equals(keyBuffer, fieldName);
+                }
+                return true;
+            }
+            if (capturingKey) {
+                if (keyLength < keyBuffer.length) {
+                    keyBuffer[keyLength] = c;
+                }
+                keyLength++;
+            }
+            return true;
+        }
+
+        switch (c) {
+            case '"' -> {
+                inString = true;
+                if (awaitingValue) {
+                    awaitingValue = false;
+                    diverting = true;
+                    fieldFound = true;
+                } else if (depth == 1 && expectKey) {
+                    expectKey = false;
+                    capturingKey = true;
+                    keyLength = 0;
+                }
+            }
+            case '{', '[' -> {
+                depth++;
+                expectKey = depth == 1 && c == '{';
+                awaitingValue = false;
+            }
+            case '}', ']' -> depth--;
+            case ',' -> expectKey = depth == 1;
+            case ':' -> {
+                awaitingValue = depth == 1 && keyMatched;
+                keyMatched = false;
+            }
+            case ' ', '\n', '\r', '\t' -> {
+                // Whitespace does not change state
+            }
+            default -> awaitingValue = false;
+        }
+        return true;
+    }
+
+    private void acceptEscape(byte c) throws IOException {
+        switch (c) {
+            case '/' -> sink.write('/');
+            // Escaped whitespace is skipped by the decoder like the literal characters
+            case 'n' -> sink.write('\n');
+            case 'r' -> sink.write('\r');
+            case 't' -> sink.write('\t');
+            case 'u' -> {
+                hexRemaining = 4;
+                hexValue = 0;
+            }
+            default -> throw new SpoolException(
+                    "Unsupported escape '\\" + (char) c + "' in the '" + fieldName() + "' field");
+        }
+    }
+
+    private void acceptHexDigit(byte c) throws IOException {
+        int digit = Character.digit(c, 16);
+        if (digit < 0) {
+            throw new SpoolException("Invalid unicode escape in the '" + fieldName() + "' field");
+        }
+        hexValue = hexValue << 4 | digit;
+        if (--hexRemaining == 0) {
+            if (hexValue > 0x7F) {
+                throw new SpoolException("Non-ASCII character in the '" + fieldName() + "' field");
+            }
+            sink.write(hexValue);
+        }
+    }
+
+    private String fieldName() {
+        return new String(fieldName, StandardCharsets.UTF_8);
+    }
+}
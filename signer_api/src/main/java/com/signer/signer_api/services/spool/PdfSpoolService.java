@@ -0,0 +1,190 @@
+package com.signer.signer_api.services.spool;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Streams incoming documents into bounded spools.
+ * Small documents stay on the heap; anything above the memory threshold goes to a temporary file,
+ * and nothing larger than the configured maximum is accepted.
+ */
+@Service
+public class PdfSpoolService {
+
+    private static final int CHUNK_CHARS = 64 * 1024;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.signing.spool.path:./uploads/spool}")
+    private String spoolPath;
+
+    @Value("${app.signing.spool.memory-threshold-bytes:1048576}")
+    private int memoryThreshold;
+
+    @Value("${app.signing.spool.max-bytes:268435456}")
+    private long maxBytes;
+
+    private Path spoolDir;
+
+    public PdfSpoolService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        spoolDir = Paths.get(spoolPath);
+        try {
+            Files.createDirectories(spoolDir);
+        } catch (IOException e) {
+            throw new SpoolException("Failed to create spool directory", e);
+        }
+    }
+
+    public Path getSpoolDir() {
+        return spoolDir;
+    }
+
+    public SpoolOutputStream newOutput() {
+        return new SpoolOutputStream(spoolDir, memoryThreshold, maxBytes);
+    }
+
+    /**
+     * Creates an empty file in the spool directory for writers that need a real file.
+     * Hand it back with {@link #adopt(Path)} once written.
+     */
+    public Path newSpoolFile() throws IOException {
+        return Files.createTempFile(spoolDir, "spool-", ".pdf");
+    }
+
+    /**
+     * Wraps a file written into the spool directory so it is cleaned up like any other spool.
+     */
+    public SpooledPdf adopt(Path file) throws IOException {
+        return SpooledPdf.onDisk(file, Files.size(file));
+    }
+
+    /**
+     * Wraps a file owned elsewhere without taking it over: closing the spool runs {@code release} and leaves
+     * the file where it is.
+     */
+    public SpooledPdf borrow(Path file, Runnable release) throws IOException {
+        return SpooledPdf.borrowed(file, Files.size(file), release);
+    }
+
+    /**
+     * Copies a raw binary stream into a spool.
+     */
+    public SpooledPdf spool(InputStream in) {
+        SpoolOutputStream out = newOutput();
+        try (out) {
+            in.transferTo(out);
+            return out.toSpooledPdf();
+        } catch (IOException e) {
+            out.discard();
+            throw new SpoolException("Failed to spool document", e);
+        }
+    }
+
+    /**
+     * Takes over a multipart upload. Large parts are moved into the spool directory
+     * instead of being copied through the heap.
+     */
+    public SpooledPdf spool(MultipartFile file) {
+        if (file.getSize() > maxBytes) {
+            throw new SpoolLimitExceededException(maxBytes);
+        }
+        try {
+            if (file.getSize() <= memoryThreshold) {
+                return SpooledPdf.inMemory(file.getBytes());
+            }
+            Path target = Files.createTempFile(spoolDir, "upload-", ".pdf");
+            file.transferTo(target);
+            return SpooledPdf.onDisk(target, Files.size(target));
+        } catch (IOException e) {
+            throw new SpoolException("Failed to spool uploaded document", e);
+        }
+    }
+
+    /**
+     * Decodes a base64 (or data URL) string into a spool without building a second full copy.
+     */
+    public SpooledPdf spoolBase64(String base64) {
+        if (base64 == null || base64.isEmpty()) {
+            throw new SpoolException("No document content provided");
+        }
+        SpoolOutputStream out = newOutput();
+        try (OutputStream decoder = new Base64DecodingOutputStream(out)) {
+            byte[] chunk = new byte[CHUNK_CHARS];
+            for (int start = 0; start < base64.length(); start += CHUNK_CHARS) {
+                int end = Math.min(start + CHUNK_CHARS, base64.length());
+                for (int i = start; i < end; i++) {
+                    chunk[i - start] = (byte) base64.charAt(i);
+                }
+                decoder.write(chunk, 0, end - start);
+            }
+        } catch (IOException | RuntimeException e) {
+            out.discard();
+            throw e instanceof SpoolException se ? se : new SpoolException("Failed to decode document", e);
+        }
+        try {
+            return out.toSpooledPdf();
+        } catch (IOException e) {
+            out.discard();
+            throw new SpoolException("Failed to decode document", e);
+        }
+    }
+
+    /**
+     * Parses a JSON request body while streaming the base64 value of {@code fieldName}
+     * through a decoder into a spool. The returned request carries an empty string for that field.
+     */
+    public <T> SpooledRequest<T> spoolJson(InputStream body, Class<T> type, String fieldName) {
+        return spoolJson(body, type, fieldName, true);
+    }
+
+    /**
+     * As {@link #spoolJson(InputStream, Class, String)}; when {@code required} is false a request without
+     * the field is accepted and comes back with no document.
+     */
+    public <T> SpooledRequest<T> spoolJson(InputStream body, Class<T> type, String fieldName, boolean required) {
+        SpoolOutputStream out = newOutput();
+        JsonFieldDivertingInputStream filtered = new JsonFieldDivertingInputStream(
+                body, fieldName, new Base64DecodingOutputStream(out));
+        try {
+            T request = objectMapper.readValue(filtered, type);
+            if (!filtered.isFieldFound()) {
+                out.discard();
+                if (!required) {
+                    return new SpooledRequest<>(request, null);
+                }
+                throw new SpoolException("Request is missing the '" + fieldName + "' field");
+            }
+            return new SpooledRequest<>(request, out.toSpooledPdf());
+        } catch (IOException | RuntimeException e) {
+            out.discard();
+            throw spoolFailure(e);
+        }
+    }
+
+    /**
+     * The parser wraps failures of the diverted field; surface those as they were thrown.
+     */
+    private static SpoolException spoolFailure(Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SpoolException se) {
+                return se;
+            }
+        }
+        return new SpoolException("Failed to read signing request", e);
+    }
+}
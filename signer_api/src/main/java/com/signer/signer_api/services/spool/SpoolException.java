@@ -0,0 +1,15 @@
+package com.signer.signer_api.services.spool;
+
+/**
+ * Exception thrown when an incoming document cannot be spooled.
+ */
+public class SpoolException extends RuntimeException {
+
+    public SpoolException(String message) {
+        super(message);
+    }
+
+    public SpoolException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package com.signer.signer_api.services.spool;
+
+/**
+ * Exception thrown when an incoming document is larger than the configured spool limit.
+ */
+public class SpoolLimitExceededException extends SpoolException {
+
+    public SpoolLimitExceededException(long maxBytes) {
+        super("Document exceeds the maximum allowed size of " + maxBytes + " bytes");
+    }
+}
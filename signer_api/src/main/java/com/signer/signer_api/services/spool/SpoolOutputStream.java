@@ -0,0 +1,106 @@
+package com.signer.signer_api.services.spool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Output stream that buffers in memory up to a threshold and then switches to a temporary file.
+ * Writes beyond the configured maximum fail with {@link SpoolLimitExceededException}.
+ */
+public class SpoolOutputStream extends OutputStream {
+
+    private final Path spoolDir;
+    private final int memoryThreshold;
+    private final long maxBytes;
+
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private OutputStream fileOut;
+    private Path file;
+    private long count;
+    private boolean closed;
+
+    SpoolOutputStream(Path spoolDir, int memoryThreshold, long maxBytes) {
+        this.spoolDir = spoolDir;
+        this.memoryThreshold = memoryThreshold;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Spool is already closed");
+        }
+        if (count + len > maxBytes) {
+            discard();
+            throw new SpoolLimitExceededException(maxBytes);
+        }
+        if (fileOut == null && count + len > memoryThreshold) {
+            switchToFile();
+        }
+        if (fileOut != null) {
+            fileOut.write(b, off, len);
+        } else {
+            memory.write(b, off, len);
+        }
+        count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileOut != null) {
+            fileOut.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (fileOut != null) {
+            fileOut.close();
+        }
+    }
+
+    /**
+     * Closes the stream and hands its content over as a {@link SpooledPdf}.
+     */
+    public SpooledPdf toSpooledPdf() throws IOException {
+        close();
+        if (file != null) {
+            return SpooledPdf.onDisk(file, count);
+        }
+        return SpooledPdf.inMemory(memory.toByteArray());
+    }
+
+    /**
+     * Closes the stream and deletes any spool file written so far.
+     */
+    public void discard() {
+        try {
+            close();
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ignored) {
+            // Best effort cleanup
+        }
+        memory = new ByteArrayOutputStream();
+    }
+
+    private void switchToFile() throws IOException {
+        file = Files.createTempFile(spoolDir, "spool-", ".pdf");
+        fileOut = Files.newOutputStream(file);
+        memory.writeTo(fileOut);
+        memory = null;
+    }
+}
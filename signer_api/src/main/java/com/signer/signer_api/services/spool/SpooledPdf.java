@@ -0,0 +1,98 @@
+package com.signer.signer_api.services.spool;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * A document held either in a small heap buffer or in a temporary spool file.
+ * Closing the spool deletes its backing file, so callers should use try-with-resources. A spool borrowed
+ * over a file someone else owns leaves the file in place and hands it back instead.
+ */
+@Slf4j
+public class SpooledPdf implements AutoCloseable {
+
+    private final byte[] memory;
+    private final Path file;
+    private final long size;
+    /**
+     * Runs on close instead of deleting the file, for a file the spool only borrows.
+     */
+    private final Runnable release;
+
+    private SpooledPdf(byte[] memory, Path file, long size, Runnable release) {
+        this.memory = memory;
+        this.file = file;
+        this.size = size;
+        this.release = release;
+    }
+
+    static SpooledPdf inMemory(byte[] content) {
+        return new SpooledPdf(content, null, content.length, null);
+    }
+
+    static SpooledPdf onDisk(Path file, long size) {
+        return new SpooledPdf(null, file, size, null);
+    }
+
+    static SpooledPdf borrowed(Path file, long size, Runnable release) {
+        return new SpooledPdf(null, file, size, release);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isOnDisk() {
+        return file != null;
+    }
+
+    /**
+     * @return the spool file, or empty if the content is held in memory
+     */
+    public Optional<Path> file() {
+        return Optional.ofNullable(file);
+    }
+
+    /**
+     * @return the heap buffer, or empty if the content was spooled to disk
+     */
+    public Optional<byte[]> memory() {
+        return Optional.ofNullable(memory);
+    }
+
+    public InputStream openStream() throws IOException {
+        return file != null ? Files.newInputStream(file) : new ByteArrayInputStream(memory);
+    }
+
+    public void transferTo(OutputStream out) throws IOException {
+        if (file != null) {
+            Files.copy(file, out);
+        } else {
+            out.write(memory);
+        }
+    }
+
+    public byte[] toByteArray() throws IOException {
+        return file != null ? Files.readAllBytes(file) : memory;
+    }
+
+    @Override
+    public void close() {
+        if (release != null) {
+            release.run();
+        } else if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Failed to delete spool file: {}", file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.signer.signer_api.services.spool;
+
+/**
+ * A parsed request body together with the document that was streamed out of it.
+ * Closing the request releases the spooled document, if the body carried one.
+ */
+public record SpooledRequest<T>(
+        T request,
+        SpooledPdf document
+) implements AutoCloseable {
+
+    @Override
+    public void close() {
+        if (document != null) {
+            document.close();
+        }
+    }
+}
@@ -0,0 +1,617 @@
+package com.signer.signer_api.services.storage;
+
+import com.signer.signer_api.services.spool.SpooledPdf;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Read-through disk cache in front of the remote document storage.
+ * <p>
+ * Documents are kept whole (deltas already joined with their base) under {@code app.storage.cache.path},
+ * so a cached document is served as a local file. Stores write through to the cache; the least recently
+ * read documents are evicted once the cache exceeds {@code max-bytes}. Documents larger than that are never
+ * cached and are read from remote storage directly. Concurrent reads of a document that is not cached wait
+ * for a single remote fetch. A cached file is not deleted while it is being read: an evicted or deleted entry
+ * keeps its file until its last reader closes. Hits, misses, remote loads, bypasses, evictions and the cache
+ * size are published as {@code signer.storage.cache.*} metrics.
+ */
+@Slf4j
+@Service
+@Primary
+@ConditionalOnExpression("'${app.storage.type:local}' == 'supabase' and ${app.storage.cache.enabled:true}")
+public class CachingDocumentStorageService implements DocumentStorageService {
+
+    private final SupabaseStorageService remote;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.storage.cache.path:./uploads/storage-cache}")
+    private String cachePath;
+
+    @Value("${app.storage.cache.max-bytes:1073741824}")
+    private long maxBytes;
+
+    private Path cacheDir;
+
+    /**
+     * A cached document and the number of streams currently reading its file.
+     */
+    private static final class Entry {
+        final long size;
+        int readers;
+
+        Entry(long size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * Cached documents by key in access order. Guarded by {@code this}.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedBytes;
+
+    /**
+     * Entries evicted or deleted while being read; their files are deleted when the last reader closes.
+     * Guarded by {@code this}.
+     */
+    private final Map<String, Entry> retired = new HashMap<>();
+
+    private final Map<String, CompletableFuture<Optional<Resource>>> loading = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter misses;
+    private Counter loads;
+    private Counter bypasses;
+    private Counter evictions;
+
+    public CachingDocumentStorageService(SupabaseStorageService remote, MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("signer.storage.cache.hits")
+                .description("Document reads served from the local cache")
+                .register(meterRegistry);
+        misses = Counter.builder("signer.storage.cache.misses")
+                .description("Document reads that had to wait for remote storage")
+                .register(meterRegistry);
+        loads = Counter.builder("signer.storage.cache.loads")
+                .description("Documents fetched from remote storage into the cache")
+                .register(meterRegistry);
+        bypasses = Counter.builder("signer.storage.cache.bypasses")
+                .description("Documents read or stored past the cache because they exceed its size")
+                .register(meterRegistry);
+        evictions = Counter.builder("signer.storage.cache.evictions")
+                .description("Documents evicted from the cache to stay within its size")
+                .register(meterRegistry);
+        Gauge.builder("signer.storage.cache.bytes", this, CachingDocumentStorageService::cachedBytes)
+                .description("Bytes of documents held in the cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("signer.storage.cache.entries", this, CachingDocumentStorageService::cachedEntries)
+                .description("Documents held in the cache")
+                .register(meterRegistry);
+
+        cacheDir = Paths.get(cachePath);
+        try {
+            Files.createDirectories(cacheDir);
+            rebuildIndex();
+        } catch (IOException e) {
+            throw new StorageException("Failed to open storage cache directory", e);
+        }
+        log.info("Storage cache at {} holds {} documents ({} of {} bytes)",
+                cacheDir.toAbsolutePath(), cachedEntries(), cachedBytes(), maxBytes);
+    }
+
+    /**
+     * Indexes documents cached before a restart, oldest first, and drops unfinished writes.
+     */
+    private void rebuildIndex() throws IOException {
+        List<Path> cached = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(cacheDir, 2)) {
+            for (Path file : walk.filter(Files::isRegularFile).toList()) {
+                if (file.getFileName().toString().endsWith(".pdf")) {
+                    cached.add(file);
+                } else {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        cached.sort(Comparator.comparingLong(this::lastModified));
+        for (Path file : cached) {
+            long size = Files.size(file);
+            if (size > maxBytes) {
+                Files.delete(file);
+                continue;
+            }
+            String key = cacheDir.relativize(file).toString().replace('\\', '/');
+            admit(key.substring(0, key.length() - ".pdf".length()), size);
+        }
+    }
+
+    @Override
+    public String store(UUID documentId, UUID userId, byte[] content, String fileName) throws StorageException {
+        String storagePath = remote.store(documentId, userId, content, fileName);
+        writeThrough(documentId, userId, content.length, out -> out.write(content));
+        return storagePath;
+    }
+
+    @Override
+    public String store(UUID documentId, UUID userId, InputStream content, long size, String fileName)
+            throws StorageException {
+        if (size > maxBytes) {
+            bypasses.increment();
+            return remote.store(documentId, userId, content, size, fileName);
+        }
+        // The upload is copied into the cache as it reads, so the stream is read only once
+        String key = key(documentId, userId);
+        CopyingInputStream copying = new CopyingInputStream(content, key);
+        try {
+            String storagePath = remote.store(documentId, userId, copying, size, fileName);
+            copying.keep(size);
+            return storagePath;
+        } finally {
+            copying.discard();
+        }
+    }
+
+    @Override
+    public String storeDelta(UUID documentId, UUID userId, String baseHash, SpooledPdf base, byte[] appended,
+                             String fileName) throws StorageException {
+        String storagePath = remote.storeDelta(documentId, userId, baseHash, base, appended, fileName);
+        writeThrough(documentId, userId, base.size() + appended.length, out -> {
+            base.transferTo(out);
+            out.write(appended);
+        });
+        return storagePath;
+    }
+
+    @Override
+    public Optional<InputStream> openStream(UUID documentId, UUID userId) {
+        Optional<Resource> resource = openResource(documentId, userId);
+        if (resource.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(resource.get().getInputStream());
+        } catch (IOException e) {
+            throw new StorageException("Failed to read document " + documentId, e);
+        }
+    }
+
+    /**
+     * @return the cached document, fetched from remote storage first if needed, or the remote document
+     * if it is too large to cache
+     */
+    @Override
+    public Optional<Resource> openResource(UUID documentId, UUID userId) {
+        String key = key(documentId, userId);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.increment();
+                return Optional.of(cachedResource(key, entry.size, documentId, userId));
+            }
+        }
+        misses.increment();
+
+        CompletableFuture<Optional<Resource>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<Resource>> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw new StorageException("Failed to load document " + documentId, e.getCause());
+            }
+        }
+        try {
+            Optional<Resource> resource = load(documentId, userId, key);
+            load.complete(resource);
+            return resource;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    @Override
+    public Optional<byte[]> retrieve(UUID documentId, UUID userId) {
+        Optional<InputStream> stream = openStream(documentId, userId);
+        if (stream.isEmpty()) {
+            return Optional.empty();
+        }
+        try (InputStream in = stream.get()) {
+            return Optional.of(in.readAllBytes());
+        } catch (IOException e) {
+            log.error("Failed to read document: {}", documentId, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean deleteBase(String baseHash) {
+        return remote.deleteBase(baseHash);
+    }
+
+    @Override
+    public boolean delete(UUID documentId, UUID userId) {
+        String key = key(documentId, userId);
+        boolean deleteFile;
+        synchronized (this) {
+            Entry entry = entries.remove(key);
+            deleteFile = entry == null || !retire(key, entry);
+        }
+        if (deleteFile) {
+            deleteFile(key);
+        }
+        return remote.delete(documentId, userId);
+    }
+
+    @Override
+    public boolean exists(UUID documentId, UUID userId) {
+        synchronized (this) {
+            if (entries.containsKey(key(documentId, userId))) {
+                return true;
+            }
+        }
+        return remote.exists(documentId, userId);
+    }
+
+    @Override
+    public Optional<String> getStoragePath(UUID documentId, UUID userId) {
+        return remote.getStoragePath(documentId, userId);
+    }
+
+    private Optional<Resource> load(UUID documentId, UUID userId, String key) {
+        synchronized (this) {
+            // Loaded by a request that finished between our lookup and our claim
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                return Optional.of(cachedResource(key, entry.size, documentId, userId));
+            }
+        }
+        Optional<Resource> stored = remote.openResource(documentId, userId);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            long size = stored.get().contentLength();
+            if (size > maxBytes) {
+                // Caching it would evict everything else and still not fit
+                bypasses.increment();
+                return stored;
+            }
+            loads.increment();
+            try (InputStream in = stored.get().getInputStream()) {
+                write(key, in::transferTo);
+            }
+            return Optional.of(cachedResource(key, size, documentId, userId));
+        } catch (IOException e) {
+            throw new StorageException("Failed to cache document " + documentId, e);
+        }
+    }
+
+    /**
+     * A cached document that can be opened any number of times. Each stream holds the entry's file until it is
+     * closed; once the entry is gone, further streams read remote storage.
+     */
+    private Resource cachedResource(String key, long size, UUID documentId, UUID userId) {
+        return new StoredDocumentResource("cached document " + documentId, size, () -> {
+            Optional<InputStream> cached = openCached(key);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+            log.debug("Cached document {} was evicted, reading remote", documentId);
+            return remote.openStream(documentId, userId)
+                    .orElseThrow(() -> new FileNotFoundException("Document " + documentId + " not found"));
+        });
+    }
+
+    /**
+     * Opens the cached file of {@code key}, keeping it on disk until the stream is closed.
+     */
+    private Optional<InputStream> openCached(String key) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            entry.readers++;
+        }
+        InputStream in;
+        try {
+            in = Files.newInputStream(file(key));
+        } catch (IOException | RuntimeException e) {
+            release(key, entry);
+            throw e;
+        }
+        AtomicBoolean closed = new AtomicBoolean();
+        return Optional.of(new FilterInputStream(in) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (closed.compareAndSet(false, true)) {
+                        release(key, entry);
+                    }
+                }
+            }
+        });
+    }
+
+    private void release(String key, Entry entry) {
+        synchronized (this) {
+            entry.readers--;
+            if (entry.readers > 0 || !retired.remove(key, entry)) {
+                return;
+            }
+        }
+        deleteFile(key);
+    }
+
+    @FunctionalInterface
+    private interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private void writeThrough(UUID documentId, UUID userId, long size, Content content) {
+        if (size > maxBytes) {
+            bypasses.increment();
+            return;
+        }
+        try {
+            write(key(documentId, userId), content);
+        } catch (IOException e) {
+            // The document is stored remotely; it is fetched on first read instead
+            log.warn("Failed to cache stored document {}: {}", documentId, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a document aside and moves it into place, so readers never see a partial file.
+     */
+    private Path write(String key, Content content) throws IOException {
+        Path temp = newTempFile(key);
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                content.writeTo(out);
+            }
+            return commit(key, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path newTempFile(String key) throws IOException {
+        Path target = file(key);
+        Files.createDirectories(target.getParent());
+        return Files.createTempFile(target.getParent(), "cache-", ".tmp");
+    }
+
+    private Path commit(String key, Path temp) throws IOException {
+        Path target = file(key);
+        long size = Files.size(temp);
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        admit(key, size);
+        return target;
+    }
+
+    /**
+     * Copies what is read from a stream into a cache file. A failing copy is dropped without failing the read;
+     * the document is then fetched on first read instead.
+     */
+    private final class CopyingInputStream extends FilterInputStream {
+
+        private final String key;
+        private Path temp;
+        private OutputStream copy;
+        private long copied;
+
+        CopyingInputStream(InputStream in, String key) {
+            super(in);
+            this.key = key;
+            try {
+                temp = newTempFile(key);
+                copy = Files.newOutputStream(temp);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1 && copy != null) {
+                try {
+                    copy.write(b);
+                    copied++;
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            if (read > 0 && copy != null) {
+                try {
+                    copy.write(buffer, offset, read);
+                    copied += read;
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes are not copied, so the cache file would have a gap
+            if (copy != null) {
+                fail(new IOException("Upload skipped content"));
+            }
+            return in.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // The caller owns the underlying stream
+        }
+
+        /**
+         * Admits the copy to the cache if it holds the whole document.
+         */
+        void keep(long size) {
+            if (copy == null) {
+                return;
+            }
+            try {
+                copy.close();
+                copy = null;
+                if (copied == size) {
+                    commit(key, temp);
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        void discard() {
+            try {
+                if (copy != null) {
+                    copy.close();
+                    copy = null;
+                }
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to remove cache copy of {}: {}", key, e.getMessage());
+            }
+        }
+
+        private void fail(IOException e) {
+            log.warn("Failed to cache stored document {}: {}", key, e.getMessage());
+            discard();
+        }
+    }
+
+    private void admit(String key, long size) {
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            // A retired file at this path was replaced by the move; its readers keep the old file open
+            retired.remove(key);
+            Entry previous = entries.put(key, new Entry(size));
+            if (previous != null) {
+                cachedBytes -= previous.size;
+            }
+            cachedBytes += size;
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (cachedBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Entry> victim = eldest.next();
+                if (victim.getKey().equals(key)) {
+                    continue;
+                }
+                eldest.remove();
+                evictions.increment();
+                if (!retire(victim.getKey(), victim.getValue())) {
+                    evicted.add(victim.getKey());
+                }
+            }
+        }
+        for (String victim : evicted) {
+            deleteFile(victim);
+        }
+    }
+
+    /**
+     * Takes a removed entry out of the size total. An entry that is being read is kept as retired.
+     *
+     * @return true if the file must stay until its readers close it
+     */
+    private boolean retire(String key, Entry entry) {
+        cachedBytes -= entry.size;
+        if (entry.readers == 0) {
+            return false;
+        }
+        retired.put(key, entry);
+        return true;
+    }
+
+    private void deleteFile(String key) {
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException e) {
+            log.warn("Failed to delete cached document {}: {}", key, e.getMessage());
+        }
+    }
+
+    private synchronized long cachedBytes() {
+        return cachedBytes;
+    }
+
+    private synchronized int cachedEntries() {
+        return entries.size();
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private Path file(String key) {
+        return cacheDir.resolve(key + ".pdf");
+    }
+
+    private static String key(UUID documentId, UUID userId) {
+        return userId + "/" + documentId;
+    }
+}
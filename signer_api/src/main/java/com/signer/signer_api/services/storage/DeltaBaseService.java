@@ -0,0 +1,91 @@
+package com.signer.signer_api.services.storage;
+
+import com.signer.signer_api.repo.DeltaBaseRepo;
+import com.signer.signer_api.repo.SignedDocumentRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keeps shared delta bases alive while documents are stored against them.
+ * Every delta takes a reference on its base before it is stored, including deltas still waiting in the
+ * write-behind journal, and drops it when its document is deleted or discarded. Bases left without a reference
+ * for the grace period are removed by a periodic sweep.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeltaBaseService {
+
+    private final DeltaBaseRepo deltaBaseRepo;
+    private final SignedDocumentRepo signedDocumentRepo;
+    private final DocumentStorageService storageService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.storage.delta.gc-grace-minutes:60}")
+    private long graceMinutes;
+
+    @Value("${app.storage.delta.gc-batch-size:100}")
+    private int batchSize;
+
+    /**
+     * Takes a reference on a base. Call before storing a delta against it.
+     */
+    @Transactional
+    public void acquire(String baseHash) {
+        deltaBaseRepo.acquire(baseHash);
+    }
+
+    /**
+     * Drops a reference taken by {@link #acquire}.
+     */
+    @Transactional
+    public void release(String baseHash) {
+        deltaBaseRepo.release(baseHash, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.delta.gc-interval-ms:600000}")
+    public void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(graceMinutes);
+        List<String> released = deltaBaseRepo.findReleasedBefore(cutoff, batchSize);
+        int deleted = 0;
+        for (String baseHash : released) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> collect(baseHash, cutoff)))) {
+                    deleted++;
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to remove delta base {}", baseHash, e);
+            }
+        }
+        if (deleted > 0) {
+            log.info("Removed {} unreferenced delta bases", deleted);
+        }
+    }
+
+    /**
+     * Removes a base while holding its row lock, so a concurrent {@link #acquire} waits and then finds the base
+     * gone and uploads it again.
+     */
+    private boolean collect(String baseHash, LocalDateTime cutoff) {
+        if (deltaBaseRepo.lockReleased(baseHash, cutoff).isEmpty()) {
+            return false;
+        }
+        if (signedDocumentRepo.existsByBaseHash(baseHash)) {
+            // Stored before the counts were kept, or the count drifted; trust the rows
+            deltaBaseRepo.recount(baseHash);
+            log.warn("Delta base {} is still referenced by saved documents, count reset", baseHash);
+            return false;
+        }
+        storageService.deleteBase(baseHash);
+        deltaBaseRepo.deleteById(baseHash);
+        return true;
+    }
+}
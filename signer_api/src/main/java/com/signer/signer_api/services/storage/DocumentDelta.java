@@ -0,0 +1,196 @@
+package com.signer.signer_api.services.storage;
+
+import com.signer.signer_api.services.spool.SpooledPdf;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Delta format for signed documents that extend an earlier file by incremental update.
+ * <p>
+ * The document object holds a one-line header naming the base by SHA-256 and length, followed by the
+ * bytes appended to that base. Bases are stored once per hash under {@code bases/}. A full PDF starts
+ * with {@code %PDF}, so readers can tell the two apart from the first bytes.
+ */
+public final class DocumentDelta {
+
+    private static final String MAGIC = "%SIGNER-DELTA-1 ";
+    private static final int MAX_HEADER_BYTES = 128;
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    /**
+     * @param baseHash SHA-256 of the base document, hex encoded
+     * @param baseSize length of the base document in bytes
+     */
+    public record Header(String baseHash, long baseSize) {
+    }
+
+    private DocumentDelta() {
+    }
+
+    public static String basePath(String baseHash) {
+        return "bases/" + baseHash + ".pdf";
+    }
+
+    public static byte[] header(String baseHash, long baseSize) {
+        return (MAGIC + baseHash + " " + baseSize + "\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Reads the delta header if the stream starts with one; otherwise the stream is left at its start.
+     */
+    public static Optional<Header> readHeader(BufferedInputStream in) throws IOException {
+        in.mark(MAX_HEADER_BYTES);
+        byte[] line = new byte[MAX_HEADER_BYTES];
+        int length = 0;
+        int b;
+        while (length < line.length && (b = in.read()) != -1 && b != '\n') {
+            line[length++] = (byte) b;
+        }
+        String text = new String(line, 0, length, StandardCharsets.US_ASCII);
+        if (!text.startsWith(MAGIC)) {
+            in.reset();
+            return Optional.empty();
+        }
+        String[] parts = text.substring(MAGIC.length()).split(" ");
+        if (parts.length != 2) {
+            throw new IOException("Malformed delta header");
+        }
+        return Optional.of(new Header(parts[0], Long.parseLong(parts[1])));
+    }
+
+    /**
+     * @return the length of the header written for this base, which is where the appended bytes start
+     */
+    public static int headerLength(Header header) {
+        return header(header.baseHash(), header.baseSize()).length;
+    }
+
+    /**
+     * Rebuilds the full document from the base and the rest of the delta stream. Unlike a
+     * {@link java.io.SequenceInputStream}, skipping is passed on to the parts, so seeking into a
+     * file-backed document does not read the bytes it passes.
+     */
+    public static InputStream join(InputStream base, InputStream appended) {
+        return new JoinedInputStream(base, appended);
+    }
+
+    private static final class JoinedInputStream extends InputStream {
+
+        private final InputStream second;
+        private InputStream current;
+
+        JoinedInputStream(InputStream first, InputStream second) {
+            this.current = first;
+            this.second = second;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = current.read();
+            if (b == -1 && advance()) {
+                return current.read();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            int read = current.read(buffer, offset, length);
+            if (read == -1 && advance()) {
+                return current.read(buffer, offset, length);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n) {
+                long step = current.skip(n - skipped);
+                if (step <= 0) {
+                    // skip() may stop early at end of stream; a read tells that apart from a slow stream
+                    if (current.read() == -1) {
+                        if (!advance()) {
+                            break;
+                        }
+                        continue;
+                    }
+                    step = 1;
+                }
+                skipped += step;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return current.available();
+        }
+
+        private boolean advance() throws IOException {
+            if (current == second) {
+                return false;
+            }
+            current.close();
+            current = second;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                current.close();
+            } finally {
+                second.close();
+            }
+        }
+    }
+
+    /**
+     * Checks whether {@code signed} starts with the bytes of {@code base}, hashing the base on the way.
+     *
+     * @return the SHA-256 of the base if the signed file extends it, empty otherwise
+     */
+    public static Optional<String> matchBase(SpooledPdf base, SpooledPdf signed) throws IOException {
+        if (signed.size() <= base.size()) {
+            return Optional.empty();
+        }
+        try (InputStream baseIn = base.openStream(); InputStream signedIn = signed.openStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] baseChunk = new byte[CHUNK_BYTES];
+            byte[] signedChunk = new byte[CHUNK_BYTES];
+            int read;
+            while ((read = baseIn.readNBytes(baseChunk, 0, CHUNK_BYTES)) > 0) {
+                if (signedIn.readNBytes(signedChunk, 0, read) != read
+                        || !Arrays.equals(baseChunk, 0, read, signedChunk, 0, read)) {
+                    return Optional.empty();
+                }
+                digest.update(baseChunk, 0, read);
+            }
+            return Optional.of(HexFormat.of().formatHex(digest.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the bytes of {@code signed} after its first {@code offset} bytes
+     */
+    public static byte[] appendedBytes(SpooledPdf signed, long offset) throws IOException {
+        try (InputStream in = signed.openStream()) {
+            in.skipNBytes(offset);
+            return in.readAllBytes();
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.signer.signer_api.services.storage;
 
+import com.signer.signer_api.services.spool.SpooledPdf;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -22,6 +26,58 @@ public interface DocumentStorageService {
      */
     String store(UUID documentId, UUID userId, byte[] content, String fileName) throws StorageException;
 
+    /**
+     * Stores a signed PDF document read from a stream, so large documents are not held in memory.
+     *
+     * @param documentId Unique identifier for the document
+     * @param userId     The user who owns this document
+     * @param content    The PDF content; read once to its end, closed by the caller
+     * @param size       The number of bytes in {@code content}
+     * @param fileName   Original filename
+     * @return The storage path/key where the document was stored
+     * @throws StorageException if storage fails
+     */
+    String store(UUID documentId, UUID userId, InputStream content, long size, String fileName)
+            throws StorageException;
+
+    /**
+     * Stores a signed document that is {@code base} followed by {@code appended}, as produced by an
+     * incremental update. The base is stored once per content hash and shared; only the appended bytes
+     * are stored for the document.
+     *
+     * @param baseHash SHA-256 of the base document, hex encoded
+     * @param base     the base document
+     * @param appended the bytes the signed document adds after the base
+     * @return The storage path/key where the document was stored
+     * @throws StorageException if storage fails
+     */
+    String storeDelta(UUID documentId, UUID userId, String baseHash, SpooledPdf base, byte[] appended,
+                      String fileName) throws StorageException;
+
+    /**
+     * Opens a document for reading. Documents stored as a delta are rebuilt from their base as the stream is read.
+     *
+     * @return The document content, or empty if not found. The caller must close the stream.
+     */
+    Optional<InputStream> openStream(UUID documentId, UUID userId);
+
+    /**
+     * Opens a document as a resource for streaming responses. The resource knows its length and can be
+     * reopened, so byte ranges can be served from it. A document kept as a single local file is returned
+     * as a file resource, which lets the server send it without copying it through the heap.
+     *
+     * @return The document resource, or empty if not found
+     */
+    Optional<Resource> openResource(UUID documentId, UUID userId);
+
+    /**
+     * Deletes a shared base document. Only call once no stored document refers to it.
+     *
+     * @param baseHash SHA-256 of the base document, hex encoded
+     * @return true if deleted, false if not found
+     */
+    boolean deleteBase(String baseHash);
+
     /**
      * Retrieves a document content.
      *
@@ -1,15 +1,23 @@
 package com.signer.signer_api.services.storage;
 
+import com.signer.signer_api.services.spool.SpooledPdf;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -56,16 +64,154 @@ public class LocalFileStorageService implements DocumentStorageService {
     }
 
     @Override
-    public Optional<byte[]> retrieve(UUID documentId, UUID userId) {
+    public String store(UUID documentId, UUID userId, InputStream content, long size, String fileName)
+            throws StorageException {
+        try {
+            Path userDir = baseDir.resolve(userId.toString());
+            Files.createDirectories(userDir);
+
+            Path filePath = userDir.resolve(documentId.toString() + ".pdf");
+            long copied = Files.copy(content, filePath, StandardCopyOption.REPLACE_EXISTING);
+            if (copied != size) {
+                Files.deleteIfExists(filePath);
+                throw new StorageException("Document " + documentId + " ended at " + copied + " of " + size
+                        + " bytes");
+            }
+
+            log.info("Stored document {} for user {} at: {}", documentId, userId, filePath.toAbsolutePath());
+            return filePath.toAbsolutePath().toString();
+        } catch (IOException e) {
+            throw new StorageException("Failed to store document: " + documentId, e);
+        }
+    }
+
+    @Override
+    public String storeDelta(UUID documentId, UUID userId, String baseHash, SpooledPdf base, byte[] appended,
+                             String fileName) throws StorageException {
+        try {
+            storeBase(baseHash, base);
+
+            Path userDir = baseDir.resolve(userId.toString());
+            Files.createDirectories(userDir);
+            Path filePath = userDir.resolve(documentId.toString() + ".pdf");
+            try (OutputStream out = Files.newOutputStream(filePath)) {
+                out.write(DocumentDelta.header(baseHash, base.size()));
+                out.write(appended);
+            }
+
+            log.info("Stored document {} for user {} as {} bytes on base {}",
+                    documentId, userId, appended.length, baseHash);
+            return filePath.toAbsolutePath().toString();
+        } catch (IOException e) {
+            throw new StorageException("Failed to store document: " + documentId, e);
+        }
+    }
+
+    private void storeBase(String baseHash, SpooledPdf base) throws IOException {
+        Path basePath = baseDir.resolve(DocumentDelta.basePath(baseHash));
+        if (Files.exists(basePath)) {
+            return;
+        }
+        Files.createDirectories(basePath.getParent());
+        // Write aside and move into place, so a reader never sees a partial base
+        Path temp = Files.createTempFile(basePath.getParent(), "base-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                base.transferTo(out);
+            }
+            Files.move(temp, basePath, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Stored base document {} ({} bytes)", baseHash, base.size());
+        } catch (FileAlreadyExistsException e) {
+            // Stored concurrently by another request
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<InputStream> openStream(UUID documentId, UUID userId) {
         Path filePath = baseDir.resolve(userId.toString()).resolve(documentId.toString() + ".pdf");
-        if (Files.exists(filePath)) {
+        if (!Files.exists(filePath)) {
+            return Optional.empty();
+        }
+        try {
+            BufferedInputStream in = new BufferedInputStream(Files.newInputStream(filePath));
             try {
-                return Optional.of(Files.readAllBytes(filePath));
+                Optional<DocumentDelta.Header> header = DocumentDelta.readHeader(in);
+                if (header.isEmpty()) {
+                    return Optional.of(in);
+                }
+                Path basePath = baseDir.resolve(DocumentDelta.basePath(header.get().baseHash()));
+                return Optional.of(DocumentDelta.join(Files.newInputStream(basePath), in));
             } catch (IOException e) {
-                log.error("Failed to read document: {}", documentId, e);
+                in.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            log.error("Failed to read document: {}", documentId, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<Resource> openResource(UUID documentId, UUID userId) {
+        Path filePath = baseDir.resolve(userId.toString()).resolve(documentId.toString() + ".pdf");
+        if (!Files.exists(filePath)) {
+            return Optional.empty();
+        }
+        try {
+            Optional<DocumentDelta.Header> header;
+            try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(filePath))) {
+                header = DocumentDelta.readHeader(in);
             }
+            if (header.isEmpty()) {
+                return Optional.of(new FileSystemResource(filePath));
+            }
+            Path basePath = baseDir.resolve(DocumentDelta.basePath(header.get().baseHash()));
+            long headerLength = DocumentDelta.headerLength(header.get());
+            long length = header.get().baseSize() + Files.size(filePath) - headerLength;
+            return Optional.of(new StoredDocumentResource("document " + documentId, length, () -> {
+                InputStream appended = Files.newInputStream(filePath);
+                try {
+                    appended.skipNBytes(headerLength);
+                    return DocumentDelta.join(Files.newInputStream(basePath), appended);
+                } catch (IOException e) {
+                    appended.close();
+                    throw e;
+                }
+            }));
+        } catch (IOException e) {
+            log.error("Failed to read document: {}", documentId, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<byte[]> retrieve(UUID documentId, UUID userId) {
+        Optional<InputStream> stream = openStream(documentId, userId);
+        if (stream.isEmpty()) {
+            return Optional.empty();
+        }
+        try (InputStream in = stream.get()) {
+            return Optional.of(in.readAllBytes());
+        } catch (IOException e) {
+            log.error("Failed to read document: {}", documentId, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean deleteBase(String baseHash) {
+        try {
+            boolean deleted = Files.deleteIfExists(baseDir.resolve(DocumentDelta.basePath(baseHash)));
+            if (deleted) {
+                log.info("Deleted base document: {}", baseHash);
+            }
+            return deleted;
+        } catch (IOException e) {
+            log.error("Failed to delete base document: {}", baseHash, e);
+            return false;
         }
-        return Optional.empty();
     }
 
     @Override
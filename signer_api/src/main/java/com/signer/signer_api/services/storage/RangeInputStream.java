@@ -0,0 +1,90 @@
+package com.signer.signer_api.services.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream over a stored object that is opened on the first read, at the position reached by skipping.
+ * Serving a byte range of a remote object then costs one ranged request instead of downloading up to it.
+ */
+final class RangeInputStream extends InputStream {
+
+    @FunctionalInterface
+    interface Opener {
+        InputStream open(long offset) throws IOException;
+    }
+
+    private final long length;
+    private final Opener opener;
+    private long position;
+    private InputStream in;
+
+    RangeInputStream(long length, Opener opener) {
+        this.length = length;
+        this.opener = opener;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureOpen()) {
+            return -1;
+        }
+        int b = in.read();
+        if (b != -1) {
+            position++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int count) throws IOException {
+        if (count == 0) {
+            return 0;
+        }
+        if (!ensureOpen()) {
+            return -1;
+        }
+        int read = in.read(buffer, offset, count);
+        if (read > 0) {
+            position += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        if (in == null) {
+            long step = Math.min(n, length - position);
+            position += step;
+            return step;
+        }
+        long skipped = in.skip(n);
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return in == null ? 0 : in.available();
+    }
+
+    private boolean ensureOpen() throws IOException {
+        if (in == null) {
+            if (position >= length) {
+                return false;
+            }
+            in = opener.open(position);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+}
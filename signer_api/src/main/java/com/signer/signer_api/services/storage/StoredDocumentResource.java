@@ -0,0 +1,51 @@
+package com.signer.signer_api.services.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A stored document of known length that can be opened any number of times.
+ * <p>
+ * Used for documents that are not a single local file, such as deltas rebuilt from their base or
+ * documents held by a remote store. Byte ranges are served by skipping into a fresh stream, so the
+ * streams should skip without reading where they can.
+ */
+public class StoredDocumentResource extends AbstractResource {
+
+    @FunctionalInterface
+    public interface Opener {
+        InputStream open() throws IOException;
+    }
+
+    private final String description;
+    private final long length;
+    private final Opener opener;
+
+    public StoredDocumentResource(String description, long length, Opener opener) {
+        this.description = description;
+        this.length = length;
+        this.opener = opener;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return opener.open();
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,387 @@
+package com.signer.signer_api.services.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * HTTP client for the Supabase Storage API.
+ * <p>
+ * Requests share one {@link HttpClient}, which keeps connections alive for reuse and uses HTTP/2 where
+ * the server offers it. Request and response bodies are streamed rather than buffered. Objects from
+ * {@code resumable-threshold-bytes} up are uploaded through the resumable (TUS) endpoint in fixed-size
+ * chunks, so a failed chunk is retried from the last offset the server confirmed. At most
+ * {@code max-connections} requests are in flight at once; a streamed download counts until it is closed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "supabase")
+public class SupabaseStorageClient {
+
+    /**
+     * First bytes of an object and the length of the whole object.
+     */
+    public record ObjectPrefix(byte[] bytes, long length) {
+    }
+
+    private record StreamedResponse(int statusCode, InputStream body) {
+    }
+
+    private static final String TUS_VERSION = "1.0.0";
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+    private final HttpClient httpClient;
+    private final String supabaseUrl;
+    private final String bucketName;
+    private final String[] authHeaders;
+    private final Duration requestTimeout;
+    private final Semaphore connections;
+    private final long resumableThreshold;
+    private final int chunkBytes;
+
+    public SupabaseStorageClient(
+            @Value("${supabase.url}") String supabaseUrl,
+            @Value("${supabase.key}") String supabaseKey,
+            @Value("${supabase.bucket}") String bucketName,
+            @Value("${app.storage.http.connect-timeout-ms:5000}") long connectTimeoutMs,
+            @Value("${app.storage.http.request-timeout-ms:60000}") long requestTimeoutMs,
+            @Value("${app.storage.http.max-connections:32}") int maxConnections,
+            @Value("${app.storage.http.resumable-threshold-bytes:6291456}") long resumableThreshold,
+            @Value("${app.storage.http.resumable-chunk-bytes:6291456}") int chunkBytes) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.supabaseUrl = supabaseUrl;
+        this.bucketName = bucketName;
+        this.authHeaders = new String[]{"apikey", supabaseKey, "Authorization", "Bearer " + supabaseKey};
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.connections = new Semaphore(maxConnections, true);
+        this.resumableThreshold = resumableThreshold;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Uploads an object, streaming it from the resource. Fails if the object already exists.
+     */
+    public void upload(String path, Resource content, String contentType) throws IOException {
+        long length = content.contentLength();
+        if (length >= resumableThreshold) {
+            uploadResumable(path, content, length, contentType);
+            return;
+        }
+        HttpRequest.BodyPublisher body = content.isFile()
+                ? HttpRequest.BodyPublishers.ofFile(content.getFile().toPath())
+                : HttpRequest.BodyPublishers.fromPublisher(
+                        HttpRequest.BodyPublishers.ofInputStream(() -> open(content)), length);
+        HttpRequest request = request(objectUri(path))
+                .header("Content-Type", contentType)
+                .POST(body)
+                .build();
+        HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
+        if (!isSuccess(response.statusCode())) {
+            throw new StorageException("Failed to store " + path + " in Supabase. Status: "
+                    + response.statusCode() + " " + response.body());
+        }
+    }
+
+    /**
+     * Opens an object for reading from {@code offset}. The caller must close the stream.
+     *
+     * @return the object content, or empty if not found
+     */
+    public Optional<InputStream> download(String path, long offset) throws IOException {
+        HttpRequest.Builder builder = request(objectUri(path)).GET();
+        if (offset > 0) {
+            builder.header("Range", "bytes=" + offset + "-");
+        }
+        Optional<StreamedResponse> response = sendStreaming(builder.build(), path);
+        if (response.isEmpty()) {
+            return Optional.empty();
+        }
+        InputStream body = response.get().body();
+        if (offset > 0 && response.get().statusCode() != 206) {
+            // The server ignored the range
+            try {
+                body.skipNBytes(offset);
+            } catch (IOException e) {
+                body.close();
+                throw e;
+            }
+        }
+        return Optional.of(body);
+    }
+
+    /**
+     * Reads up to {@code count} bytes from the start of an object along with the object's length,
+     * in one ranged request.
+     *
+     * @return the prefix, or empty if not found
+     */
+    public Optional<ObjectPrefix> readPrefix(String path, int count) throws IOException {
+        HttpRequest request = request(objectUri(path))
+                .header("Range", "bytes=0-" + (count - 1))
+                .GET()
+                .build();
+        acquire();
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                int status = response.statusCode();
+                if (status == 416) {
+                    return Optional.of(new ObjectPrefix(new byte[0], 0));
+                }
+                if (!isSuccess(status)) {
+                    logMissing(path, status);
+                    return Optional.empty();
+                }
+                byte[] bytes = body.readNBytes(count);
+                if (status == 206) {
+                    String range = response.headers().firstValue("Content-Range")
+                            .orElseThrow(() -> new IOException("Partial response without Content-Range"));
+                    return Optional.of(new ObjectPrefix(bytes,
+                            Long.parseLong(range.substring(range.lastIndexOf('/') + 1))));
+                }
+                // The server ignored the range and sent the whole object
+                OptionalLong contentLength = response.headers().firstValueAsLong("Content-Length");
+                long length = contentLength.isPresent()
+                        ? contentLength.getAsLong()
+                        : bytes.length + body.transferTo(OutputStream.nullOutputStream());
+                return Optional.of(new ObjectPrefix(bytes, length));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted reading " + path);
+        } finally {
+            connections.release();
+        }
+    }
+
+    public boolean exists(String path) throws IOException {
+        HttpRequest request = request(URI.create(String.format("%s/storage/v1/object/info/%s/%s",
+                supabaseUrl, bucketName, path))).GET().build();
+        return isSuccess(send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    public boolean delete(String path) throws IOException {
+        HttpRequest request = request(objectUri(path)).DELETE().build();
+        return isSuccess(send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    private void uploadResumable(String path, Resource content, long length, String contentType)
+            throws IOException {
+        HttpRequest create = request(URI.create(supabaseUrl + "/storage/v1/upload/resumable"))
+                .header("Tus-Resumable", TUS_VERSION)
+                .header("Upload-Length", Long.toString(length))
+                .header("Upload-Metadata", "bucketName " + base64(bucketName)
+                        + ",objectName " + base64(path)
+                        + ",contentType " + base64(contentType))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> created = send(create, HttpResponse.BodyHandlers.ofString());
+        if (created.statusCode() != 201) {
+            throw new StorageException("Failed to start upload of " + path + " to Supabase. Status: "
+                    + created.statusCode() + " " + created.body());
+        }
+        URI upload = create.uri().resolve(created.headers().firstValue("Location")
+                .orElseThrow(() -> new StorageException("Supabase did not return an upload location")));
+
+        byte[] chunk = new byte[(int) Math.min(chunkBytes, length)];
+        long offset = 0;
+        // The chunk in the buffer covers [chunkStart, chunkStart + count); the server has it up to chunkStart + sent
+        long chunkStart = 0;
+        int count = 0;
+        int sent = 0;
+        int attempt = 0;
+        InputStream in = content.getInputStream();
+        try {
+            while (offset < length) {
+                if (sent == count) {
+                    chunkStart = offset;
+                    count = in.readNBytes(chunk, 0, (int) Math.min(chunk.length, length - offset));
+                    sent = 0;
+                    if (count == 0) {
+                        throw new IOException("Content ended at " + offset + " of " + length + " bytes");
+                    }
+                }
+                try {
+                    offset = patch(upload, offset, chunk, sent, count - sent);
+                    attempt = 0;
+                } catch (IOException e) {
+                    if (++attempt >= MAX_CHUNK_ATTEMPTS) {
+                        throw e;
+                    }
+                    offset = uploadOffset(upload);
+                    log.warn("Chunk upload of {} failed ({}), resuming at offset {}", path, e.getMessage(), offset);
+                }
+                if (offset >= chunkStart && offset <= chunkStart + count) {
+                    // Resume from the part of the chunk still in the buffer, so streamed content is read once
+                    sent = (int) (offset - chunkStart);
+                } else {
+                    // The server is outside the buffered chunk; reread the content up to its offset
+                    in.close();
+                    in = content.getInputStream();
+                    in.skipNBytes(offset);
+                    count = 0;
+                    sent = 0;
+                }
+            }
+        } finally {
+            in.close();
+        }
+        log.debug("Uploaded {} ({} bytes) in chunks of {}", path, length, chunk.length);
+    }
+
+    /**
+     * @return the upload offset confirmed by the server
+     */
+    private long patch(URI upload, long offset, byte[] chunk, int from, int count) throws IOException {
+        HttpRequest request = request(upload)
+                .header("Tus-Resumable", TUS_VERSION)
+                .header("Upload-Offset", Long.toString(offset))
+                .header("Content-Type", "application/offset+octet-stream")
+                .method("PATCH", HttpRequest.BodyPublishers.ofByteArray(chunk, from, count))
+                .build();
+        HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 204) {
+            throw new IOException("Chunk at offset " + offset + " rejected. Status: "
+                    + response.statusCode() + " " + response.body());
+        }
+        return uploadOffset(response);
+    }
+
+    private long uploadOffset(URI upload) throws IOException {
+        HttpRequest request = request(upload)
+                .header("Tus-Resumable", TUS_VERSION)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<Void> response = send(request, HttpResponse.BodyHandlers.discarding());
+        if (!isSuccess(response.statusCode())) {
+            throw new StorageException("Upload " + upload + " can not be resumed. Status: " + response.statusCode());
+        }
+        return uploadOffset(response);
+    }
+
+    private static long uploadOffset(HttpResponse<?> response) throws IOException {
+        return response.headers().firstValueAsLong("Upload-Offset")
+                .orElseThrow(() -> new IOException("Response without Upload-Offset"));
+    }
+
+    private Optional<StreamedResponse> sendStreaming(HttpRequest request, String path) throws IOException {
+        acquire();
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            connections.release();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted reading " + path);
+        } catch (IOException | RuntimeException e) {
+            connections.release();
+            throw e;
+        }
+        if (!isSuccess(response.statusCode())) {
+            try {
+                response.body().close();
+            } finally {
+                connections.release();
+            }
+            logMissing(path, response.statusCode());
+            return Optional.empty();
+        }
+        // The connection stays in use until the caller closes the body
+        AtomicBoolean released = new AtomicBoolean();
+        InputStream body = new FilterInputStream(response.body()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (released.compareAndSet(false, true)) {
+                        connections.release();
+                    }
+                }
+            }
+        };
+        return Optional.of(new StreamedResponse(response.statusCode(), body));
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        acquire();
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted calling " + request.uri());
+        } finally {
+            connections.release();
+        }
+    }
+
+    private void acquire() throws IOException {
+        try {
+            if (!connections.tryAcquire(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("No Supabase connection available within " + requestTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a Supabase connection");
+        }
+    }
+
+    private HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .headers(authHeaders);
+    }
+
+    private URI objectUri(String path) {
+        return URI.create(String.format("%s/storage/v1/object/%s/%s", supabaseUrl, bucketName, path));
+    }
+
+    private static InputStream open(Resource content) {
+        try {
+            return content.getInputStream();
+        } catch (IOException e) {
+            throw new StorageException("Failed to read upload content", e);
+        }
+    }
+
+    private static void logMissing(String path, int status) {
+        // Supabase answers a missing object with 400 or 404
+        if (status == 400 || status == 404) {
+            log.debug("Supabase object {} not found ({})", path, status);
+        } else {
+            log.error("Supabase download error for {}: status {}", path, status);
+        }
+    }
+
+    private static boolean isSuccess(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    private static String base64(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
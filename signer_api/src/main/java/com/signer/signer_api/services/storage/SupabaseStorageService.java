@@ -1,12 +1,21 @@
 package com.signer.signer_api.services.storage;
 
+import com.signer.signer_api.services.spool.SpooledPdf;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.http.*;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -14,44 +23,39 @@ import java.util.UUID;
 @Slf4j
 @Service
 @ConditionalOnProperty(name = "app.storage.type", havingValue = "supabase")
+@RequiredArgsConstructor
 public class SupabaseStorageService implements DocumentStorageService {
 
-    private final RestTemplate restTemplate;
-    private final String supabaseUrl;
-    private final String supabaseKey;
-    private final String bucketName;
-
-    public SupabaseStorageService(
-            RestTemplate restTemplate,
-            @Value("${supabase.url}") String supabaseUrl,
-            @Value("${supabase.key}") String supabaseKey,
-            @Value("${supabase.bucket}") String bucketName) {
-        this.restTemplate = restTemplate;
-        this.supabaseUrl = supabaseUrl;
-        this.supabaseKey = supabaseKey;
-        this.bucketName = bucketName;
-    }
+    private static final int HEADER_PREFIX_BYTES = 128;
+
+    private final SupabaseStorageClient client;
 
     @Override
     public String store(UUID documentId, UUID userId, byte[] content, String fileName) throws StorageException {
         try {
             String path = userId.toString() + "/" + documentId.toString() + ".pdf";
-            String url = String.format("%s/storage/v1/object/%s/%s", supabaseUrl, bucketName, path);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("apikey", supabaseKey);
-            headers.set("Authorization", "Bearer " + supabaseKey);
-            headers.setContentType(MediaType.APPLICATION_PDF);
-
-            HttpEntity<byte[]> entity = new HttpEntity<>(content, headers);
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
+            client.upload(path, new ByteArrayResource(content), MediaType.APPLICATION_PDF_VALUE);
+            log.info("Stored document {} for user {} in Supabase", documentId, userId);
+            return path;
+        } catch (Exception e) {
+            log.error("Supabase store error: {}", e.getMessage());
+            throw new StorageException("Supabase storage failure", e);
+        }
+    }
 
-            if (response.getStatusCode().is2xxSuccessful()) {
-                log.info("Stored document {} for user {} in Supabase bucket {}", documentId, userId, bucketName);
-                return path;
-            } else {
-                throw new StorageException("Failed to store document in Supabase. Status: " + response.getStatusCode());
-            }
+    @Override
+    public String store(UUID documentId, UUID userId, InputStream content, long size, String fileName)
+            throws StorageException {
+        try {
+            String path = userId.toString() + "/" + documentId.toString() + ".pdf";
+            client.upload(path, new InputStreamResource(content) {
+                @Override
+                public long contentLength() {
+                    return size;
+                }
+            }, MediaType.APPLICATION_PDF_VALUE);
+            log.info("Stored document {} for user {} in Supabase", documentId, userId);
+            return path;
         } catch (Exception e) {
             log.error("Supabase store error: {}", e.getMessage());
             throw new StorageException("Supabase storage failure", e);
@@ -59,23 +63,138 @@ public class SupabaseStorageService implements DocumentStorageService {
     }
 
     @Override
-    public Optional<byte[]> retrieve(UUID documentId, UUID userId) {
+    public String storeDelta(UUID documentId, UUID userId, String baseHash, SpooledPdf base, byte[] appended,
+                             String fileName) throws StorageException {
         try {
+            String basePath = DocumentDelta.basePath(baseHash);
+            if (!client.exists(basePath)) {
+                Resource baseContent = base.file().<Resource>map(FileSystemResource::new)
+                        .orElseGet(() -> new ByteArrayResource(base.memory().orElseThrow()));
+                try {
+                    client.upload(basePath, baseContent, MediaType.APPLICATION_PDF_VALUE);
+                    log.info("Stored base document {} ({} bytes) in Supabase", baseHash, base.size());
+                } catch (RuntimeException e) {
+                    // Another request may have stored the same base in the meantime
+                    if (!client.exists(basePath)) {
+                        throw e;
+                    }
+                }
+            }
+
             String path = userId.toString() + "/" + documentId.toString() + ".pdf";
-            String url = String.format("%s/storage/v1/object/%s/%s", supabaseUrl, bucketName, path);
+            ByteArrayOutputStream delta = new ByteArrayOutputStream(appended.length + 128);
+            delta.write(DocumentDelta.header(baseHash, base.size()));
+            delta.write(appended);
+            client.upload(path, new ByteArrayResource(delta.toByteArray()), MediaType.APPLICATION_OCTET_STREAM_VALUE);
+
+            log.info("Stored document {} for user {} in Supabase as {} bytes on base {}",
+                    documentId, userId, appended.length, baseHash);
+            return path;
+        } catch (Exception e) {
+            log.error("Supabase delta store error: {}", e.getMessage());
+            throw new StorageException("Supabase storage failure", e);
+        }
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("apikey", supabaseKey);
-            headers.set("Authorization", "Bearer " + supabaseKey);
+    /**
+     * Streams the document; a delta is joined with its base. The appended part of a delta is read first,
+     * so a reader never holds two connections at once.
+     */
+    @Override
+    public Optional<InputStream> openStream(UUID documentId, UUID userId) {
+        try {
+            Optional<InputStream> stored = client.download(documentPath(documentId, userId), 0);
+            if (stored.isEmpty()) {
+                return Optional.empty();
+            }
+            BufferedInputStream in = new BufferedInputStream(stored.get());
+            byte[] appended;
+            String baseHash;
+            try {
+                Optional<DocumentDelta.Header> header = DocumentDelta.readHeader(in);
+                if (header.isEmpty()) {
+                    return Optional.of(in);
+                }
+                baseHash = header.get().baseHash();
+                appended = in.readAllBytes();
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+            in.close();
+            Optional<InputStream> base = client.download(DocumentDelta.basePath(baseHash), 0);
+            if (base.isEmpty()) {
+                log.error("Base {} of document {} is missing", baseHash, documentId);
+                return Optional.empty();
+            }
+            return Optional.of(DocumentDelta.join(base.get(), new ByteArrayInputStream(appended)));
+        } catch (IOException e) {
+            log.error("Supabase retrieve error for document {}: {}", documentId, e.getMessage());
+            return Optional.empty();
+        }
+    }
 
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<byte[]> response = restTemplate.exchange(url, HttpMethod.GET, entity, byte[].class);
+    /**
+     * Reads only the start of the document to tell its length and whether it is a delta. Content is
+     * fetched when the resource is read, by ranged requests from the position the reader skips to.
+     */
+    @Override
+    public Optional<Resource> openResource(UUID documentId, UUID userId) {
+        String path = documentPath(documentId, userId);
+        try {
+            Optional<SupabaseStorageClient.ObjectPrefix> prefix = client.readPrefix(path, HEADER_PREFIX_BYTES);
+            if (prefix.isEmpty()) {
+                return Optional.empty();
+            }
+            Optional<DocumentDelta.Header> header = DocumentDelta.readHeader(
+                    new BufferedInputStream(new ByteArrayInputStream(prefix.get().bytes())));
+            String description = "document " + documentId;
+            if (header.isEmpty()) {
+                long length = prefix.get().length();
+                return Optional.of(new StoredDocumentResource(description, length,
+                        () -> new RangeInputStream(length, offset -> openObject(path, offset))));
+            }
 
-            if (response.getStatusCode().is2xxSuccessful()) {
-                return Optional.ofNullable(response.getBody());
+            int headerLength = DocumentDelta.headerLength(header.get());
+            byte[] appended;
+            try (InputStream in = openObject(path, headerLength)) {
+                appended = in.readAllBytes();
             }
+            long baseSize = header.get().baseSize();
+            String basePath = DocumentDelta.basePath(header.get().baseHash());
+            return Optional.of(new StoredDocumentResource(description, baseSize + appended.length,
+                    () -> DocumentDelta.join(
+                            new RangeInputStream(baseSize, offset -> openObject(basePath, offset)),
+                            new ByteArrayInputStream(appended))));
+        } catch (IOException e) {
+            log.error("Supabase retrieve error for document {}: {}", documentId, e.getMessage());
             return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean deleteBase(String baseHash) {
+        try {
+            if (client.delete(DocumentDelta.basePath(baseHash))) {
+                log.info("Deleted base document {} from Supabase", baseHash);
+                return true;
+            }
+            return false;
         } catch (Exception e) {
+            log.error("Supabase delete error for base {}: {}", baseHash, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public Optional<byte[]> retrieve(UUID documentId, UUID userId) {
+        Optional<InputStream> stream = openStream(documentId, userId);
+        if (stream.isEmpty()) {
+            return Optional.empty();
+        }
+        try (InputStream in = stream.get()) {
+            return Optional.of(in.readAllBytes());
+        } catch (IOException e) {
             log.error("Supabase retrieve error for document {}: {}", documentId, e.getMessage());
             return Optional.empty();
         }
@@ -84,17 +203,7 @@ public class SupabaseStorageService implements DocumentStorageService {
     @Override
     public boolean delete(UUID documentId, UUID userId) {
         try {
-            String path = userId.toString() + "/" + documentId.toString() + ".pdf";
-            String url = String.format("%s/storage/v1/object/%s/%s", supabaseUrl, bucketName, path);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("apikey", supabaseKey);
-            headers.set("Authorization", "Bearer " + supabaseKey);
-
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.DELETE, entity, String.class);
-
-            if (response.getStatusCode().is2xxSuccessful()) {
+            if (client.delete(documentPath(documentId, userId))) {
                 log.info("Deleted document {} for user {} from Supabase", documentId, userId);
                 return true;
             }
@@ -108,17 +217,7 @@ public class SupabaseStorageService implements DocumentStorageService {
     @Override
     public boolean exists(UUID documentId, UUID userId) {
         try {
-            String path = userId.toString() + "/" + documentId.toString() + ".pdf";
-            String url = String.format("%s/storage/v1/object/info/%s/%s", supabaseUrl, bucketName, path);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("apikey", supabaseKey);
-            headers.set("Authorization", "Bearer " + supabaseKey);
-
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-
-            return response.getStatusCode().is2xxSuccessful();
+            return client.exists(documentPath(documentId, userId));
         } catch (Exception e) {
             return false;
         }
@@ -126,7 +225,15 @@ public class SupabaseStorageService implements DocumentStorageService {
 
     @Override
     public Optional<String> getStoragePath(UUID documentId, UUID userId) {
-        String path = userId.toString() + "/" + documentId.toString() + ".pdf";
-        return Optional.of(path);
+        return Optional.of(documentPath(documentId, userId));
+    }
+
+    private static String documentPath(UUID documentId, UUID userId) {
+        return userId.toString() + "/" + documentId.toString() + ".pdf";
+    }
+
+    private InputStream openObject(String path, long offset) throws IOException {
+        return client.download(path, offset)
+                .orElseThrow(() -> new IOException("Supabase object " + path + " is missing"));
     }
 }
@@ -0,0 +1,547 @@
+package com.signer.signer_api.services.upload;
+
+import com.signer.signer_api.models.dto.signature.SignatureRequestDto;
+import com.signer.signer_api.models.dto.upload.UploadSessionDto;
+import com.signer.signer_api.models.dto.upload.UploadSessionRequestDto;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpoolException;
+import com.signer.signer_api.services.spool.SpoolLimitExceededException;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import com.signer.signer_api.services.spool.SpooledRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Resumable uploads for documents too large to send in one request.
+ * <p>
+ * Chunks may arrive in any order and in parallel. Each is streamed to a temporary file and checked against
+ * its SHA-256, then copied into its slot of the document file, which is sized when the upload is opened. A
+ * rejected chunk never reaches the document, a re-sent chunk replaces the previous copy whole, and two copies
+ * of one chunk sent at once never interleave. Only the chunks in flight take disk space beyond the document
+ * itself. A client resumes by sending whatever {@code missingChunks} lists. The signing
+ * pipeline then reads it in place by {@code uploadId}; the upload is consumed only once the signed
+ * document is stored, so a failed signing can be retried with the same upload. Sessions live on the
+ * node that created them and expire after {@code ttl-minutes} without activity.
+ */
+@Slf4j
+@Service
+public class UploadSessionService {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final String SESSION_SUFFIX = ".upload";
+    private static final String DOCUMENT_FILE = "document.pdf";
+    private static final int SLOT_LOCK_STRIPES = 64;
+
+    private final PdfSpoolService pdfSpoolService;
+
+    @Value("${app.signing.uploads.path:./uploads/upload-sessions}")
+    private String uploadPath;
+
+    @Value("${app.signing.uploads.default-chunk-bytes:8388608}")
+    private int defaultChunkBytes;
+
+    @Value("${app.signing.uploads.max-chunk-bytes:33554432}")
+    private int maxChunkBytes;
+
+    @Value("${app.signing.uploads.max-per-user:4}")
+    private int maxPerUser;
+
+    @Value("${app.signing.uploads.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${app.signing.spool.max-bytes:268435456}")
+    private long maxBytes;
+
+    private Path uploadDir;
+
+    private final Map<UUID, Session> sessions = new ConcurrentHashMap<>();
+    /**
+     * Open sessions per user, reserved before a session is created so the limit holds under concurrent creates.
+     */
+    private final Map<String, Integer> openByUser = new ConcurrentHashMap<>();
+
+    private static final class Session {
+        final UUID id;
+        final String username;
+        final long size;
+        final int chunkSize;
+        final int chunkCount;
+        final byte[] sha256;
+        final Path dir;
+        final BitSet received;
+        /**
+         * Serialise copies into the same slot of the document; chunk {@code i} takes stripe {@code i % SLOT_LOCK_STRIPES}.
+         */
+        final Object[] slotLocks = new Object[SLOT_LOCK_STRIPES];
+        /**
+         * Chunk writes hold the read lock, so they run in parallel; commit, signing, abort and expiry hold
+         * the write lock.
+         */
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        volatile boolean committed;
+        /**
+         * Set while a signing request reads the committed document.
+         */
+        volatile boolean inUse;
+        volatile LocalDateTime expiresAt;
+
+        Session(UUID id, String username, long size, int chunkSize, byte[] sha256, Path dir) {
+            this.id = id;
+            this.username = username;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+            this.sha256 = sha256;
+            this.dir = dir;
+            this.received = new BitSet(chunkCount);
+            for (int i = 0; i < slotLocks.length; i++) {
+                slotLocks[i] = new Object();
+            }
+        }
+
+        Path document() {
+            return dir.resolve(DOCUMENT_FILE);
+        }
+
+        List<Integer> missingChunks() {
+            List<Integer> missing = new ArrayList<>();
+            synchronized (received) {
+                for (int i = received.nextClearBit(0); i < chunkCount; i = received.nextClearBit(i + 1)) {
+                    missing.add(i);
+                }
+            }
+            return missing;
+        }
+    }
+
+    public UploadSessionService(PdfSpoolService pdfSpoolService) {
+        this.pdfSpoolService = pdfSpoolService;
+    }
+
+    @PostConstruct
+    public void init() {
+        uploadDir = Paths.get(uploadPath);
+        try {
+            Files.createDirectories(uploadDir);
+            // Sessions are held in memory, so uploads left by a previous run can no longer be completed
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(uploadDir, "*" + SESSION_SUFFIX)) {
+                for (Path leftover : leftovers) {
+                    deleteRecursively(leftover);
+                }
+            }
+        } catch (IOException e) {
+            throw new SpoolException("Failed to create upload directory", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sessions.values().forEach(this::discard);
+    }
+
+    /**
+     * Opens an upload session.
+     */
+    public UploadSessionDto create(String username, UploadSessionRequestDto request) throws IOException {
+        if (request.sizeBytes() <= 0) {
+            throw new IllegalArgumentException("sizeBytes must be positive");
+        }
+        if (request.sizeBytes() > maxBytes) {
+            throw new SpoolLimitExceededException(maxBytes);
+        }
+        int chunkSize = request.chunkSizeBytes() != null ? request.chunkSizeBytes() : defaultChunkBytes;
+        if (chunkSize <= 0 || chunkSize > maxChunkBytes) {
+            throw new IllegalArgumentException("chunkSizeBytes must be between 1 and " + maxChunkBytes);
+        }
+        if ((request.sizeBytes() + chunkSize - 1) / chunkSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("chunkSizeBytes is too small for a document of this size");
+        }
+        byte[] sha256 = request.sha256() != null ? parseDigest(request.sha256()) : null;
+        openByUser.compute(username, (user, open) -> {
+            if (open != null && open >= maxPerUser) {
+                throw new IllegalStateException("Too many open uploads; commit or cancel one first");
+            }
+            return open == null ? 1 : open + 1;
+        });
+
+        UUID id = UUID.randomUUID();
+        Path dir = uploadDir.resolve(id + SESSION_SUFFIX);
+        Session session;
+        try {
+            Files.createDirectory(dir);
+            session = new Session(id, username, request.sizeBytes(), chunkSize, sha256, dir);
+            // Sized up front, so every chunk can be written at its offset as it arrives
+            try (RandomAccessFile document = new RandomAccessFile(session.document().toFile(), "rw")) {
+                document.setLength(session.size);
+            }
+        } catch (IOException | RuntimeException e) {
+            releaseSlot(username);
+            try {
+                deleteRecursively(dir);
+            } catch (IOException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+        session.expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        sessions.put(id, session);
+        log.info("Opened upload {} for user {}: {} bytes in {} chunks", id, username, session.size, session.chunkCount);
+        return toDto(session);
+    }
+
+    public Optional<UploadSessionDto> find(UUID uploadId, String username) {
+        return session(uploadId, username).map(this::toDto);
+    }
+
+    /**
+     * Streams one chunk to a temporary file, verifies it against the hex SHA-256 the client sent and copies
+     * it into the document at {@code index * chunkSize}, replacing any earlier copy of the chunk.
+     *
+     * @return the updated session, or empty if there is no such upload
+     */
+    public Optional<UploadSessionDto> writeChunk(UUID uploadId, String username, int index, InputStream body,
+                                                 String sha256) throws IOException {
+        if (sha256 == null || sha256.isBlank()) {
+            throw new IllegalArgumentException("Chunk checksum is required");
+        }
+        byte[] expectedDigest = parseDigest(sha256);
+        Optional<Session> found = session(uploadId, username);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        Session session = found.get();
+        if (index < 0 || index >= session.chunkCount) {
+            throw new IllegalArgumentException("Chunk index must be between 0 and " + (session.chunkCount - 1));
+        }
+
+        long length = Math.min(session.chunkSize, session.size - (long) index * session.chunkSize);
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER_BYTES];
+
+        session.lock.readLock().lock();
+        try {
+            if (session.committed) {
+                throw new IllegalStateException("Upload is already committed");
+            }
+            Path temp = Files.createTempFile(session.dir, "chunk-" + index + "-", ".part");
+            try {
+                long written = 0;
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    int n;
+                    // Read one byte past the chunk's end so an oversized chunk is caught without draining it
+                    while ((n = body.read(buffer, 0, (int) Math.min(buffer.length, length - written + 1))) != -1) {
+                        if (written + n > length) {
+                            throw new IllegalArgumentException("Chunk " + index + " is longer than " + length + " bytes");
+                        }
+                        digest.update(buffer, 0, n);
+                        out.write(buffer, 0, n);
+                        written += n;
+                    }
+                }
+                if (written != length) {
+                    throw new IllegalArgumentException("Chunk " + index + " has " + written
+                            + " bytes, expected " + length);
+                }
+                if (!MessageDigest.isEqual(digest.digest(), expectedDigest)) {
+                    throw new IllegalArgumentException("Checksum mismatch for chunk " + index);
+                }
+                writeSlot(session, index, temp, length);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            synchronized (session.received) {
+                session.received.set(index);
+            }
+            session.expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        } finally {
+            session.lock.readLock().unlock();
+        }
+        return Optional.of(toDto(session));
+    }
+
+    /**
+     * Seals a fully received upload, checking the whole-document SHA-256 if one was given when it was opened.
+     * On a mismatch every chunk is marked missing again, as there is no telling which one was wrong.
+     *
+     * @return the committed session, or empty if there is no such upload
+     */
+    public Optional<UploadSessionDto> commit(UUID uploadId, String username) throws IOException {
+        Optional<Session> found = session(uploadId, username);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        Session session = found.get();
+        session.lock.writeLock().lock();
+        try {
+            if (session.committed) {
+                return Optional.of(toDto(session));
+            }
+            int missing = session.missingChunks().size();
+            if (missing > 0) {
+                throw new IllegalStateException(missing + " of " + session.chunkCount + " chunks have not been received");
+            }
+            if (session.sha256 != null && !MessageDigest.isEqual(digest(session.document()), session.sha256)) {
+                synchronized (session.received) {
+                    session.received.clear();
+                }
+                throw new IllegalArgumentException("Uploaded document does not match its SHA-256");
+            }
+            session.committed = true;
+            session.expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        } finally {
+            session.lock.writeLock().unlock();
+        }
+        log.info("Committed upload {} for user {}", uploadId, username);
+        return Optional.of(toDto(session));
+    }
+
+    /**
+     * Cancels an upload and deletes its files.
+     *
+     * @throws IllegalStateException if a signing request is reading the upload
+     */
+    public boolean abort(UUID uploadId, String username) {
+        Optional<Session> found = session(uploadId, username);
+        if (found.isEmpty()) {
+            return false;
+        }
+        Session session = found.get();
+        session.lock.writeLock().lock();
+        try {
+            if (session.inUse) {
+                throw new IllegalStateException("Upload is being signed");
+            }
+            if (!remove(session)) {
+                return false;
+            }
+            discard(session);
+        } finally {
+            session.lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Opens a committed upload for signing, in place. The upload stays open until {@link #consume} is called;
+     * closing the returned spool without it leaves the upload to be signed again.
+     */
+    public SpooledPdf open(UUID uploadId, String username) {
+        Session session = session(uploadId, username)
+                .orElseThrow(() -> new SpoolException("Upload " + uploadId + " not found"));
+        session.lock.writeLock().lock();
+        try {
+            if (sessions.get(uploadId) != session) {
+                throw new SpoolException("Upload " + uploadId + " not found");
+            }
+            if (!session.committed) {
+                throw new SpoolException("Upload " + uploadId + " has not been committed");
+            }
+            if (session.inUse) {
+                throw new SpoolException("Upload " + uploadId + " is already being signed");
+            }
+            SpooledPdf document = pdfSpoolService.borrow(session.document(), () -> handBack(session));
+            session.inUse = true;
+            return document;
+        } catch (IOException e) {
+            throw new SpoolException("Failed to read upload " + uploadId, e);
+        } finally {
+            session.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The document of a JSON signing request: the inline base64 one if it had one, otherwise its committed upload.
+     */
+    public SpooledPdf documentOf(SpooledRequest<SignatureRequestDto> spooled, String username) {
+        UUID uploadId = spooled.request().uploadId();
+        if (spooled.document() != null) {
+            if (uploadId != null) {
+                throw new SpoolException("Request must carry either 'base64Pdf' or 'uploadId', not both");
+            }
+            return spooled.document();
+        }
+        if (uploadId == null) {
+            throw new SpoolException("Request is missing the 'base64Pdf' or 'uploadId' field");
+        }
+        return open(uploadId, username);
+    }
+
+    /**
+     * Consumes the upload a signing request was made from, once its signed document is stored, and deletes its
+     * files. Does nothing for a request that carried its document inline.
+     */
+    public void consume(SpooledRequest<SignatureRequestDto> spooled, String username) {
+        UUID uploadId = spooled.request().uploadId();
+        if (spooled.document() != null || uploadId == null) {
+            return;
+        }
+        session(uploadId, username).filter(this::remove).ifPresent(session -> {
+            discard(session);
+            log.info("Consumed upload {} for user {}", uploadId, username);
+        });
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void cleanupExpiredSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        int removed = 0;
+        for (Session session : sessions.values()) {
+            // A session busy with a chunk or a signing request is not idle; it is looked at again next time
+            if (!session.expiresAt.isBefore(now) || !session.lock.writeLock().tryLock()) {
+                continue;
+            }
+            try {
+                if (!session.inUse && remove(session)) {
+                    discard(session);
+                    removed++;
+                }
+            } finally {
+                session.lock.writeLock().unlock();
+            }
+        }
+        if (removed > 0) {
+            log.info("Cleaned up {} expired uploads", removed);
+        }
+    }
+
+    private Optional<Session> session(UUID uploadId, String username) {
+        Session session = sessions.get(uploadId);
+        return session != null && session.username.equals(username) ? Optional.of(session) : Optional.empty();
+    }
+
+    /**
+     * Removes a session from the open ones and frees its slot in the per-user limit.
+     */
+    private boolean remove(Session session) {
+        if (!sessions.remove(session.id, session)) {
+            return false;
+        }
+        releaseSlot(session.username);
+        return true;
+    }
+
+    private void releaseSlot(String username) {
+        openByUser.computeIfPresent(username, (user, open) -> open > 1 ? open - 1 : null);
+    }
+
+    /**
+     * Called when a spool opened by {@link #open} is closed, consumed or not.
+     */
+    private void handBack(Session session) {
+        session.lock.writeLock().lock();
+        try {
+            session.inUse = false;
+            session.expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        } finally {
+            session.lock.writeLock().unlock();
+        }
+    }
+
+    private void discard(Session session) {
+        session.lock.writeLock().lock();
+        try {
+            deleteRecursively(session.dir);
+        } catch (IOException e) {
+            log.warn("Failed to delete upload directory {}: {}", session.dir, e.getMessage());
+        } finally {
+            session.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Copies a verified chunk into its slot of the document.
+     */
+    private static void writeSlot(Session session, int index, Path chunk, long length) throws IOException {
+        long offset = (long) index * session.chunkSize;
+        try (FileChannel source = FileChannel.open(chunk, StandardOpenOption.READ);
+             FileChannel document = FileChannel.open(session.document(), StandardOpenOption.WRITE)) {
+            synchronized (session.slotLocks[index % session.slotLocks.length]) {
+                long copied = 0;
+                while (copied < length) {
+                    copied += document.transferFrom(source, offset + copied, length - copied);
+                }
+            }
+        }
+    }
+
+    private static byte[] digest(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER_BYTES];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } else {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private UploadSessionDto toDto(Session session) {
+        return new UploadSessionDto(
+                session.id,
+                session.size,
+                session.chunkSize,
+                session.chunkCount,
+                session.committed ? List.of() : session.missingChunks(),
+                session.committed,
+                session.expiresAt
+        );
+    }
+
+    private static byte[] parseDigest(String hex) {
+        byte[] digest = HexFormat.of().parseHex(hex.trim());
+        if (digest.length != 32) {
+            throw new IllegalArgumentException("SHA-256 must be 64 hex characters");
+        }
+        return digest;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.signer.signer_api.services.verification;
+
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.kernel.pdf.PdfDate;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.ReaderProperties;
+import com.itextpdf.kernel.pdf.PdfString;
+import com.itextpdf.signatures.CertificateVerification;
+import com.itextpdf.signatures.PdfPKCS7;
+import com.itextpdf.signatures.PdfSignature;
+import com.itextpdf.signatures.SignatureUtil;
+import com.itextpdf.signatures.VerificationException;
+import com.signer.signer_api.models.dto.verification.SignatureVerificationDto;
+import com.signer.signer_api.models.dto.verification.VerificationReportDto;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import com.signer.signer_api.utils.RootCAManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Verifies every signature in a PDF against the Root CA.
+ * <p>
+ * The signature dictionaries are read from the document once; each signature's ByteRange digest,
+ * CMS check and chain validation then run as an independent task on a fork-join pool, reading the
+ * signed ranges straight from the spool. A contract with many signatures takes about as long as its
+ * slowest signature.
+ * <p>
+ * Results are cached by document hash, and per signature by the hash of the revision it signs, so a
+ * document that appends revisions to one seen before only has its new signatures checked.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SignatureVerificationService {
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final RootCAManager rootCAManager;
+    private final VerificationResultCache resultCache;
+
+    @Value("${app.verification.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool verificationPool;
+    private X509Certificate trustAnchor;
+    private KeyStore trustAnchors;
+
+    /**
+     * What is needed to verify one signature without touching the {@link PdfDocument}, which is not thread-safe.
+     */
+    private record SignatureData(String fieldName, int revision, boolean coversWholeDocument, PdfName subFilter,
+                                 byte[] contents, byte[] certificate, long[] byteRange, String name,
+                                 String date, String reason, String location) {
+
+        /**
+         * @return the length of the revision this signature signs, or -1 without a usable ByteRange
+         */
+        long revisionEnd() {
+            if (byteRange == null || byteRange.length < 2) {
+                return -1;
+            }
+            return byteRange[byteRange.length - 2] + byteRange[byteRange.length - 1];
+        }
+    }
+
+    @PostConstruct
+    public void init() throws GeneralSecurityException, IOException {
+        verificationPool = new ForkJoinPool(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        currentTrustAnchors();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        verificationPool.shutdownNow();
+    }
+
+    /**
+     * Verifies all signatures in the document.
+     *
+     * @throws IllegalArgumentException if the document cannot be read as a PDF
+     */
+    public VerificationReportDto verify(SpooledPdf pdf) throws IOException {
+        long start = System.currentTimeMillis();
+        KeyStore anchors = currentTrustAnchors();
+        String sha256 = prefixHashes(pdf, List.of(pdf.size())).get(pdf.size());
+
+        VerificationReportDto cachedReport = resultCache.getReport(sha256);
+        if (cachedReport != null) {
+            log.info("Verification report for {} served from cache", sha256);
+            return new VerificationReportDto(sha256, cachedReport.sizeBytes(), cachedReport.totalRevisions(),
+                    cachedReport.signatureCount(), cachedReport.valid(), cachedReport.signatures(),
+                    System.currentTimeMillis() - start, true);
+        }
+
+        List<SignatureData> signatures = new ArrayList<>();
+        int totalRevisions;
+        try (PdfDocument document = new PdfDocument(openReader(pdf))) {
+            SignatureUtil signatureUtil = new SignatureUtil(document);
+            totalRevisions = signatureUtil.getTotalRevisions();
+            for (String name : signatureUtil.getSignatureNames()) {
+                signatures.add(readSignature(signatureUtil, name));
+            }
+        } catch (com.itextpdf.kernel.exceptions.PdfException | com.itextpdf.io.exceptions.IOException e) {
+            throw new IllegalArgumentException("Document is not a readable PDF: " + e.getMessage(), e);
+        }
+
+        // Earlier revisions are identified by the hash of their bytes; only unseen ones are verified
+        Map<Long, String> revisionHashes = prefixHashes(pdf, signatures.stream()
+                .map(SignatureData::revisionEnd)
+                .filter(end -> end > 0 && end < pdf.size())
+                .toList());
+        revisionHashes.put(pdf.size(), sha256);
+
+        List<SignatureVerificationDto> results = new ArrayList<>();
+        Map<SignatureData, ForkJoinTask<SignatureVerificationDto>> tasks = new LinkedHashMap<>();
+        for (SignatureData signature : signatures) {
+            String revisionHash = revisionHashes.get(signature.revisionEnd());
+            SignatureVerificationDto cached = revisionHash != null
+                    ? resultCache.getSignature(revisionHash, signature.fieldName())
+                    : null;
+            if (cached != null) {
+                results.add(reused(cached, signature.coversWholeDocument()));
+            } else {
+                tasks.put(signature, verificationPool.submit(() -> verifySignature(pdf, signature, anchors)));
+            }
+        }
+        tasks.forEach((signature, task) -> {
+            SignatureVerificationDto result = task.join();
+            String revisionHash = revisionHashes.get(signature.revisionEnd());
+            if (revisionHash != null) {
+                resultCache.putSignature(revisionHash, result);
+            }
+            results.add(result);
+        });
+        results.sort(Comparator.comparingInt(SignatureVerificationDto::revision));
+
+        boolean valid = !results.isEmpty()
+                && results.stream().allMatch(r -> r.integrityValid() && r.certificateChainValid())
+                && results.get(results.size() - 1).coversWholeDocument();
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Verified {} signatures ({} reused) in {} ms (valid: {})",
+                results.size(), results.size() - tasks.size(), elapsed, valid);
+        VerificationReportDto report = new VerificationReportDto(sha256, pdf.size(), totalRevisions, results.size(),
+                valid, results, elapsed, false);
+        resultCache.putReport(sha256, report);
+        return report;
+    }
+
+    /**
+     * Opens a spool file memory-mapped, as the signer does for large documents, so only the xref and the
+     * signature dictionaries are read rather than the whole document.
+     */
+    private static PdfReader openReader(SpooledPdf pdf) throws IOException {
+        if (pdf.isOnDisk()) {
+            return new PdfReader(pdf.file().orElseThrow().toFile());
+        }
+        return new PdfReader(new RandomAccessSourceFactory().createSource(pdf.toByteArray()), new ReaderProperties());
+    }
+
+    /**
+     * Returns the key store holding the current Root CA certificate. If the root has changed since the
+     * last call, every cached result was validated against the old one and is dropped.
+     */
+    private synchronized KeyStore currentTrustAnchors() {
+        X509Certificate rootCertificate = rootCAManager.getRootCertificate();
+        if (rootCertificate.equals(trustAnchor)) {
+            return trustAnchors;
+        }
+        try {
+            KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+            keyStore.load(null, null);
+            keyStore.setCertificateEntry("root", rootCertificate);
+            if (trustAnchor != null) {
+                log.info("Root CA certificate changed, discarding cached verification results");
+                resultCache.clear();
+            }
+            trustAnchor = rootCertificate;
+            trustAnchors = keyStore;
+            return keyStore;
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Failed to load the Root CA as a trust anchor", e);
+        }
+    }
+
+    private static SignatureVerificationDto reused(SignatureVerificationDto result, boolean coversWholeDocument) {
+        return new SignatureVerificationDto(result.fieldName(), result.revision(), coversWholeDocument,
+                result.integrityValid(), result.certificateChainValid(), result.timestamp(), result.signerName(),
+                result.signerSubject(), result.issuerSubject(), result.digestAlgorithm(), result.signingTime(),
+                result.reason(), result.location(), result.problems(), 0, true);
+    }
+
+    private SignatureData readSignature(SignatureUtil signatureUtil, String name) {
+        PdfSignature signature = signatureUtil.getSignature(name);
+        PdfString cert = signature.getCert();
+        PdfString date = signature.getDate();
+        return new SignatureData(
+                name,
+                signatureUtil.getRevision(name),
+                signatureUtil.signatureCoversWholeDocument(name),
+                signature.getSubFilter(),
+                signature.getContents() != null ? signature.getContents().getValueBytes() : null,
+                cert != null ? cert.getValueBytes() : null,
+                signature.getByteRange() != null ? signature.getByteRange().toLongArray() : null,
+                signature.getName(),
+                date != null ? date.toString() : null,
+                signature.getReason(),
+                signature.getLocation()
+        );
+    }
+
+    private SignatureVerificationDto verifySignature(SpooledPdf pdf, SignatureData data, KeyStore anchors) {
+        long start = System.currentTimeMillis();
+        List<String> problems = new ArrayList<>();
+        PdfPKCS7 pkcs7 = null;
+        boolean integrityValid = false;
+        boolean chainValid = false;
+        try {
+            if (data.contents() == null || data.byteRange() == null) {
+                throw new IllegalArgumentException("Signature dictionary has no Contents or ByteRange");
+            }
+            pkcs7 = PdfName.Adbe_x509_rsa_sha1.equals(data.subFilter())
+                    ? new PdfPKCS7(data.contents(), data.certificate(), "BC")
+                    : new PdfPKCS7(data.contents(), data.subFilter(), "BC");
+            // The signer name and time live in the signature dictionary, as in SignatureUtil.readSignatureData
+            pkcs7.setSignName(data.name());
+            if (data.date() != null) {
+                pkcs7.setSignDate(PdfDate.decode(data.date()));
+            }
+            digestByteRange(pdf, data.byteRange(), pkcs7);
+
+            integrityValid = pkcs7.verifySignatureIntegrityAndAuthenticity();
+            if (!integrityValid) {
+                problems.add("Document was modified after signing or the signature value is invalid");
+            }
+            if (pkcs7.isTsp() && !pkcs7.verifyTimestampImprint()) {
+                integrityValid = false;
+                problems.add("Timestamp imprint does not match");
+            }
+
+            Calendar validationDate = pkcs7.getTimeStampDate() != null ? pkcs7.getTimeStampDate()
+                    : pkcs7.getSignDate() != null ? pkcs7.getSignDate() : Calendar.getInstance();
+            List<VerificationException> chainErrors = CertificateVerification.verifyCertificates(
+                    pkcs7.getSignCertificateChain(), anchors, validationDate);
+            chainErrors.forEach(e -> problems.add(e.getMessage()));
+            chainValid = chainErrors.isEmpty();
+        } catch (Exception e) {
+            log.warn("Verification of signature {} failed", data.fieldName(), e);
+            problems.add("Verification failed: " + e.getMessage());
+        }
+
+        X509Certificate signer = pkcs7 != null ? pkcs7.getSigningCertificate() : null;
+        Calendar signDate = pkcs7 != null ? pkcs7.getSignDate() : null;
+        return new SignatureVerificationDto(
+                data.fieldName(),
+                data.revision(),
+                data.coversWholeDocument(),
+                integrityValid,
+                chainValid,
+                pkcs7 != null && pkcs7.isTsp(),
+                pkcs7 != null ? pkcs7.getSignName() : null,
+                signer != null ? signer.getSubjectX500Principal().getName() : null,
+                signer != null ? signer.getIssuerX500Principal().getName() : null,
+                pkcs7 != null ? pkcs7.getDigestAlgorithm() : null,
+                signDate != null ? signDate.toInstant() : null,
+                data.reason(),
+                data.location(),
+                problems,
+                System.currentTimeMillis() - start,
+                false
+        );
+    }
+
+    /**
+     * Feeds the signed ranges into the PKCS#7 digest. Reads use their own positions, so tasks share the spool.
+     */
+    private void digestByteRange(SpooledPdf pdf, long[] byteRange, PdfPKCS7 pkcs7) throws IOException,
+            GeneralSecurityException {
+        if (byteRange.length % 2 != 0) {
+            throw new IllegalArgumentException("ByteRange has an odd number of entries");
+        }
+        for (int i = 0; i < byteRange.length; i += 2) {
+            if (byteRange[i] < 0 || byteRange[i + 1] < 0 || byteRange[i] + byteRange[i + 1] > pdf.size()) {
+                throw new IllegalArgumentException("ByteRange lies outside the document");
+            }
+        }
+
+        byte[] memory = pdf.memory().orElse(null);
+        if (memory != null) {
+            for (int i = 0; i < byteRange.length; i += 2) {
+                pkcs7.update(memory, (int) byteRange[i], (int) byteRange[i + 1]);
+            }
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(pdf.file().orElseThrow(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+            for (int i = 0; i < byteRange.length; i += 2) {
+                long position = byteRange[i];
+                long remaining = byteRange[i + 1];
+                while (remaining > 0) {
+                    buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        throw new IOException("Unexpected end of document");
+                    }
+                    pkcs7.update(buffer.array(), 0, read);
+                    position += read;
+                    remaining -= read;
+                }
+            }
+        }
+    }
+
+    /**
+     * SHA-256 of the first {@code length} bytes of the document for each length, in one pass.
+     * Lengths past the end of the document are left out.
+     */
+    private Map<Long, String> prefixHashes(SpooledPdf pdf, Collection<Long> lengths) throws IOException {
+        Map<Long, String> hashes = new HashMap<>();
+        try (InputStream in = pdf.openStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[READ_BUFFER_BYTES];
+            long position = 0;
+            for (long length : new TreeSet<>(lengths)) {
+                while (position < length) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, length - position));
+                    if (read == -1) {
+                        return hashes;
+                    }
+                    digest.update(buffer, 0, read);
+                    position += read;
+                }
+                hashes.put(length, HexFormat.of().formatHex(((MessageDigest) digest.clone()).digest()));
+            }
+            return hashes;
+        } catch (GeneralSecurityException | CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.signer.signer_api.services.verification;
+
+import com.signer.signer_api.models.dto.verification.SignatureVerificationDto;
+import com.signer.signer_api.models.dto.verification.VerificationReportDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, expiring cache of verification results.
+ * <p>
+ * Whole reports are keyed by the SHA-256 of the document. Single signature results are keyed by the
+ * SHA-256 of the revision they sign (the bytes from the start of the file to the end of their ByteRange)
+ * and the field name, so a document that only appends revisions to an already verified one reuses the
+ * results for its older signatures. Results are only valid for the trust anchor they were computed
+ * against; {@link #clear()} drops them all.
+ */
+@Slf4j
+@Component
+public class VerificationResultCache {
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    @Value("${app.verification.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.verification.cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private final LinkedHashMap<String, Entry<VerificationReportDto>> reports = lruMap();
+    private final LinkedHashMap<String, Entry<SignatureVerificationDto>> signatures = lruMap();
+
+    private <V> LinkedHashMap<String, Entry<V>> lruMap() {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized VerificationReportDto getReport(String documentSha256) {
+        return get(reports, documentSha256);
+    }
+
+    public synchronized void putReport(String documentSha256, VerificationReportDto report) {
+        reports.put(documentSha256, new Entry<>(report, expiry()));
+    }
+
+    public synchronized SignatureVerificationDto getSignature(String revisionSha256, String fieldName) {
+        return get(signatures, revisionSha256 + "/" + fieldName);
+    }
+
+    public synchronized void putSignature(String revisionSha256, SignatureVerificationDto result) {
+        signatures.put(revisionSha256 + "/" + result.fieldName(), new Entry<>(result, expiry()));
+    }
+
+    public synchronized void clear() {
+        log.info("Clearing {} cached verification reports and {} signature results",
+                reports.size(), signatures.size());
+        reports.clear();
+        signatures.clear();
+    }
+
+    public synchronized int size() {
+        return reports.size() + signatures.size();
+    }
+
+    private <V> V get(Map<String, Entry<V>> entries, String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    private long expiry() {
+        return System.currentTimeMillis() + Duration.ofMinutes(ttlMinutes).toMillis();
+    }
+}
@@ -0,0 +1,91 @@
+package com.signer.signer_api.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Builds streaming responses for stored documents.
+ * <p>
+ * A document that is a single local file is handed to the servlet container's sendfile support where
+ * available, so the kernel copies it to the socket without passing through the heap. Everything else
+ * is returned as a {@link Resource}, for which Spring MVC streams the body and answers {@code Range}
+ * requests with {@code 206 Partial Content}.
+ */
+public final class DocumentStreamingUtil {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private DocumentStreamingUtil() {
+    }
+
+    /**
+     * Stored documents are never modified, so the document id identifies the content.
+     */
+    public static String etag(UUID documentId) {
+        return "\"" + documentId + "\"";
+    }
+
+    /**
+     * @param headers response headers, including the ETag used to evaluate {@code If-Range}
+     */
+    public static ResponseEntity<Resource> stream(Resource resource, HttpHeaders headers,
+                                                  HttpServletRequest request) throws IOException {
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (resource.isFile() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            ResponseEntity<Resource> response = sendfile(resource, headers, request);
+            if (response != null) {
+                return response;
+            }
+        }
+        return ResponseEntity.ok().headers(headers).body(resource);
+    }
+
+    /**
+     * @return the response, or null if the request needs the general path (several ranges or an
+     * invalid one, which Spring MVC answers with a multipart body or {@code 416})
+     */
+    private static ResponseEntity<Resource> sendfile(Resource resource, HttpHeaders headers,
+                                                     HttpServletRequest request) throws IOException {
+        long length = resource.contentLength();
+        if (length == 0) {
+            return null;
+        }
+        long start = 0;
+        long end = length - 1;
+        HttpStatus status = HttpStatus.OK;
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(headers.getETag()))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() != 1) {
+                    return null;
+                }
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            status = HttpStatus.PARTIAL_CONTENT;
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        request.setAttribute(SENDFILE_FILENAME, resource.getFile().getCanonicalPath());
+        request.setAttribute(SENDFILE_START, start);
+        request.setAttribute(SENDFILE_END, end + 1);
+        headers.setContentLength(end - start + 1);
+        return ResponseEntity.status(status).headers(headers).build();
+    }
+}
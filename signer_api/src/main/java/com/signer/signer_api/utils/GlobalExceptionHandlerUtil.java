@@ -1,5 +1,7 @@
 package com.signer.signer_api.utils;
 
+import com.signer.signer_api.services.spool.SpoolException;
+import com.signer.signer_api.services.spool.SpoolLimitExceededException;
 import org.apache.catalina.filters.AddDefaultCharsetFilter;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -7,6 +9,7 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandlerUtil {
@@ -40,5 +43,18 @@ public class GlobalExceptionHandlerUtil {
         );
     }
 
+    @ExceptionHandler({SpoolLimitExceededException.class, MaxUploadSizeExceededException.class})
+    public ResponseEntity<ResponseWrapperUtil<Void>> handleDocumentTooLarge(Exception ex) {
+        return new ResponseEntity<>(
+                ResponseWrapperUtil.error(ex.getMessage()), HttpStatus.CONTENT_TOO_LARGE
+        );
+    }
+
+    @ExceptionHandler(SpoolException.class)
+    public ResponseEntity<ResponseWrapperUtil<Void>> handleSpoolException(SpoolException ex) {
+        return new ResponseEntity<>(
+                ResponseWrapperUtil.error(ex.getMessage()), HttpStatus.BAD_REQUEST
+        );
+    }
 
 }
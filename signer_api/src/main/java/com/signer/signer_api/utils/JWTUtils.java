@@ -1,7 +1,12 @@
 package com.signer.signer_api.utils;
 
+import com.signer.signer_api.models.User;
+import com.signer.signer_api.models.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -10,18 +15,33 @@ import java.util.UUID;
 
 @Component
 public class JWTUtils {
+    public static final String USER_ID_CLAIM = "userId";
+    public static final String FULL_NAME_CLAIM = "fullName";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
     @Value("${app.jwt.expiration}")
     private long jwtExpiration;
 
+    // Immutable and thread-safe, so it is built once instead of per token
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        parser = Jwts.parserBuilder().setSigningKey(jwtSecret).build();
+    }
 
-    public String generateToken(String username) {
+    /**
+     * Issues a token carrying the user's id and full name, so requests can be served from the claims alone.
+     */
+    public String generateToken(User user) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
         return Jwts.builder()
-                .setSubject(username)
+                .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId().toString())
+                .claim(FULL_NAME_CLAIM, user.getFullname())
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
                 .signWith(SignatureAlgorithm.HS512, jwtSecret)
@@ -29,15 +49,39 @@ public class JWTUtils {
     }
 
     public String getUsernameFromJWT(String token) {
-        return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+        return parser.parseClaimsJws(token).getBody().getSubject();
     }
     public UUID getUserIdFromJWT(String token) {
-        return UUID.fromString(Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().get("userId").toString());
+        return UUID.fromString(parser.parseClaimsJws(token).getBody().get(USER_ID_CLAIM).toString());
+    }
+
+    /**
+     * Verifies a token once and returns its claims.
+     *
+     * @return the claims, or null if the token is invalid or expired
+     */
+    public Claims parseToken(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (Exception exception) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the principal carried in the claims, or null for a token issued without a user id
+     */
+    public static UserPrincipal toPrincipal(Claims claims) {
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        if (userId == null) {
+            return null;
+        }
+        return new UserPrincipal(UUID.fromString(userId), claims.getSubject(), claims.get(FULL_NAME_CLAIM, String.class));
     }
 
     public boolean validateToken(String authToken) {
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
+            parser.parseClaimsJws(authToken);
             return true;
         } catch (Exception exception) {
             return false;
@@ -1,5 +1,9 @@
 package com.signer.signer_api.utils;
 
+import com.signer.signer_api.models.IssuanceNode;
+import com.signer.signer_api.models.dto.certificate.CertificateIssueRequest;
+import com.signer.signer_api.repo.IssuanceNodeRepo;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.asn1.x500.X500Name;
@@ -11,7 +15,9 @@ import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
 import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -19,14 +25,21 @@ import jakarta.annotation.PostConstruct;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.*;
 import java.security.cert.X509Certificate;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Manages the Root Certificate Authority (CA) for the signing system.
@@ -37,6 +50,8 @@ import java.util.Date;
 @Getter
 public class RootCAManager {
 
+    private static final X500Name ISSUER = new X500Name("CN=Signer App Root CA, O=Signer App, C=IN");
+
     @Value("${app.certificates.root.path:./certs/root_ca.p12}")
     private String rootCAPath;
 
@@ -49,9 +64,29 @@ public class RootCAManager {
     @Value("${app.certificates.root.validity-years:10}")
     private int rootValidityYears;
 
+    // Distinguishes serial numbers issued by different nodes sharing this Root CA; -1 allocates one from the database
+    @Value("${app.certificates.issuance.node-id:-1}")
+    private int nodeId;
+
+    @Value("${app.certificates.issuance.signer-pool-size:0}")
+    private int signerPoolSize;
+
+    @Autowired
+    @Getter(AccessLevel.NONE)
+    private IssuanceNodeRepo issuanceNodeRepo;
+
     private PrivateKey rootPrivateKey;
     private X509Certificate rootCertificate;
 
+    // ContentSigner buffers the data being signed, so each issuance borrows one exclusively
+    @Getter(AccessLevel.NONE)
+    private BlockingQueue<ContentSigner> contentSigners;
+    @Getter(AccessLevel.NONE)
+    private SerialNumberAllocator serialNumbers;
+    @Getter(AccessLevel.NONE)
+    private final JcaX509CertificateConverter certificateConverter = new JcaX509CertificateConverter()
+            .setProvider(BouncyCastleProvider.PROVIDER_NAME);
+
     @PostConstruct
     public void init() {
         if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
@@ -67,6 +102,7 @@ public class RootCAManager {
                 generateRootCA();
                 log.info("Root CA generated and saved to: {}", rootCAPath);
             }
+            initIssuance();
         } catch (Exception e) {
             log.error("Failed to initialize Root CA", e);
             throw new RuntimeException("Root CA initialization failed", e);
@@ -95,7 +131,7 @@ public class RootCAManager {
         KeyPair keyPair = keyGen.generateKeyPair();
 
         // Build certificate
-        X500Name issuer = new X500Name("CN=Signer App Root CA, O=Signer App, C=IN");
+        X500Name issuer = ISSUER;
         BigInteger serial = BigInteger.valueOf(System.currentTimeMillis());
         Date notBefore = new Date();
         Date notAfter = Date.from(Instant.now().plus(rootValidityYears * 365L, ChronoUnit.DAYS));
@@ -135,8 +171,41 @@ public class RootCAManager {
         }
     }
 
+    private void initIssuance() throws OperatorCreationException, UnknownHostException {
+        int poolSize = signerPoolSize > 0 ? signerPoolSize : Runtime.getRuntime().availableProcessors();
+        contentSigners = new ArrayBlockingQueue<>(poolSize);
+        JcaContentSignerBuilder signerBuilder = new JcaContentSignerBuilder(signatureAlgorithm(rootPrivateKey))
+                .setProvider(BouncyCastleProvider.PROVIDER_NAME);
+        for (int i = 0; i < poolSize; i++) {
+            contentSigners.add(signerBuilder.build(rootPrivateKey));
+        }
+
+        int effectiveNodeId = nodeId >= 0 ? nodeId : allocateNodeId();
+        serialNumbers = new SerialNumberAllocator(effectiveNodeId);
+        log.info("Certificate issuance ready with {} signers (node id {})", poolSize, effectiveNodeId);
+    }
+
     /**
-     * Signs a user certificate with the Root CA.
+     * Records this start in the database and takes its id from a sequence, so nodes without a configured
+     * id never share one. The sequence wraps at {@link SerialNumberAllocator#MAX_NODE_ID}; an id reused
+     * that many starts later is still safe, as the serial counter is seeded from the start time.
+     */
+    private int allocateNodeId() throws UnknownHostException {
+        if (issuanceNodeRepo == null) {
+            throw new IllegalStateException("app.certificates.issuance.node-id is not set and there is no database "
+                    + "to allocate one from");
+        }
+        IssuanceNode node = issuanceNodeRepo.save(IssuanceNode.builder()
+                .hostName(InetAddress.getLocalHost().getHostName())
+                .startedAt(LocalDateTime.now())
+                .build());
+        int allocated = (int) (node.getId() % (SerialNumberAllocator.MAX_NODE_ID + 1));
+        log.info("Allocated certificate issuance node id {} from the database", allocated);
+        return allocated;
+    }
+
+    /**
+     * Signs a user certificate with the Root CA. Safe to call concurrently.
      *
      * @param userPublicKey The user's public key
      * @param fullName      The user's full name for the certificate subject
@@ -144,19 +213,41 @@ public class RootCAManager {
      * @return The signed user certificate
      */
     public X509Certificate signUserCertificate(PublicKey userPublicKey, String fullName, int validityHours) throws Exception {
-        X500Name issuer = new X500Name("CN=Signer App Root CA, O=Signer App, C=IN");
-        X500Name subject = new X500Name("CN=" + fullName + ", O=Signer App, C=IN");
-        BigInteger serial = BigInteger.valueOf(System.currentTimeMillis());
-        Date notBefore = new Date();
-        Date notAfter = Date.from(Instant.now().plus(validityHours, ChronoUnit.HOURS));
+        ContentSigner signer = contentSigners.take();
+        try {
+            return issue(signer, new CertificateIssueRequest(userPublicKey, fullName, validityHours));
+        } finally {
+            contentSigners.add(signer);
+        }
+    }
+
+    /**
+     * Signs several user certificates, holding one pooled signer for the whole batch.
+     */
+    public List<X509Certificate> signUserCertificates(List<CertificateIssueRequest> requests) throws Exception {
+        List<X509Certificate> certificates = new ArrayList<>(requests.size());
+        ContentSigner signer = contentSigners.take();
+        try {
+            for (CertificateIssueRequest request : requests) {
+                certificates.add(issue(signer, request));
+            }
+        } finally {
+            contentSigners.add(signer);
+        }
+        return certificates;
+    }
+
+    private X509Certificate issue(ContentSigner signer, CertificateIssueRequest request) throws Exception {
+        X500Name subject = new X500Name("CN=" + request.fullName() + ", O=Signer App, C=IN");
+        Instant now = Instant.now();
 
         X509v3CertificateBuilder certBuilder = new JcaX509v3CertificateBuilder(
-                issuer,
-                serial,
-                notBefore,
-                notAfter,
+                ISSUER,
+                serialNumbers.next(),
+                Date.from(now),
+                Date.from(now.plus(request.validityHours(), ChronoUnit.HOURS)),
                 subject,
-                userPublicKey
+                request.publicKey()
         );
 
         // User certificate is not a CA
@@ -164,12 +255,16 @@ public class RootCAManager {
         certBuilder.addExtension(Extension.keyUsage, true,
                 new KeyUsage(KeyUsage.digitalSignature | KeyUsage.nonRepudiation));
 
-        ContentSigner signer = new JcaContentSignerBuilder("SHA256WithRSA")
-                .setProvider(BouncyCastleProvider.PROVIDER_NAME)
-                .build(rootPrivateKey);
+        return certificateConverter.getCertificate(certBuilder.build(signer));
+    }
 
-        return new JcaX509CertificateConverter()
-                .setProvider(BouncyCastleProvider.PROVIDER_NAME)
-                .getCertificate(certBuilder.build(signer));
+    /**
+     * Certificate signature algorithm for the issuing key. The subject key may use any algorithm.
+     */
+    private static String signatureAlgorithm(PrivateKey issuerKey) {
+        return switch (issuerKey.getAlgorithm()) {
+            case "EC", "ECDSA" -> "SHA256withECDSA";
+            default -> "SHA256WithRSA";
+        };
     }
 }
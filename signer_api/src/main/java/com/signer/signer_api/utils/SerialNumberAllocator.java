@@ -0,0 +1,36 @@
+package com.signer.signer_api.utils;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free allocator of certificate serial numbers.
+ * <p>
+ * A serial is the node id in the high 16 bits above a 64-bit counter. The counter is seeded from
+ * the start time shifted left by 20 bits, so a restarted node starts above anything it could have
+ * issued before (up to about a million certificates per millisecond of uptime), and nodes with
+ * distinct ids never collide. Serials are positive and at most 10 bytes, well within RFC 5280's 20.
+ */
+public class SerialNumberAllocator {
+
+    public static final int MAX_NODE_ID = 0xFFFF;
+
+    private final BigInteger nodePrefix;
+    private final AtomicLong counter;
+
+    public SerialNumberAllocator(int nodeId) {
+        this(nodeId, System.currentTimeMillis());
+    }
+
+    SerialNumberAllocator(int nodeId, long startMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodePrefix = BigInteger.valueOf(nodeId).shiftLeft(64);
+        this.counter = new AtomicLong(startMillis << 20);
+    }
+
+    public BigInteger next() {
+        return nodePrefix.or(BigInteger.valueOf(counter.incrementAndGet()));
+    }
+}
@@ -0,0 +1,189 @@
+package com.signer.signer_api.services;
+
+import com.signer.signer_api.models.SignedDocument;
+import com.signer.signer_api.models.dto.signature.BatchSigningResult;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.repo.DocumentTombstoneRepo;
+import com.signer.signer_api.repo.SignedDocumentRepo;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs batches through real signing and local storage, with the repositories mocked.
+ */
+class BatchSigningServiceTest {
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    @TempDir
+    static Path caDir;
+
+    private static SessionCertificateService sessionCertificateService;
+
+    @TempDir
+    Path spoolDir;
+
+    @TempDir
+    Path storageDir;
+
+    private final SignedDocumentRepo signedDocumentRepo = mock(SignedDocumentRepo.class);
+    private final DocumentTombstoneRepo documentTombstoneRepo = mock(DocumentTombstoneRepo.class);
+    // The row inserts, one list per saveAll call, and the rows deleted again
+    private final List<List<SignedDocument>> inserts = new ArrayList<>();
+    private final List<SignedDocument> deleted = new ArrayList<>();
+
+    private PdfSpoolService spoolService;
+    private BatchSigningService batchSigningService;
+    private SigningContext context;
+
+    @BeforeAll
+    static void createRootCA() {
+        sessionCertificateService = SigningFixtures.sessionCertificateService(SigningFixtures.rootCA(caDir));
+    }
+
+    @BeforeEach
+    void createService() {
+        spoolService = SigningFixtures.spoolService(spoolDir, 1024);
+        SignatureService signatureService = SigningFixtures.signatureService(storageDir, spoolService,
+                sessionCertificateService);
+        SigningFixtures.set(signatureService, "signedDocumentRepo", signedDocumentRepo);
+        SigningFixtures.set(signatureService, "documentTombstoneRepo", documentTombstoneRepo);
+        when(signedDocumentRepo.saveAll(anyList())).thenAnswer(invocation -> {
+            List<SignedDocument> rows = List.copyOf(invocation.getArgument(0));
+            inserts.add(rows);
+            return rows;
+        });
+        doAnswer(invocation -> deleted.add(invocation.getArgument(0)))
+                .when(signedDocumentRepo).delete(any(SignedDocument.class));
+
+        PdfOptimizer optimizer = new PdfOptimizer(spoolService);
+        batchSigningService = new BatchSigningService(signatureService, spoolService, optimizer,
+                signedDocumentRepo, JSON);
+        SigningFixtures.set(batchSigningService, "parallelism", 2);
+        SigningFixtures.set(batchSigningService, "maxDocuments", 100);
+        SigningFixtures.set(batchSigningService, "insertBatchSize", 2);
+        batchSigningService.init();
+        context = SigningFixtures.context(sessionCertificateService, "alice");
+    }
+
+    @AfterEach
+    void stop() {
+        batchSigningService.shutdown();
+    }
+
+    @Test
+    void reportsFailedDocumentAndInsertsTheRestInChunks() throws Exception {
+        List<BatchSigningService.BatchDocument> documents = documents(5);
+        // Swap the third document for one that cannot be read, closing the one it replaces
+        documents.set(2, new BatchSigningService.BatchDocument("broken.pdf",
+                spoolService.spool(new ByteArrayInputStream("not a PDF".getBytes(StandardCharsets.US_ASCII)))))
+                .close();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        batchSigningService.signBatch(context, SigningFixtures.request(1), documents, out);
+
+        List<String> entries = new ArrayList<>();
+        List<BatchSigningResult> results = null;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().equals("manifest.json")) {
+                    results = JSON.readValue(zip.readAllBytes(), new TypeReference<>() {
+                    });
+                } else {
+                    entries.add(entry.getName());
+                }
+            }
+        }
+        assertThat(entries).hasSize(4).doesNotContain("broken_signed.pdf");
+        assertThat(results).filteredOn(result -> !result.success())
+                .extracting(BatchSigningResult::fileName).containsExactly("broken.pdf");
+
+        assertThat(inserts).extracting(List::size).containsExactly(2, 2);
+        assertThat(storedFiles()).hasSize(4);
+        assertThat(deleted).isEmpty();
+        assertThat(spoolFiles()).isEmpty();
+    }
+
+    @Test
+    void removesEverythingStoredWhenTheArchiveCannotBeWritten() throws Exception {
+        List<BatchSigningService.BatchDocument> documents = documents(6);
+
+        // The client goes away while the third document is streamed, after one chunk of rows was inserted
+        assertThatThrownBy(() -> batchSigningService.signBatch(context, SigningFixtures.request(1), documents,
+                new FailingOutputStream(3)))
+                .isInstanceOf(IOException.class);
+
+        assertThat(inserts).extracting(List::size).containsExactly(2);
+        assertThat(deleted).containsExactlyInAnyOrderElementsOf(inserts.get(0));
+        assertThat(storedFiles()).isEmpty();
+        assertThat(spoolFiles()).isEmpty();
+    }
+
+    private List<BatchSigningService.BatchDocument> documents(int count) {
+        List<BatchSigningService.BatchDocument> documents = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            documents.add(new BatchSigningService.BatchDocument("contract-" + i + ".pdf",
+                    spoolService.spool(new ByteArrayInputStream(SigningFixtures.samplePdf(i)))));
+        }
+        return documents;
+    }
+
+    private List<Path> storedFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(storageDir)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    private List<Path> spoolFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            return files.toList();
+        }
+    }
+
+    /**
+     * Fails on the given flush; the batch flushes once per finished entry.
+     */
+    private static final class FailingOutputStream extends ByteArrayOutputStream {
+
+        private final int failingFlush;
+        private int flushes;
+
+        FailingOutputStream(int failingFlush) {
+            this.failingFlush = failingFlush;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (++flushes == failingFlush) {
+                throw new IOException("Connection reset");
+            }
+        }
+    }
+}
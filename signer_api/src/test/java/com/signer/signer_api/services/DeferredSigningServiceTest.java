@@ -0,0 +1,81 @@
+package com.signer.signer_api.services;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.signatures.PdfPKCS7;
+import com.itextpdf.signatures.SignatureUtil;
+import com.signer.signer_api.client.DeferredSigningClient;
+import com.signer.signer_api.models.dto.signature.HashSigningRequestDto;
+import com.signer.signer_api.models.dto.signature.HashSigningResponseDto;
+import com.signer.signer_api.models.dto.signature.SigningCertificateDto;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Hash-only signing end to end: the client prepares the PDF, the server signs the digest and the client
+ * embeds the container.
+ */
+class DeferredSigningServiceTest {
+
+    private static final String FIELD = "Signature1";
+
+    @TempDir
+    static Path caDir;
+
+    private static SigningContext context;
+
+    private final DeferredSigningService service = new DeferredSigningService();
+
+    @BeforeAll
+    static void createSession() {
+        SessionCertificateService sessionCertificateService =
+                SigningFixtures.sessionCertificateService(SigningFixtures.rootCA(caDir));
+        context = SigningFixtures.context(sessionCertificateService, "alice");
+    }
+
+    @Test
+    void signsPreparedDocumentWithoutSeeingIt() throws Exception {
+        SigningCertificateDto certificate = service.describeCertificate(context);
+        ByteArrayOutputStream prepared = new ByteArrayOutputStream();
+        byte[] digest = DeferredSigningClient.prepare(
+                new PdfReader(new ByteArrayInputStream(SigningFixtures.samplePdf(2))), prepared, FIELD, 2,
+                new Rectangle(36, 36, 200, 60), certificate.estimatedContainerSize());
+
+        HashSigningResponseDto response = service.signHash(context,
+                new HashSigningRequestDto(Base64.getEncoder().encodeToString(digest), null));
+        assertThat(response.containerSizeBytes()).isLessThanOrEqualTo(certificate.estimatedContainerSize());
+
+        ByteArrayOutputStream signed = new ByteArrayOutputStream();
+        DeferredSigningClient.embed(new PdfReader(new ByteArrayInputStream(prepared.toByteArray())), signed, FIELD,
+                Base64.getDecoder().decode(response.signatureContainer()));
+
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(signed.toByteArray())))) {
+            SignatureUtil signatures = new SignatureUtil(document);
+            assertThat(signatures.getSignatureNames()).containsExactly(FIELD);
+            assertThat(signatures.signatureCoversWholeDocument(FIELD)).isTrue();
+            PdfPKCS7 pkcs7 = signatures.readSignatureData(FIELD);
+            assertThat(pkcs7.verifySignatureIntegrityAndAuthenticity()).isTrue();
+            assertThat(pkcs7.getSigningCertificate()).isEqualTo(context.session().userCertificate());
+        }
+    }
+
+    @Test
+    void rejectsDigestOfTheWrongLength() {
+        String shortDigest = Base64.getEncoder().encodeToString(new byte[20]);
+
+        assertThatThrownBy(() -> service.signHash(context, new HashSigningRequestDto(shortDigest, "SHA-256")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("does not match SHA-256");
+    }
+}
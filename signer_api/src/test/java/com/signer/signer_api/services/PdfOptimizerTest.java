@@ -0,0 +1,200 @@
+package com.signer.signer_api.services;
+
+import com.itextpdf.forms.PdfAcroForm;
+import com.itextpdf.forms.fields.PdfFormField;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.EncryptionConstants;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfString;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.kernel.xmp.XMPMetaFactory;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.AreaBreak;
+import com.itextpdf.layout.element.Image;
+import com.itextpdf.layout.element.Paragraph;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rewrites and the documents the optimizer leaves alone.
+ */
+class PdfOptimizerTest {
+
+    private static final String PDFA_1B_XMP = """
+            <?xpacket begin="" id="W5M0MpCehiHzreSzNTczkc9d"?>
+            <x:xmpmeta xmlns:x="adobe:ns:meta/">
+              <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+                <rdf:Description rdf:about="" xmlns:pdfaid="http://www.aiim.org/pdfa/ns/id/">
+                  <pdfaid:part>1</pdfaid:part>
+                  <pdfaid:conformance>B</pdfaid:conformance>
+                </rdf:Description>
+              </rdf:RDF>
+            </x:xmpmeta>
+            <?xpacket end="w"?>""";
+
+    @TempDir
+    Path spoolDir;
+
+    private PdfSpoolService spoolService;
+    private PdfOptimizer optimizer;
+
+    @BeforeEach
+    void createOptimizer() throws Exception {
+        spoolService = new PdfSpoolService(JsonMapper.builder().build());
+        set(spoolService, "spoolPath", spoolDir.toString());
+        set(spoolService, "memoryThreshold", 1024);
+        set(spoolService, "maxBytes", 1L << 26);
+        spoolService.init();
+
+        optimizer = new PdfOptimizer(spoolService);
+        set(optimizer, "enabled", true);
+        set(optimizer, "maxBytes", 1L << 26);
+    }
+
+    @Test
+    void mergesDuplicateStreams() throws Exception {
+        byte[] pdf = duplicateImages(new WriterProperties(), document -> {
+        });
+        assertThat(imageCount(pdf)).isEqualTo(3);
+
+        try (SpooledPdf input = spool(pdf); PdfOptimizer.Result result = optimizer.optimize(input)) {
+            assertThat(result.optimized()).isTrue();
+            assertThat(result.originalSizeBytes()).isEqualTo(pdf.length);
+            byte[] optimized = result.document().toByteArray();
+            assertThat(optimized.length).isLessThan(pdf.length);
+            assertThat(imageCount(optimized)).isEqualTo(1);
+            try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(optimized)))) {
+                assertThat(document.getNumberOfPages()).isEqualTo(3);
+            }
+        }
+    }
+
+    @Test
+    void leavesEncryptedDocumentAlone() throws Exception {
+        WriterProperties encrypted = new WriterProperties().setStandardEncryption(null,
+                "owner".getBytes(StandardCharsets.US_ASCII), EncryptionConstants.ALLOW_PRINTING,
+                EncryptionConstants.ENCRYPTION_AES_128);
+        assertUnchanged(duplicateImages(encrypted, document -> {
+        }));
+    }
+
+    @Test
+    void leavesPdfA1DocumentAlone() throws Exception {
+        assertUnchanged(duplicateImages(new WriterProperties(),
+                document -> document.setXmpMetadata(
+                        XMPMetaFactory.parseFromBuffer(PDFA_1B_XMP.getBytes(StandardCharsets.UTF_8)))));
+    }
+
+    @Test
+    void leavesSignedDocumentAlone() throws Exception {
+        assertUnchanged(duplicateImages(new WriterProperties(), document -> {
+            PdfDictionary signature = new PdfDictionary();
+            signature.put(PdfName.Type, PdfName.Sig);
+            signature.put(PdfName.Filter, PdfName.Adobe_PPKLite);
+            signature.put(PdfName.SubFilter, PdfName.Adbe_pkcs7_detached);
+            signature.put(PdfName.Contents, new PdfString(new byte[64]).setHexWriting(true));
+            signature.put(PdfName.ByteRange, new PdfArray(new int[]{0, 100, 228, 100}));
+            PdfFormField field = PdfFormField.createSignature(document, new Rectangle(36, 36, 200, 50));
+            field.setFieldName("Signature1");
+            field.put(PdfName.V, signature);
+            PdfAcroForm.getAcroForm(document, true).addField(field, document.getFirstPage());
+        }));
+    }
+
+    @Test
+    void keepsDocumentTheRewriteDoesNotShrink() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WriterProperties compact = new WriterProperties()
+                .setFullCompressionMode(true)
+                .setCompressionLevel(CompressionConstants.BEST_COMPRESSION);
+        try (Document document = new Document(new PdfDocument(new PdfWriter(out, compact)))) {
+            document.add(new Paragraph("Nothing to merge and nothing left to compress."));
+        }
+
+        assertUnchanged(out.toByteArray());
+    }
+
+    private void assertUnchanged(byte[] pdf) throws IOException {
+        try (SpooledPdf input = spool(pdf); PdfOptimizer.Result result = optimizer.optimize(input)) {
+            assertThat(result.optimized()).isFalse();
+            assertThat(result.document()).isSameAs(input);
+            // The discarded rewrite leaves nothing behind in the spool directory
+            try (Stream<Path> files = Files.list(spoolDir)) {
+                assertThat(files).containsExactlyElementsOf(input.file().stream().toList());
+            }
+        }
+    }
+
+    /**
+     * Three pages that each embed their own copy of the same image.
+     */
+    private static byte[] duplicateImages(WriterProperties properties, Customizer customizer) throws Exception {
+        byte[] pixels = new byte[120 * 120 * 3];
+        new Random(7).nextBytes(pixels);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfDocument pdf = new PdfDocument(new PdfWriter(out, properties));
+        // Pages stay unflushed, so the customizer can still add to them
+        try (Document document = new Document(pdf, PageSize.A4, false)) {
+            for (int page = 1; page <= 3; page++) {
+                if (page > 1) {
+                    document.add(new AreaBreak());
+                }
+                document.add(new Image(ImageDataFactory.create(120, 120, 3, 8, pixels, null)));
+            }
+            customizer.apply(pdf);
+        }
+        return out.toByteArray();
+    }
+
+    private interface Customizer {
+        void apply(PdfDocument document) throws Exception;
+    }
+
+    private static int imageCount(byte[] pdf) throws IOException {
+        int images = 0;
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            for (int i = 1; i < document.getNumberOfPdfObjects(); i++) {
+                if (document.getPdfObject(i) instanceof PdfStream stream
+                        && PdfName.Image.equals(stream.getAsName(PdfName.Subtype))) {
+                    images++;
+                }
+            }
+        }
+        return images;
+    }
+
+    private SpooledPdf spool(byte[] pdf) {
+        return spoolService.spool(new ByteArrayInputStream(pdf));
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
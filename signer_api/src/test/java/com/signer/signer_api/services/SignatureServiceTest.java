@@ -0,0 +1,130 @@
+package com.signer.signer_api.services;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.signatures.SignatureUtil;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Signing from spooled documents and the cleanup after a signing that fails part way.
+ */
+class SignatureServiceTest {
+
+    private static final Path OPEN_FILES = Path.of("/proc/self/fd");
+
+    @TempDir
+    static Path caDir;
+
+    private static SessionCertificateService sessionCertificateService;
+
+    @TempDir
+    Path spoolDir;
+
+    @TempDir
+    Path storageDir;
+
+    private PdfSpoolService spoolService;
+    private SignatureService signatureService;
+    private SigningContext context;
+
+    @BeforeAll
+    static void createRootCA() {
+        sessionCertificateService = SigningFixtures.sessionCertificateService(SigningFixtures.rootCA(caDir));
+    }
+
+    @BeforeEach
+    void createService() {
+        spoolService = SigningFixtures.spoolService(spoolDir, 1024);
+        signatureService = SigningFixtures.signatureService(storageDir, spoolService, sessionCertificateService);
+        context = SigningFixtures.context(sessionCertificateService, "alice");
+    }
+
+    @Test
+    void signsDocumentSpooledToDisk() throws Exception {
+        try (SpooledPdf input = spool(SigningFixtures.samplePdf(2));
+             SpooledPdf signed = signatureService.sign(context, SigningFixtures.request(2), null, input)) {
+            assertThat(input.isOnDisk()).isTrue();
+            try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(signed.toByteArray())))) {
+                SignatureUtil signatures = new SignatureUtil(document);
+                assertThat(signatures.getSignatureNames()).hasSize(1);
+                assertThat(signatures.readSignatureData(signatures.getSignatureNames().get(0)).verifySignatureIntegrityAndAuthenticity())
+                        .isTrue();
+            }
+        }
+    }
+
+    @Test
+    void releasesFilesWhenPlacementFailsInMemory() throws Exception {
+        assertFailedSigningLeavesNothingOpen();
+    }
+
+    @Test
+    void releasesFilesWhenPlacementFailsForLargeDocument() throws Exception {
+        SigningFixtures.set(signatureService, "largeDocumentThreshold", 0L);
+        assertFailedSigningLeavesNothingOpen();
+    }
+
+    private void assertFailedSigningLeavesNothingOpen() throws Exception {
+        try (SpooledPdf input = spool(SigningFixtures.samplePdf(2))) {
+            assertThat(input.isOnDisk()).isTrue();
+
+            assertThatThrownBy(() -> signatureService.sign(context, SigningFixtures.request(5), null, input))
+                    .hasMessageContaining("out of range");
+
+            // Only the input is left, and the spool directory holds no open handle apart from it
+            assertThat(spoolFiles()).containsExactly(input.file().orElseThrow());
+            Path inputFile = input.file().orElseThrow().toRealPath();
+            assertThat(openSpoolFiles()).allMatch(inputFile::equals);
+        }
+        assertThat(openSpoolFiles()).isEmpty();
+    }
+
+    private SpooledPdf spool(byte[] pdf) {
+        return spoolService.spool(new ByteArrayInputStream(pdf));
+    }
+
+    private List<Path> spoolFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            return files.toList();
+        }
+    }
+
+    /**
+     * Files under the spool directory this process still holds a descriptor for.
+     */
+    private List<Path> openSpoolFiles() throws IOException {
+        assumeTrue(Files.isDirectory(OPEN_FILES), "Open file descriptors are only listed on Linux");
+        Path spoolRoot = spoolDir.toRealPath();
+        try (Stream<Path> descriptors = Files.list(OPEN_FILES)) {
+            return descriptors.map(SignatureServiceTest::target)
+                    .filter(target -> target != null && target.startsWith(spoolRoot))
+                    .toList();
+        }
+    }
+
+    private static Path target(Path descriptor) {
+        try {
+            return Files.readSymbolicLink(descriptor);
+        } catch (IOException e) {
+            // Closed between the listing and the read
+            return null;
+        }
+    }
+}
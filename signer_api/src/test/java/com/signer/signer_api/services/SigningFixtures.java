@@ -0,0 +1,143 @@
+package com.signer.signer_api.services;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.AreaBreak;
+import com.itextpdf.layout.element.Paragraph;
+import com.signer.signer_api.models.dto.certificate.CertificateSession;
+import com.signer.signer_api.models.dto.signature.SignatureRequestDto;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.services.keys.SessionKeyGenerator;
+import com.signer.signer_api.services.keys.SessionKeyPairPool;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.storage.LocalFileStorageService;
+import com.signer.signer_api.utils.RootCAManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Builds signing components outside Spring for tests: a root CA, session certificates and a signature
+ * service with local storage and no database.
+ */
+public final class SigningFixtures {
+
+    private SigningFixtures() {
+    }
+
+    /**
+     * Sets a private (usually {@code @Value}) field.
+     */
+    public static void set(Object target, String name, Object value) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot set " + name, e);
+            }
+        }
+        throw new IllegalStateException("No field " + name + " on " + target.getClass().getSimpleName());
+    }
+
+    /**
+     * A root CA generated into {@code dir}.
+     */
+    public static RootCAManager rootCA(Path dir) {
+        RootCAManager rootCAManager = new RootCAManager();
+        set(rootCAManager, "rootCAPath", dir.resolve("root_ca.p12").toString());
+        set(rootCAManager, "rootCAPassword", "test");
+        set(rootCAManager, "rootCAAlias", "TestRootCA");
+        set(rootCAManager, "rootValidityYears", 1);
+        set(rootCAManager, "nodeId", 0);
+        rootCAManager.init();
+        return rootCAManager;
+    }
+
+    public static SessionCertificateService sessionCertificateService(RootCAManager rootCAManager) {
+        SessionKeyGenerator generator = new SessionKeyGenerator();
+        set(generator, "keyAlgorithmName", "EC");
+        set(generator, "rsaKeySize", 2048);
+        set(generator, "ecCurve", "secp256r1");
+        generator.init();
+        SessionKeyPairPool pool = new SessionKeyPairPool(generator, new SimpleMeterRegistry());
+        set(pool, "enabled", false);
+        pool.init();
+        SessionCertificateService service = new SessionCertificateService(rootCAManager, pool);
+        set(service, "sessionValidityHours", 1);
+        return service;
+    }
+
+    public static SigningContext context(SessionCertificateService sessionCertificateService, String username) {
+        CertificateSession session = sessionCertificateService.createSession(username, "Test User");
+        return new SigningContext(UUID.randomUUID(), username, "Test User", session);
+    }
+
+    public static PdfSpoolService spoolService(Path dir, int memoryThreshold) {
+        PdfSpoolService spoolService = new PdfSpoolService(JsonMapper.builder().build());
+        set(spoolService, "spoolPath", dir.toString());
+        set(spoolService, "memoryThreshold", memoryThreshold);
+        set(spoolService, "maxBytes", 1L << 26);
+        spoolService.init();
+        return spoolService;
+    }
+
+    /**
+     * A signature service with local storage under {@code storageDir}, appending to documents by default.
+     */
+    public static SignatureService signatureService(Path storageDir, PdfSpoolService spoolService,
+                                                    SessionCertificateService sessionCertificateService) {
+        LocalFileStorageService storageService = new LocalFileStorageService();
+        set(storageService, "basePath", storageDir.toString());
+        storageService.init();
+
+        SignatureAppearanceTemplates appearanceTemplates = new SignatureAppearanceTemplates();
+        set(appearanceTemplates, "maxEntries", 100);
+        SignatureImageCache imageCache = new SignatureImageCache();
+        set(imageCache, "maxBytes", 1L << 20);
+
+        SignatureService signatureService = new SignatureService();
+        set(signatureService, "sessionCertificateService", sessionCertificateService);
+        set(signatureService, "storageService", storageService);
+        set(signatureService, "pdfSpoolService", spoolService);
+        set(signatureService, "signatureImageCache", imageCache);
+        set(signatureService, "appearanceTemplates", appearanceTemplates);
+        set(signatureService, "largeDocumentThreshold", 32L * 1024 * 1024);
+        set(signatureService, "appendModeByDefault", true);
+        return signatureService;
+    }
+
+    /**
+     * A signature box on {@code page}.
+     */
+    public static SignatureRequestDto request(int page) {
+        return new SignatureRequestDto(page, 36, 36, 200, 60, "#1F3A93", 9, "Helvetica", "#000000",
+                "Director", "Approval", "Mumbai", null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * A text-only PDF with {@code pages} pages.
+     */
+    public static byte[] samplePdf(int pages) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Document document = new Document(new PdfDocument(new PdfWriter(out)))) {
+            for (int page = 1; page <= pages; page++) {
+                if (page > 1) {
+                    document.add(new AreaBreak());
+                }
+                document.add(new Paragraph("Page " + page + ". The parties agree to the terms of this agreement."));
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,141 @@
+package com.signer.signer_api.services;
+
+import com.signer.signer_api.models.SigningJob;
+import com.signer.signer_api.models.SigningJobStatus;
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.repo.SigningJobRepo;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import com.signer.signer_api.services.storage.LocalFileStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Claims, completion and lease recovery of signing jobs, with inputs in local storage and the
+ * row-locking queries of the repository mocked.
+ */
+class SigningJobServiceTest {
+
+    private static final String WORKER = "node-a-1";
+
+    @TempDir
+    Path storageDir;
+
+    @TempDir
+    Path spoolDir;
+
+    private final SigningJobRepo signingJobRepo = mock(SigningJobRepo.class);
+    private final SigningContext context = new SigningContext(UUID.randomUUID(), "alice", "Alice", null);
+
+    private LocalFileStorageService storageService;
+    private PdfSpoolService spoolService;
+    private SigningJobService service;
+
+    @BeforeEach
+    void createService() {
+        storageService = new LocalFileStorageService();
+        SigningFixtures.set(storageService, "basePath", storageDir.toString());
+        storageService.init();
+        spoolService = SigningFixtures.spoolService(spoolDir, 1024);
+
+        service = new SigningJobService(signingJobRepo, storageService, JsonMapper.builder().build());
+        SigningFixtures.set(service, "leaseSeconds", 300L);
+        SigningFixtures.set(service, "maxAttempts", 2);
+        SigningFixtures.set(service, "queuedTtlMinutes", 60L);
+        when(signingJobRepo.save(any(SigningJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void claimedJobCompletesAndReleasesItsInput() throws Exception {
+        byte[] content = content(5000);
+        SigningJob job = submit(content);
+        when(signingJobRepo.lockQueued(anyCollection(), anyInt())).thenReturn(List.of(job));
+
+        List<SigningJob> claimed = service.claim(Set.of("alice"), 2, WORKER);
+
+        assertThat(claimed).containsExactly(job);
+        assertThat(job.getStatus()).isEqualTo(SigningJobStatus.RUNNING);
+        assertThat(job.getWorkerId()).isEqualTo(WORKER);
+        assertThat(job.getAttempts()).isEqualTo(1);
+        assertThat(job.getLeaseExpiresAt()).isAfter(LocalDateTime.now().plusSeconds(290));
+        try (InputStream in = service.openInput(job)) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+
+        UUID documentId = UUID.randomUUID();
+        when(signingJobRepo.complete(eq(job.getId()), eq(WORKER), eq(SigningJobStatus.RUNNING),
+                eq(SigningJobStatus.SUCCEEDED), eq(documentId), isNull(), any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        assertThat(service.complete(job, WORKER, documentId, null)).isTrue();
+        assertThat(storageService.exists(job.getId(), job.getUserId())).isFalse();
+    }
+
+    @Test
+    void workerThatLostItsLeaseCannotComplete() throws Exception {
+        SigningJob job = submit(content(1000));
+        when(signingJobRepo.lockQueued(anyCollection(), anyInt())).thenReturn(List.of(job));
+        service.claim(Set.of("alice"), 1, WORKER);
+
+        // The conditional update matches no row once another worker holds the job
+        assertThat(service.complete(job, WORKER, UUID.randomUUID(), null)).isFalse();
+        assertThat(storageService.exists(job.getId(), job.getUserId())).isTrue();
+    }
+
+    @Test
+    void expiredLeaseRequeuesJobUntilItRunsOutOfAttempts() throws Exception {
+        SigningJob job = submit(content(1000));
+        when(signingJobRepo.lockQueued(anyCollection(), anyInt())).thenReturn(List.of(job));
+        when(signingJobRepo.lockExpiredLeases(any(LocalDateTime.class))).thenReturn(List.of(job));
+
+        service.claim(Set.of("alice"), 1, WORKER);
+        service.recoverExpiredLeases();
+
+        assertThat(job.getStatus()).isEqualTo(SigningJobStatus.QUEUED);
+        assertThat(job.getWorkerId()).isNull();
+        assertThat(job.getLeaseExpiresAt()).isNull();
+        assertThat(storageService.exists(job.getId(), job.getUserId())).isTrue();
+
+        // The second claim uses the last attempt
+        service.claim(Set.of("alice"), 1, "node-b-1");
+        service.recoverExpiredLeases();
+
+        assertThat(job.getStatus()).isEqualTo(SigningJobStatus.FAILED);
+        assertThat(job.getAttempts()).isEqualTo(2);
+        assertThat(job.getError()).contains("abandoned after 2 attempts");
+        assertThat(job.getCompletedAt()).isNotNull();
+        assertThat(storageService.exists(job.getId(), job.getUserId())).isFalse();
+    }
+
+    private SigningJob submit(byte[] content) throws Exception {
+        try (SpooledPdf input = spoolService.spool(new ByteArrayInputStream(content))) {
+            return service.submit(context, SigningFixtures.request(1), input, "contract.pdf");
+        }
+    }
+
+    private static byte[] content(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
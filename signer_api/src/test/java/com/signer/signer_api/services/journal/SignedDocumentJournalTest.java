@@ -0,0 +1,205 @@
+package com.signer.signer_api.services.journal;
+
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Appends, replay, torn records and segment deletion of the signed document journal.
+ */
+class SignedDocumentJournalTest {
+
+    @TempDir
+    Path journalDir;
+
+    @TempDir
+    Path spoolDir;
+
+    private PdfSpoolService spoolService;
+    private SignedDocumentJournal journal;
+
+    @BeforeEach
+    void createSpoolService() throws Exception {
+        spoolService = new PdfSpoolService(JsonMapper.builder().build());
+        set(spoolService, "spoolPath", spoolDir.toString());
+        set(spoolService, "memoryThreshold", 1024);
+        set(spoolService, "maxBytes", 1L << 24);
+        spoolService.init();
+    }
+
+    @AfterEach
+    void closeJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void replaysUnacknowledgedDocumentsInOrder() throws Exception {
+        journal = open(1L << 20);
+        SignedDocumentJournal.Entry first = append(content(1000, 1));
+        SignedDocumentJournal.Entry second = append(content(2000, 2));
+        SignedDocumentJournal.Entry third = append(content(3000, 3));
+        journal.acknowledge(second);
+        journal.close();
+
+        journal = open(1L << 20);
+        List<SignedDocumentJournal.Entry> recovered = journal.recover();
+
+        assertThat(recovered).extracting(SignedDocumentJournal.Entry::record)
+                .containsExactly(first.record(), third.record());
+        assertThat(read(recovered.get(0))).isEqualTo(content(1000, 1));
+        assertThat(read(recovered.get(1))).isEqualTo(content(3000, 3));
+        assertThat(journal.recover()).isEmpty();
+    }
+
+    @Test
+    void ignoresTornRecordAtTheEndOfASegment() throws Exception {
+        journal = open(1L << 20);
+        SignedDocumentJournal.Entry kept = append(content(1000, 1));
+        append(content(2000, 2));
+        journal.close();
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Cut the second record off half way through its signed file
+            channel.truncate(kept.contentOffset() + kept.contentLength() + 8 + 500);
+        }
+
+        journal = open(1L << 20);
+
+        assertThat(journal.recover()).extracting(SignedDocumentJournal.Entry::record)
+                .containsExactly(kept.record());
+        // Appends go to a fresh segment, after the torn one
+        SignedDocumentJournal.Entry next = append(content(500, 3));
+        assertThat(next.segment()).isNotEqualTo(segment);
+    }
+
+    @Test
+    void ignoresRecordWithBadChecksum() throws Exception {
+        journal = open(1L << 20);
+        SignedDocumentJournal.Entry first = append(content(1000, 1));
+        SignedDocumentJournal.Entry second = append(content(2000, 2));
+        journal.close();
+        try (FileChannel channel = FileChannel.open(second.segment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x55}), second.contentOffset() + 100);
+        }
+
+        journal = open(1L << 20);
+
+        assertThat(journal.recover()).extracting(SignedDocumentJournal.Entry::record)
+                .containsExactly(first.record());
+    }
+
+    @Test
+    void deletesSegmentsOnlyOnceEveryOlderSegmentIsDrained() throws Exception {
+        // The first two documents fill a segment, the third fills one on its own
+        journal = open(10_000);
+        SignedDocumentJournal.Entry first = append(content(6_000, 1));
+        SignedDocumentJournal.Entry kept = append(content(4_000, 2));
+        SignedDocumentJournal.Entry third = append(content(9_950, 3));
+        assertThat(first.segment()).isEqualTo(kept.segment());
+        assertThat(third.segment()).isNotEqualTo(first.segment());
+
+        // The ack of the first document lands in the second segment
+        journal.acknowledge(first);
+        journal.acknowledge(third);
+        SignedDocumentJournal.Entry fourth = append(content(1_000, 4));
+        assertThat(fourth.segment()).isNotEqualTo(third.segment());
+
+        // The second segment has nothing pending but holds the first document's ack, so it stays
+        assertThat(segments()).containsExactly(first.segment(), third.segment(), fourth.segment());
+        journal.close();
+
+        journal = open(10_000);
+        assertThat(journal.recover()).extracting(SignedDocumentJournal.Entry::record)
+                .containsExactly(kept.record(), fourth.record());
+
+        journal.acknowledge(kept);
+        assertThat(segments()).doesNotContain(first.segment(), third.segment()).contains(fourth.segment());
+    }
+
+    @Test
+    void deadLettersDocumentWithItsMetadata() throws Exception {
+        journal = open(1L << 20);
+        SignedDocumentJournal.Entry entry = append(content(1000, 1));
+
+        Path file = journal.deadLetter(entry, "storage rejected it");
+        journal.close();
+
+        assertThat(Files.readAllBytes(file)).isEqualTo(content(1000, 1));
+        Properties metadata = new Properties();
+        try (InputStream in = Files.newInputStream(
+                journalDir.resolve("dead-letter").resolve(entry.record().documentId() + ".properties"))) {
+            metadata.load(in);
+        }
+        assertThat(metadata.getProperty("userId")).isEqualTo(entry.record().userId().toString());
+        assertThat(metadata.getProperty("reason")).isEqualTo("storage rejected it");
+
+        journal = open(1L << 20);
+        assertThat(journal.recover()).isEmpty();
+    }
+
+    private SignedDocumentJournal open(long segmentBytes) throws ReflectiveOperationException {
+        SignedDocumentJournal opened = new SignedDocumentJournal();
+        set(opened, "journalPath", journalDir.toString());
+        set(opened, "segmentBytes", segmentBytes);
+        opened.init();
+        return opened;
+    }
+
+    private SignedDocumentJournal.Entry append(byte[] content) throws IOException {
+        JournalRecord record = new JournalRecord(UUID.randomUUID(), UUID.randomUUID(), "contract.pdf", 1,
+                "Director", null, "Approval", null, 0, LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS),
+                (long) content.length, (long) content.length);
+        try (SpooledPdf pdf = spoolService.spool(new ByteArrayInputStream(content))) {
+            return journal.append(record, pdf);
+        }
+    }
+
+    private byte[] read(SignedDocumentJournal.Entry entry) throws IOException {
+        try (InputStream in = journal.openContent(entry, 0, entry.contentLength())) {
+            return in.readAllBytes();
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).sorted().toList();
+        }
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,181 @@
+package com.signer.signer_api.services.journal;
+
+import com.signer.signer_api.models.SignedDocument;
+import com.signer.signer_api.repo.DocumentTombstoneRepo;
+import com.signer.signer_api.repo.SignedDocumentRepo;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import com.signer.signer_api.services.storage.DeltaBaseService;
+import com.signer.signer_api.services.storage.DocumentStorageService;
+import com.signer.signer_api.services.storage.StorageException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the write-behind writer against a real journal, with storage and repositories mocked.
+ */
+class WriteBehindDocumentWriterTest {
+
+    @TempDir
+    Path journalDir;
+
+    @TempDir
+    Path spoolDir;
+
+    private final UUID userId = UUID.randomUUID();
+    private final DocumentStorageService storageService = mock(DocumentStorageService.class);
+    private final SignedDocumentRepo signedDocumentRepo = mock(SignedDocumentRepo.class);
+    private final DocumentTombstoneRepo documentTombstoneRepo = mock(DocumentTombstoneRepo.class);
+    private final DeltaBaseService deltaBaseService = mock(DeltaBaseService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch saved = new CountDownLatch(1);
+
+    private PdfSpoolService spoolService;
+    private SignedDocumentJournal journal;
+    private WriteBehindDocumentWriter writer;
+
+    @BeforeEach
+    void createServices() throws Exception {
+        spoolService = new PdfSpoolService(JsonMapper.builder().build());
+        set(spoolService, "spoolPath", spoolDir.toString());
+        set(spoolService, "memoryThreshold", 1024);
+        set(spoolService, "maxBytes", 1L << 24);
+        spoolService.init();
+        journal = openJournal();
+
+        when(storageService.store(any(UUID.class), any(UUID.class), any(InputStream.class), anyLong(), anyString()))
+                .thenReturn("stored.pdf");
+        when(signedDocumentRepo.save(any(SignedDocument.class))).thenAnswer(invocation -> {
+            saved.countDown();
+            return invocation.getArgument(0);
+        });
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        if (writer != null) {
+            writer.shutdown();
+        }
+        journal.close();
+    }
+
+    @Test
+    void deadLettersDocumentThatKeepsFailingAndMovesOn() throws Exception {
+        JournalRecord failing = record();
+        JournalRecord next = record();
+        when(storageService.store(eq(failing.documentId()), any(UUID.class), any(InputStream.class), anyLong(),
+                anyString())).thenThrow(new StorageException("Bucket rejected the upload"));
+        startWriter();
+
+        submit(failing);
+        submit(next);
+
+        assertThat(saved.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(storageService, times(3)).store(eq(failing.documentId()), any(UUID.class), any(InputStream.class),
+                anyLong(), anyString());
+        verify(storageService).delete(failing.documentId(), userId);
+        verify(signedDocumentRepo).save(argThat(document -> document.getId().equals(next.documentId())));
+        assertThat(journalDir.resolve("dead-letter").resolve(failing.documentId() + ".pdf")).exists();
+        assertThat(meterRegistry.counter("signer.journal.dead-letters").count()).isEqualTo(1);
+    }
+
+    @Test
+    void skipsReplayedDocumentDeletedSinceItWasPersisted() throws Exception {
+        JournalRecord deleted = record();
+        JournalRecord next = record();
+        submitToJournal(deleted);
+        journal.close();
+        journal = openJournal();
+        when(documentTombstoneRepo.existsById(deleted.documentId())).thenReturn(true);
+        startWriter();
+
+        submit(next);
+
+        assertThat(saved.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(storageService, never()).store(eq(deleted.documentId()), any(UUID.class), any(InputStream.class),
+                anyLong(), anyString());
+        verify(signedDocumentRepo, never()).save(argThat(document -> document.getId().equals(deleted.documentId())));
+
+        // Acknowledged, so the next start does not replay it again
+        writer.shutdown();
+        writer = null;
+        journal.close();
+        journal = openJournal();
+        assertThat(journal.recover()).extracting(entry -> entry.record().documentId())
+                .doesNotContain(deleted.documentId());
+    }
+
+    private void startWriter() throws ReflectiveOperationException {
+        writer = new WriteBehindDocumentWriter(journal, storageService, signedDocumentRepo, documentTombstoneRepo,
+                deltaBaseService, spoolService, meterRegistry);
+        set(writer, "enabled", true);
+        set(writer, "retryInitialMs", 1L);
+        set(writer, "retryMaxMs", 4L);
+        set(writer, "maxAttempts", 3);
+        writer.init();
+    }
+
+    private SignedDocumentJournal openJournal() throws ReflectiveOperationException {
+        SignedDocumentJournal opened = new SignedDocumentJournal();
+        set(opened, "journalPath", journalDir.toString());
+        set(opened, "segmentBytes", 1L << 20);
+        opened.init();
+        return opened;
+    }
+
+    private JournalRecord record() {
+        return new JournalRecord(UUID.randomUUID(), userId, "contract.pdf", 1, null, null, null, null, 0,
+                LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS), 1000L, 1000L);
+    }
+
+    private void submit(JournalRecord record) throws Exception {
+        try (SpooledPdf pdf = spoolService.spool(new ByteArrayInputStream(content(record)))) {
+            writer.submit(record, pdf);
+        }
+    }
+
+    private void submitToJournal(JournalRecord record) throws Exception {
+        try (SpooledPdf pdf = spoolService.spool(new ByteArrayInputStream(content(record)))) {
+            journal.append(record, pdf);
+        }
+    }
+
+    private static byte[] content(JournalRecord record) {
+        byte[] bytes = new byte[1000];
+        new Random(record.documentId().getMostSignificantBits()).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
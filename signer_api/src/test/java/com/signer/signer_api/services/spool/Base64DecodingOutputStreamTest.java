@@ -0,0 +1,71 @@
+package com.signer.signer_api.services.spool;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Base64DecodingOutputStreamTest {
+
+    @Test
+    void decodesAcrossChunkBoundaries() throws IOException {
+        byte[] data = randomBytes(100_001);
+        String base64 = Base64.getEncoder().encodeToString(data);
+
+        assertThat(decode(base64, 1000)).isEqualTo(data);
+        assertThat(decode(base64, 1)).isEqualTo(data);
+    }
+
+    @Test
+    void skipsDataUrlPrefixAndWhitespace() throws IOException {
+        byte[] data = randomBytes(5000);
+        String base64 = Base64.getMimeEncoder().encodeToString(data);
+
+        assertThat(decode("data:application/pdf;base64," + base64, 3)).isEqualTo(data);
+        assertThat(decode(" \n" + base64 + "\t", 64)).isEqualTo(data);
+    }
+
+    @Test
+    void decodesInputShorterThanThePrefix() throws IOException {
+        assertThat(decode("QQ==", 4)).isEqualTo("A".getBytes(StandardCharsets.US_ASCII));
+        assertThat(decode("", 1)).isEmpty();
+    }
+
+    @Test
+    void decodesInputThatStartsLikeThePrefix() throws IOException {
+        // "dat" followed by more base64 is not a data URL
+        byte[] data = Base64.getDecoder().decode("datA");
+
+        assertThat(decode("datA", 1)).isEqualTo(data);
+    }
+
+    @Test
+    void rejectsInvalidBase64() {
+        assertThatThrownBy(() -> decode("QUJ*RA==", 8))
+                .isInstanceOf(SpoolException.class)
+                .hasMessageContaining("Invalid base64");
+    }
+
+    private static byte[] decode(String base64, int writeSize) throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        byte[] bytes = base64.getBytes(StandardCharsets.US_ASCII);
+        try (Base64DecodingOutputStream out = new Base64DecodingOutputStream(target)) {
+            for (int i = 0; i < bytes.length; i += writeSize) {
+                out.write(bytes, i, Math.min(writeSize, bytes.length - i));
+            }
+        }
+        return target.toByteArray();
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(7).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,187 @@
+package com.signer.signer_api.services.spool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Diverts the base64 field of a JSON body, alone and through {@link PdfSpoolService#spoolJson}.
+ */
+class JsonFieldDivertingInputStreamTest {
+
+    record Body(String name, String base64Pdf, int page) {
+    }
+
+    @TempDir
+    Path spoolDir;
+
+    private PdfSpoolService spoolService;
+
+    @BeforeEach
+    void createSpoolService() throws Exception {
+        spoolService = new PdfSpoolService(JsonMapper.builder().build());
+        set("spoolPath", spoolDir.toString());
+        set("memoryThreshold", 1024);
+        set("maxBytes", 1L << 24);
+        spoolService.init();
+    }
+
+    @AfterEach
+    void spoolIsEmpty() {
+        assertThat(spoolDir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    void divertsFieldAndHandsParserAnEmptyString() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        String json = "{\"name\":\"a\\\"b\",\"base64Pdf\":\"QUJD\",\"page\":2}";
+
+        String parsed = readAll(new JsonFieldDivertingInputStream(stream(json), "base64Pdf", sink));
+
+        assertThat(parsed).isEqualTo("{\"name\":\"a\\\"b\",\"base64Pdf\":\"\",\"page\":2}");
+        assertThat(sink.toString(StandardCharsets.US_ASCII)).isEqualTo("QUJD");
+    }
+
+    @Test
+    void decodesEscapesInTheDivertedField() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        String json = "{\"base64Pdf\":\"ab\\/c\\u002Bd\\u003d\\n\"}";
+
+        JsonFieldDivertingInputStream in = new JsonFieldDivertingInputStream(stream(json), "base64Pdf", sink);
+        readAll(in);
+
+        assertThat(in.isFieldFound()).isTrue();
+        assertThat(sink.toString(StandardCharsets.US_ASCII)).isEqualTo("ab/c+d=\n");
+    }
+
+    @Test
+    void rejectsEscapesThatCannotBeBase64() {
+        assertThatThrownBy(() -> divert("{\"base64Pdf\":\"QU\\\"JD\"}"))
+                .isInstanceOf(SpoolException.class)
+                .hasMessageContaining("Unsupported escape");
+        assertThatThrownBy(() -> divert("{\"base64Pdf\":\"QU\\u00e9JD\"}"))
+                .isInstanceOf(SpoolException.class)
+                .hasMessageContaining("Non-ASCII");
+        assertThatThrownBy(() -> divert("{\"base64Pdf\":\"QU\\u0zz1\"}"))
+                .isInstanceOf(SpoolException.class)
+                .hasMessageContaining("Invalid unicode escape");
+    }
+
+    @Test
+    void ignoresFieldOfTheSameNameInNestedObjects() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        String json = "{\"meta\":{\"base64Pdf\":\"QUJD\"},\"name\":\"x\"}";
+
+        JsonFieldDivertingInputStream in = new JsonFieldDivertingInputStream(stream(json), "base64Pdf", sink);
+
+        assertThat(readAll(in)).isEqualTo(json);
+        assertThat(in.isFieldFound()).isFalse();
+        assertThat(sink.size()).isZero();
+    }
+
+    @Test
+    void spoolsFieldSplitAcrossReadBuffers() {
+        byte[] pdf = randomBytes(50_000);
+        String base64 = Base64.getEncoder().encodeToString(pdf);
+        // Escaped slashes throughout and a unicode escape mid-value, read a few bytes at a time
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < base64.length(); i++) {
+            char c = base64.charAt(i);
+            if (i == 8190) {
+                value.append("\\u00").append(hex(c));
+            } else {
+                value.append(c == '/' ? "\\/" : String.valueOf(c));
+            }
+        }
+        String json = "{\"name\":\"contract\",\"base64Pdf\":\"" + value + "\",\"page\":3}";
+
+        try (SpooledRequest<Body> request = spoolService.spoolJson(trickle(json), Body.class, "base64Pdf")) {
+            assertThat(request.request()).isEqualTo(new Body("contract", "", 3));
+            assertThat(request.document().isOnDisk()).isTrue();
+            assertThat(request.document().toByteArray()).isEqualTo(pdf);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test
+    void rejectsRequestWithoutTheField() {
+        assertThatThrownBy(() -> spoolService.spoolJson(stream("{\"name\":\"x\",\"page\":1}"), Body.class, "base64Pdf"))
+                .isInstanceOf(SpoolException.class)
+                .hasMessageContaining("missing the 'base64Pdf' field");
+    }
+
+    @Test
+    void acceptsRequestWithoutTheFieldWhenOptional() {
+        try (SpooledRequest<Body> request = spoolService.spoolJson(
+                stream("{\"name\":\"x\",\"page\":1}"), Body.class, "base64Pdf", false)) {
+            assertThat(request.document()).isNull();
+            assertThat(request.request().name()).isEqualTo("x");
+        }
+    }
+
+    @Test
+    void discardsSpoolWhenTheFieldIsInvalid() {
+        String json = "{\"base64Pdf\":\"" + "QUJD".repeat(2000) + "\\u00e9\"}";
+
+        assertThatThrownBy(() -> spoolService.spoolJson(stream(json), Body.class, "base64Pdf"))
+                .isInstanceOf(SpoolException.class)
+                .hasMessageContaining("Non-ASCII character in the 'base64Pdf' field");
+    }
+
+    private static void divert(String json) throws IOException {
+        readAll(new JsonFieldDivertingInputStream(stream(json), "base64Pdf", new ByteArrayOutputStream()));
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Hands out at most 7 bytes per read, so escapes and the field name are split across reads.
+     */
+    private static InputStream trickle(String json) {
+        return new FilterInputStream(stream(json)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+    }
+
+    private static String hex(char c) {
+        return String.format("%02x", (int) c);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    private void set(String name, Object value) throws Exception {
+        Field field = PdfSpoolService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(spoolService, value);
+    }
+}
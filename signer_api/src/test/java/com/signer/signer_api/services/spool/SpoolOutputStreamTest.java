@@ -0,0 +1,78 @@
+package com.signer.signer_api.services.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpoolOutputStreamTest {
+
+    @TempDir
+    Path spoolDir;
+
+    @Test
+    void keepsSmallContentInMemory() throws IOException {
+        byte[] data = randomBytes(1000);
+        SpoolOutputStream out = new SpoolOutputStream(spoolDir, 1000, 10_000);
+        out.write(data);
+
+        try (SpooledPdf pdf = out.toSpooledPdf()) {
+            assertThat(pdf.isOnDisk()).isFalse();
+            assertThat(pdf.size()).isEqualTo(1000);
+            assertThat(pdf.toByteArray()).isEqualTo(data);
+        }
+        assertThat(spoolDir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    void spillsToDiskAboveThreshold() throws IOException {
+        byte[] data = randomBytes(5000);
+        SpoolOutputStream out = new SpoolOutputStream(spoolDir, 1000, 10_000);
+        out.write(data, 0, 600);
+        out.write(data[600]);
+        out.write(data, 601, data.length - 601);
+
+        SpooledPdf pdf = out.toSpooledPdf();
+        Path file = pdf.file().orElseThrow();
+        assertThat(pdf.size()).isEqualTo(5000);
+        assertThat(Files.readAllBytes(file)).isEqualTo(data);
+        assertThat(pdf.toByteArray()).isEqualTo(data);
+
+        pdf.close();
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void rejectsContentOverTheLimitAndDeletesTheSpill() throws IOException {
+        SpoolOutputStream out = new SpoolOutputStream(spoolDir, 100, 1000);
+        out.write(randomBytes(900));
+        assertThat(spoolDir.toFile().list()).hasSize(1);
+
+        assertThatThrownBy(() -> out.write(randomBytes(200)))
+                .isInstanceOf(SpoolLimitExceededException.class);
+        assertThat(spoolDir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    void discardDeletesTheSpill() throws IOException {
+        SpoolOutputStream out = new SpoolOutputStream(spoolDir, 100, 1000);
+        out.write(randomBytes(500));
+
+        out.discard();
+
+        assertThat(spoolDir.toFile().list()).isEmpty();
+        assertThatThrownBy(() -> out.write(1)).isInstanceOf(IOException.class);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
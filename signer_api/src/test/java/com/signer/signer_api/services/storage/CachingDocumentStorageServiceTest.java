@@ -0,0 +1,281 @@
+package com.signer.signer_api.services.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the storage cache against an in-memory remote store.
+ */
+class CachingDocumentStorageServiceTest {
+
+    private static final long MAX_BYTES = 3000;
+
+    @TempDir
+    Path cacheDir;
+
+    private final UUID userId = UUID.randomUUID();
+    private InMemoryRemote remote;
+    private SimpleMeterRegistry meterRegistry;
+    private CachingDocumentStorageService cache;
+
+    @BeforeEach
+    void createCache() throws Exception {
+        remote = new InMemoryRemote();
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CachingDocumentStorageService(remote, meterRegistry);
+        set("cachePath", cacheDir.toString());
+        set("maxBytes", MAX_BYTES);
+        cache.init();
+    }
+
+    @Test
+    void concurrentMissesShareOneRemoteLoad() throws Exception {
+        UUID documentId = UUID.randomUUID();
+        byte[] content = content(1000, 1);
+        remote.objects.put(documentId, content);
+        remote.gate = new CountDownLatch(1);
+
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> reads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                reads.add(readers.submit(() -> cache.retrieve(documentId, userId).orElseThrow()));
+            }
+            assertThat(remote.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            // Let the other readers reach the in-flight load before it finishes
+            Thread.sleep(200);
+            remote.gate.countDown();
+            for (Future<byte[]> read : reads) {
+                assertThat(read.get(5, TimeUnit.SECONDS)).isEqualTo(content);
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+
+        assertThat(remote.reads).hasValue(1);
+        assertThat(counter("loads")).isEqualTo(1);
+        assertThat(cachedFile(documentId)).exists();
+    }
+
+    @Test
+    void evictsLeastRecentlyReadDocuments() {
+        UUID first = store(1000, 1);
+        UUID second = store(1000, 2);
+        UUID third = store(1000, 3);
+        cache.retrieve(first, userId);
+
+        UUID fourth = store(1000, 4);
+
+        assertThat(cachedFile(second)).doesNotExist();
+        assertThat(cachedFile(first)).exists();
+        assertThat(cachedFile(third)).exists();
+        assertThat(cachedFile(fourth)).exists();
+        assertThat(counter("evictions")).isEqualTo(1);
+
+        assertThat(cache.retrieve(second, userId)).hasValue(remote.objects.get(second));
+        assertThat(remote.reads).hasValue(1);
+    }
+
+    @Test
+    void keepsEvictedFileUntilItsReaderCloses() throws IOException {
+        UUID documentId = store(1000, 1);
+        byte[] content = remote.objects.get(documentId);
+
+        try (InputStream in = cache.openStream(documentId, userId).orElseThrow()) {
+            assertThat(in.readNBytes(10)).isEqualTo(Arrays.copyOf(content, 10));
+            store(1000, 2);
+            store(1000, 3);
+            store(1000, 4);
+            assertThat(cachedFile(documentId)).exists();
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(content, 10, content.length));
+        }
+
+        assertThat(cachedFile(documentId)).doesNotExist();
+        assertThat(remote.reads).hasValue(0);
+    }
+
+    @Test
+    void keepsDeletedFileUntilItsReaderCloses() throws IOException {
+        UUID documentId = store(1000, 1);
+        byte[] content = remote.objects.get(documentId);
+
+        try (InputStream in = cache.openStream(documentId, userId).orElseThrow()) {
+            cache.delete(documentId, userId);
+            assertThat(cachedFile(documentId)).exists();
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+
+        assertThat(cachedFile(documentId)).doesNotExist();
+    }
+
+    @Test
+    void resourceOpenedAfterEvictionReadsRemote() throws IOException {
+        UUID documentId = store(1000, 1);
+        Resource resource = cache.openResource(documentId, userId).orElseThrow();
+
+        store(1000, 2);
+        store(1000, 3);
+        store(1000, 4);
+
+        assertThat(resource.contentLength()).isEqualTo(1000);
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(remote.objects.get(documentId));
+        }
+        assertThat(remote.reads).hasValue(1);
+    }
+
+    @Test
+    void bypassesDocumentsLargerThanTheCache() throws IOException {
+        UUID small = store(1000, 1);
+        UUID stored = UUID.randomUUID();
+        byte[] storedContent = content(5000, 2);
+        cache.store(stored, userId, new ByteArrayInputStream(storedContent), storedContent.length, "large.pdf");
+        UUID fetched = UUID.randomUUID();
+        remote.objects.put(fetched, content(5000, 3));
+
+        assertThat(cache.retrieve(fetched, userId)).hasValue(remote.objects.get(fetched));
+        assertThat(cache.retrieve(stored, userId)).hasValue(storedContent);
+
+        assertThat(remote.objects.get(stored)).isEqualTo(storedContent);
+        assertThat(cachedFile(stored)).doesNotExist();
+        assertThat(cachedFile(fetched)).doesNotExist();
+        assertThat(cachedFile(small)).exists();
+        assertThat(counter("evictions")).isZero();
+        assertThat(counter("bypasses")).isEqualTo(3);
+    }
+
+    @Test
+    void storeFromStreamWritesThrough() {
+        UUID documentId = UUID.randomUUID();
+        byte[] content = content(1000, 1);
+
+        cache.store(documentId, userId, new ByteArrayInputStream(content), content.length, "document.pdf");
+
+        assertThat(remote.objects.get(documentId)).isEqualTo(content);
+        assertThat(cache.retrieve(documentId, userId)).hasValue(content);
+        assertThat(remote.reads).hasValue(0);
+        assertThat(counter("hits")).isEqualTo(1);
+    }
+
+    private UUID store(int size, long seed) {
+        UUID documentId = UUID.randomUUID();
+        cache.store(documentId, userId, content(size, seed), "document.pdf");
+        return documentId;
+    }
+
+    private Path cachedFile(UUID documentId) {
+        return cacheDir.resolve(userId + "/" + documentId + ".pdf");
+    }
+
+    private double counter(String name) {
+        return meterRegistry.counter("signer.storage.cache." + name).count();
+    }
+
+    private void set(String name, Object value) throws ReflectiveOperationException {
+        Field field = CachingDocumentStorageService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(cache, value);
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Remote storage held in memory. Counts content reads and can hold them at a gate.
+     */
+    private static final class InMemoryRemote extends SupabaseStorageService {
+
+        final Map<UUID, byte[]> objects = new ConcurrentHashMap<>();
+        final AtomicInteger reads = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        volatile CountDownLatch gate;
+
+        InMemoryRemote() {
+            super(new SupabaseStorageClient("http://127.0.0.1:1", "key", "bucket", 1000, 1000, 1, 1 << 20, 1 << 20));
+        }
+
+        @Override
+        public String store(UUID documentId, UUID userId, byte[] content, String fileName) {
+            objects.put(documentId, content.clone());
+            return userId + "/" + documentId + ".pdf";
+        }
+
+        @Override
+        public String store(UUID documentId, UUID userId, InputStream content, long size, String fileName) {
+            try {
+                objects.put(documentId, content.readAllBytes());
+            } catch (IOException e) {
+                throw new StorageException("Failed to read upload", e);
+            }
+            return userId + "/" + documentId + ".pdf";
+        }
+
+        @Override
+        public Optional<Resource> openResource(UUID documentId, UUID userId) {
+            byte[] content = objects.get(documentId);
+            if (content == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new StoredDocumentResource("remote " + documentId, content.length,
+                    () -> read(content)));
+        }
+
+        @Override
+        public Optional<InputStream> openStream(UUID documentId, UUID userId) {
+            byte[] content = objects.get(documentId);
+            return content == null ? Optional.empty() : Optional.of(read(content));
+        }
+
+        @Override
+        public boolean delete(UUID documentId, UUID userId) {
+            return objects.remove(documentId) != null;
+        }
+
+        @Override
+        public boolean exists(UUID documentId, UUID userId) {
+            return objects.containsKey(documentId);
+        }
+
+        private InputStream read(byte[] content) {
+            reads.incrementAndGet();
+            entered.countDown();
+            CountDownLatch waitFor = gate;
+            if (waitFor != null) {
+                try {
+                    waitFor.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new ByteArrayInputStream(content);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.signer.signer_api.services.storage;
+
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Base matching, header parsing and stream joining of the delta format.
+ */
+class DocumentDeltaTest {
+
+    private static final String HASH = "ab".repeat(32);
+
+    @TempDir
+    Path spoolDir;
+
+    private PdfSpoolService spoolService;
+
+    @BeforeEach
+    void createSpoolService() throws Exception {
+        spoolService = new PdfSpoolService(JsonMapper.builder().build());
+        set("spoolPath", spoolDir.toString());
+        set("memoryThreshold", 1024);
+        set("maxBytes", 1L << 24);
+        spoolService.init();
+    }
+
+    @Test
+    void matchesBaseThatSignedFileExtends() throws Exception {
+        byte[] base = random(300_000, 1);
+        byte[] signed = concat(base, random(5_000, 2));
+
+        try (SpooledPdf basePdf = spool(base); SpooledPdf signedPdf = spool(signed)) {
+            assertThat(basePdf.isOnDisk()).isTrue();
+            assertThat(DocumentDelta.matchBase(basePdf, signedPdf)).contains(sha256(base));
+            assertThat(DocumentDelta.appendedBytes(signedPdf, base.length))
+                    .isEqualTo(Arrays.copyOfRange(signed, base.length, signed.length));
+        }
+    }
+
+    @Test
+    void matchesInMemoryBase() throws Exception {
+        byte[] base = random(500, 3);
+        byte[] signed = concat(base, random(100, 4));
+
+        try (SpooledPdf basePdf = spool(base); SpooledPdf signedPdf = spool(signed)) {
+            assertThat(basePdf.isOnDisk()).isFalse();
+            assertThat(DocumentDelta.matchBase(basePdf, signedPdf)).contains(sha256(base));
+        }
+    }
+
+    @Test
+    void rejectsSignedFileThatDiffersFromBase() throws Exception {
+        byte[] base = random(200_000, 5);
+        byte[] signed = concat(base, random(1_000, 6));
+        signed[150_000] ^= 1;
+
+        try (SpooledPdf basePdf = spool(base); SpooledPdf signedPdf = spool(signed)) {
+            assertThat(DocumentDelta.matchBase(basePdf, signedPdf)).isEmpty();
+        }
+    }
+
+    @Test
+    void rejectsSignedFileNoLongerThanBase() throws Exception {
+        byte[] base = random(2_000, 7);
+
+        try (SpooledPdf basePdf = spool(base);
+             SpooledPdf same = spool(base);
+             SpooledPdf shorter = spool(Arrays.copyOf(base, 1_500))) {
+            assertThat(DocumentDelta.matchBase(basePdf, same)).isEmpty();
+            assertThat(DocumentDelta.matchBase(basePdf, shorter)).isEmpty();
+        }
+    }
+
+    @Test
+    void readsHeaderAndLeavesStreamAtAppendedBytes() throws IOException {
+        byte[] header = DocumentDelta.header(HASH, 12345);
+        BufferedInputStream in = new BufferedInputStream(
+                new ByteArrayInputStream(concat(header, "%appended".getBytes(StandardCharsets.US_ASCII))));
+
+        Optional<DocumentDelta.Header> parsed = DocumentDelta.readHeader(in);
+
+        assertThat(parsed).contains(new DocumentDelta.Header(HASH, 12345));
+        assertThat(DocumentDelta.headerLength(parsed.get())).isEqualTo(header.length);
+        assertThat(new String(in.readAllBytes(), StandardCharsets.US_ASCII)).isEqualTo("%appended");
+    }
+
+    @Test
+    void leavesPlainPdfAtItsStart() throws IOException {
+        byte[] pdf = "%PDF-1.7\n1 0 obj\n<<>>\nendobj\n".getBytes(StandardCharsets.US_ASCII);
+        BufferedInputStream in = new BufferedInputStream(new ByteArrayInputStream(pdf));
+
+        assertThat(DocumentDelta.readHeader(in)).isEmpty();
+        assertThat(in.readAllBytes()).isEqualTo(pdf);
+    }
+
+    @Test
+    void leavesShortOrLongFirstLineAtItsStart() throws IOException {
+        byte[] tiny = "%P".getBytes(StandardCharsets.US_ASCII);
+        BufferedInputStream tinyIn = new BufferedInputStream(new ByteArrayInputStream(tiny));
+        assertThat(DocumentDelta.readHeader(tinyIn)).isEmpty();
+        assertThat(tinyIn.readAllBytes()).isEqualTo(tiny);
+
+        byte[] longLine = random(4_000, 8);
+        longLine[0] = '%';
+        BufferedInputStream longIn = new BufferedInputStream(new ByteArrayInputStream(longLine));
+        assertThat(DocumentDelta.readHeader(longIn)).isEmpty();
+        assertThat(longIn.readAllBytes()).isEqualTo(longLine);
+    }
+
+    @Test
+    void rejectsMalformedHeader() {
+        byte[] header = ("%SIGNER-DELTA-1 " + HASH + "\n%appended").getBytes(StandardCharsets.US_ASCII);
+
+        assertThatThrownBy(() -> DocumentDelta.readHeader(new BufferedInputStream(new ByteArrayInputStream(header))))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Malformed delta header");
+    }
+
+    @Test
+    void joinReadsAcrossTheBoundary() throws IOException {
+        byte[] base = random(10_000, 9);
+        byte[] appended = random(3_000, 10);
+
+        try (InputStream joined = DocumentDelta.join(trickle(base), trickle(appended))) {
+            assertThat(joined.readAllBytes()).isEqualTo(concat(base, appended));
+            assertThat(joined.read()).isEqualTo(-1);
+        }
+
+        try (InputStream joined = DocumentDelta.join(new ByteArrayInputStream(new byte[]{1}),
+                new ByteArrayInputStream(new byte[]{2}))) {
+            assertThat(joined.read()).isEqualTo(1);
+            assertThat(joined.read()).isEqualTo(2);
+            assertThat(joined.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void joinSkipsIntoEitherPart() throws IOException {
+        byte[] base = random(10_000, 11);
+        byte[] appended = random(3_000, 12);
+        byte[] whole = concat(base, appended);
+
+        try (InputStream joined = DocumentDelta.join(trickle(base), trickle(appended))) {
+            assertThat(joined.skip(4_000)).isEqualTo(4_000);
+            assertThat(joined.read()).isEqualTo(whole[4_000] & 0xff);
+            assertThat(joined.skip(7_000)).isEqualTo(7_000);
+            assertThat(joined.readAllBytes()).isEqualTo(Arrays.copyOfRange(whole, 11_001, whole.length));
+        }
+
+        try (InputStream joined = DocumentDelta.join(trickle(base), trickle(appended))) {
+            assertThat(joined.skip(20_000)).isEqualTo(whole.length);
+            assertThat(joined.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void joinClosesBothParts() throws IOException {
+        AtomicBoolean baseClosed = new AtomicBoolean();
+        AtomicBoolean appendedClosed = new AtomicBoolean();
+
+        DocumentDelta.join(closing(new byte[]{1, 2}, baseClosed), closing(new byte[]{3}, appendedClosed)).close();
+
+        assertThat(baseClosed).isTrue();
+        assertThat(appendedClosed).isTrue();
+    }
+
+    private SpooledPdf spool(byte[] content) {
+        return spoolService.spool(new ByteArrayInputStream(content));
+    }
+
+    private void set(String name, Object value) throws ReflectiveOperationException {
+        Field field = PdfSpoolService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(spoolService, value);
+    }
+
+    private static byte[] random(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    /**
+     * A stream that reads and skips at most 700 bytes per call, like a network stream.
+     */
+    private static InputStream trickle(byte[] content) {
+        return new ByteArrayInputStream(content) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                return super.read(buffer, offset, Math.min(length, 700));
+            }
+
+            @Override
+            public synchronized long skip(long n) {
+                return super.skip(Math.min(n, 700));
+            }
+        };
+    }
+
+    private static InputStream closing(byte[] content, AtomicBoolean closed) {
+        return new ByteArrayInputStream(content) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+    }
+}
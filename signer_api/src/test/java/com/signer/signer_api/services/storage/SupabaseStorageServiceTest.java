@@ -0,0 +1,318 @@
+package com.signer.signer_api.services.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the Supabase storage backend against a local stand-in of the Storage API.
+ */
+class SupabaseStorageServiceTest {
+
+    private static final String BUCKET = "documents";
+    private static final String KEY = "test-key";
+
+    private HttpServer server;
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, ByteArrayOutputStream> uploads = new ConcurrentHashMap<>();
+    private final Map<String, String> uploadTargets = new ConcurrentHashMap<>();
+    private final List<String> ranges = new ArrayList<>();
+    private final AtomicInteger patches = new AtomicInteger();
+    private final AtomicInteger unauthorized = new AtomicInteger();
+    private volatile int failPatch = -1;
+
+    private SupabaseStorageClient client;
+    private SupabaseStorageService storage;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/storage/v1/object/info/" + BUCKET + "/", this::info);
+        server.createContext("/storage/v1/object/" + BUCKET + "/", this::object);
+        server.createContext("/storage/v1/upload/resumable", this::resumable);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        client = new SupabaseStorageClient("http://127.0.0.1:" + server.getAddress().getPort(), KEY, BUCKET,
+                1000, 5000, 4, 4096, 1024);
+        storage = new SupabaseStorageService(client);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void storesAndStreamsDocument() throws IOException {
+        UUID documentId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        byte[] pdf = pdf(3000);
+
+        storage.store(documentId, userId, pdf, "contract.pdf");
+
+        assertThat(objects.get(userId + "/" + documentId + ".pdf")).isEqualTo(pdf);
+        assertThat(storage.exists(documentId, userId)).isTrue();
+        assertThat(storage.retrieve(documentId, userId)).hasValue(pdf);
+        assertThat(unauthorized).hasValue(0);
+    }
+
+    @Test
+    void servesRangesWithRangedRequests() throws IOException {
+        UUID documentId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        byte[] pdf = pdf(3000);
+        objects.put(userId + "/" + documentId + ".pdf", pdf);
+
+        Resource resource = storage.openResource(documentId, userId).orElseThrow();
+        assertThat(resource.contentLength()).isEqualTo(pdf.length);
+
+        try (InputStream in = resource.getInputStream()) {
+            in.skipNBytes(2000);
+            assertThat(in.readNBytes(100)).isEqualTo(Arrays.copyOfRange(pdf, 2000, 2100));
+        }
+        assertThat(ranges).containsExactly("bytes=0-127", "bytes=2000-");
+    }
+
+    @Test
+    void joinsDeltaDocumentWithItsBase() throws IOException {
+        UUID documentId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        byte[] base = pdf(5000);
+        byte[] appended = "\n% incremental update\n".getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        delta.write(DocumentDelta.header("abc123", base.length));
+        delta.write(appended);
+        objects.put(DocumentDelta.basePath("abc123"), base);
+        objects.put(userId + "/" + documentId + ".pdf", delta.toByteArray());
+
+        byte[] expected = new byte[base.length + appended.length];
+        System.arraycopy(base, 0, expected, 0, base.length);
+        System.arraycopy(appended, 0, expected, base.length, appended.length);
+
+        assertThat(storage.retrieve(documentId, userId)).hasValue(expected);
+
+        Resource resource = storage.openResource(documentId, userId).orElseThrow();
+        assertThat(resource.contentLength()).isEqualTo(expected.length);
+        try (InputStream in = resource.getInputStream()) {
+            in.skipNBytes(4990);
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(expected, 4990, expected.length));
+        }
+    }
+
+    @Test
+    void uploadsLargeObjectsInChunks() throws IOException {
+        byte[] content = pdf(10_000);
+
+        client.upload("large.pdf", new ByteArrayResource(content), "application/pdf");
+
+        assertThat(objects.get("large.pdf")).isEqualTo(content);
+        assertThat(patches).hasValue(10);
+    }
+
+    @Test
+    void resumesChunkedUploadAfterFailedChunk() throws IOException {
+        byte[] content = pdf(10_000);
+        failPatch = 3;
+
+        client.upload("resumed.pdf", new ByteArrayResource(content), "application/pdf");
+
+        assertThat(objects.get("resumed.pdf")).isEqualTo(content);
+        assertThat(patches).hasValue(11);
+    }
+
+    @Test
+    void storesDocumentFromStream() throws IOException {
+        UUID userId = UUID.randomUUID();
+        UUID smallId = UUID.randomUUID();
+        UUID largeId = UUID.randomUUID();
+        byte[] small = pdf(3000);
+        byte[] large = pdf(10_000);
+        failPatch = 3;
+
+        storage.store(smallId, userId, new ByteArrayInputStream(small), small.length, "small.pdf");
+        // The stream can be read once: the failed chunk is resent from the buffer, not by reopening the content
+        storage.store(largeId, userId, new ByteArrayInputStream(large), large.length, "large.pdf");
+
+        assertThat(objects.get(userId + "/" + smallId + ".pdf")).isEqualTo(small);
+        assertThat(objects.get(userId + "/" + largeId + ".pdf")).isEqualTo(large);
+        assertThat(patches).hasValue(11);
+    }
+
+    @Test
+    void reportsMissingDocuments() {
+        UUID documentId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+
+        assertThat(storage.openStream(documentId, userId)).isEmpty();
+        assertThat(storage.openResource(documentId, userId)).isEmpty();
+        assertThat(storage.exists(documentId, userId)).isFalse();
+        assertThat(storage.delete(documentId, userId)).isFalse();
+    }
+
+    @Test
+    void rejectsDuplicateUploads() throws IOException {
+        client.upload("once.pdf", new ByteArrayResource(pdf(100)), "application/pdf");
+
+        assertThatThrownBy(() -> client.upload("once.pdf", new ByteArrayResource(pdf(100)), "application/pdf"))
+                .isInstanceOf(StorageException.class);
+    }
+
+    private static byte[] pdf(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        System.arraycopy("%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII), 0, bytes, 0, 9);
+        return bytes;
+    }
+
+    private boolean authorized(HttpExchange exchange) throws IOException {
+        if (KEY.equals(exchange.getRequestHeaders().getFirst("apikey"))
+                && ("Bearer " + KEY).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            return true;
+        }
+        unauthorized.incrementAndGet();
+        respond(exchange, 401, "{\"error\":\"Unauthorized\"}");
+        return false;
+    }
+
+    private void info(HttpExchange exchange) throws IOException {
+        if (!authorized(exchange)) {
+            return;
+        }
+        String path = exchange.getRequestURI().getPath().substring(("/storage/v1/object/info/" + BUCKET + "/").length());
+        respond(exchange, objects.containsKey(path) ? 200 : 404, "{}");
+    }
+
+    private void object(HttpExchange exchange) throws IOException {
+        if (!authorized(exchange)) {
+            return;
+        }
+        String path = exchange.getRequestURI().getPath().substring(("/storage/v1/object/" + BUCKET + "/").length());
+        switch (exchange.getRequestMethod()) {
+            case "POST" -> {
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                if (objects.putIfAbsent(path, body) != null) {
+                    respond(exchange, 400, "{\"error\":\"Duplicate\"}");
+                } else {
+                    respond(exchange, 200, "{\"Key\":\"" + path + "\"}");
+                }
+            }
+            case "DELETE" -> respond(exchange, objects.remove(path) != null ? 200 : 404, "{}");
+            case "GET" -> download(exchange, objects.get(path));
+            default -> respond(exchange, 405, "{}");
+        }
+    }
+
+    private void download(HttpExchange exchange, byte[] content) throws IOException {
+        if (content == null) {
+            // Supabase answers a missing object with 400
+            respond(exchange, 400, "{\"error\":\"not_found\"}");
+            return;
+        }
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range == null) {
+            exchange.sendResponseHeaders(200, content.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(content);
+            }
+            return;
+        }
+        synchronized (ranges) {
+            ranges.add(range);
+        }
+        String[] bounds = range.substring("bytes=".length()).split("-", -1);
+        int start = Integer.parseInt(bounds[0]);
+        int end = bounds[1].isEmpty() ? content.length - 1 : Math.min(Integer.parseInt(bounds[1]), content.length - 1);
+        exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+        exchange.sendResponseHeaders(206, end - start + 1);
+        try (var out = exchange.getResponseBody()) {
+            out.write(content, start, end - start + 1);
+        }
+    }
+
+    private void resumable(HttpExchange exchange) throws IOException {
+        if (!authorized(exchange)) {
+            return;
+        }
+        if (!"1.0.0".equals(exchange.getRequestHeaders().getFirst("Tus-Resumable"))) {
+            respond(exchange, 412, "{\"error\":\"Unsupported TUS version\"}");
+            return;
+        }
+        String path = exchange.getRequestURI().getPath();
+        switch (exchange.getRequestMethod()) {
+            case "POST" -> {
+                Map<String, String> metadata = new HashMap<>();
+                for (String pair : exchange.getRequestHeaders().getFirst("Upload-Metadata").split(",")) {
+                    String[] parts = pair.split(" ");
+                    metadata.put(parts[0], new String(Base64.getDecoder().decode(parts[1]), StandardCharsets.UTF_8));
+                }
+                String id = UUID.randomUUID().toString();
+                uploads.put(id, new ByteArrayOutputStream());
+                uploadTargets.put(id, metadata.get("objectName") + "|"
+                        + exchange.getRequestHeaders().getFirst("Upload-Length"));
+                exchange.getResponseHeaders().set("Location", "/storage/v1/upload/resumable/" + id);
+                exchange.sendResponseHeaders(201, -1);
+                exchange.close();
+            }
+            case "PATCH" -> {
+                String id = path.substring(path.lastIndexOf('/') + 1);
+                ByteArrayOutputStream upload = uploads.get(id);
+                byte[] chunk = exchange.getRequestBody().readAllBytes();
+                long offset = Long.parseLong(exchange.getRequestHeaders().getFirst("Upload-Offset"));
+                if (patches.getAndIncrement() == failPatch || offset != upload.size()) {
+                    respond(exchange, 500, "{\"error\":\"chunk lost\"}");
+                    return;
+                }
+                upload.write(chunk);
+                String[] target = uploadTargets.get(id).split("\\|");
+                if (upload.size() == Long.parseLong(target[1])) {
+                    objects.put(target[0], upload.toByteArray());
+                }
+                exchange.getResponseHeaders().set("Upload-Offset", Integer.toString(upload.size()));
+                exchange.sendResponseHeaders(204, -1);
+                exchange.close();
+            }
+            case "HEAD" -> {
+                String id = path.substring(path.lastIndexOf('/') + 1);
+                exchange.getResponseHeaders().set("Upload-Offset", Integer.toString(uploads.get(id).size()));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+            default -> respond(exchange, 405, "{}");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
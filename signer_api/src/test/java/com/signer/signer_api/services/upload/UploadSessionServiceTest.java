@@ -0,0 +1,258 @@
+package com.signer.signer_api.services.upload;
+
+import com.signer.signer_api.models.dto.signature.SignatureRequestDto;
+import com.signer.signer_api.models.dto.upload.UploadSessionDto;
+import com.signer.signer_api.models.dto.upload.UploadSessionRequestDto;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpoolException;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import com.signer.signer_api.services.spool.SpooledRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Chunk writes, commit, the per-user limit and the signing hand-over of resumable uploads.
+ */
+class UploadSessionServiceTest {
+
+    private static final String USER = "alice";
+    private static final int CHUNK_BYTES = 4096;
+
+    @TempDir
+    Path uploadDir;
+
+    @TempDir
+    Path spoolDir;
+
+    private UploadSessionService service;
+
+    @BeforeEach
+    void createService() throws Exception {
+        PdfSpoolService spoolService = new PdfSpoolService(JsonMapper.builder().build());
+        set(spoolService, "spoolPath", spoolDir.toString());
+        set(spoolService, "memoryThreshold", 1024);
+        set(spoolService, "maxBytes", 1L << 24);
+        spoolService.init();
+
+        service = new UploadSessionService(spoolService);
+        set(service, "uploadPath", uploadDir.toString());
+        set(service, "defaultChunkBytes", CHUNK_BYTES);
+        set(service, "maxChunkBytes", 1 << 20);
+        set(service, "maxPerUser", 2);
+        set(service, "ttlMinutes", 60L);
+        set(service, "maxBytes", 1L << 24);
+        service.init();
+    }
+
+    @Test
+    void concurrentCopiesOfOneChunkDoNotInterleave() throws Exception {
+        byte[] document = content(CHUNK_BYTES * 2, 1);
+        UploadSessionDto upload = service.create(USER, new UploadSessionRequestDto(document.length, null, sha256(document)));
+        byte[] chunk = Arrays.copyOf(document, CHUNK_BYTES);
+
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                writes.add(writers.submit((Callable<Void>) () -> {
+                    start.await();
+                    service.writeChunk(upload.uploadId(), USER, 0, trickle(chunk), sha256(chunk));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> write : writes) {
+                write.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+        writeChunk(upload.uploadId(), 1, Arrays.copyOfRange(document, CHUNK_BYTES, document.length));
+
+        assertThat(service.commit(upload.uploadId(), USER).orElseThrow().committed()).isTrue();
+        try (SpooledPdf pdf = service.open(upload.uploadId(), USER)) {
+            assertThat(pdf.toByteArray()).isEqualTo(document);
+        }
+    }
+
+    @Test
+    void writesChunksInPlaceInAnyOrder() throws Exception {
+        byte[] document = content(CHUNK_BYTES * 2 + 100, 4);
+        UploadSessionDto upload = service.create(USER, new UploadSessionRequestDto(document.length, null, sha256(document)));
+        Path sessionDir = uploadDir.resolve(upload.uploadId() + ".upload");
+
+        for (int index : new int[]{2, 0, 1}) {
+            int from = index * CHUNK_BYTES;
+            int to = Math.min(from + CHUNK_BYTES, document.length);
+            writeChunk(upload.uploadId(), index, Arrays.copyOfRange(document, from, to));
+            // No per-chunk files: the document is the only file and never grows past its size
+            try (Stream<Path> files = Files.list(sessionDir)) {
+                assertThat(files).containsExactly(sessionDir.resolve("document.pdf"));
+            }
+            assertThat(Files.size(sessionDir.resolve("document.pdf"))).isEqualTo(document.length);
+        }
+
+        service.commit(upload.uploadId(), USER);
+        try (SpooledPdf pdf = service.open(upload.uploadId(), USER)) {
+            assertThat(pdf.toByteArray()).isEqualTo(document);
+        }
+    }
+
+    @Test
+    void documentChecksumMismatchAsksForEveryChunkAgain() throws Exception {
+        byte[] document = content(CHUNK_BYTES * 2, 5);
+        byte[] other = content(CHUNK_BYTES * 2, 6);
+        UploadSessionDto upload = service.create(USER, new UploadSessionRequestDto(document.length, null, sha256(document)));
+        writeChunk(upload.uploadId(), 0, Arrays.copyOf(document, CHUNK_BYTES));
+        writeChunk(upload.uploadId(), 1, Arrays.copyOfRange(other, CHUNK_BYTES, other.length));
+
+        assertThatThrownBy(() -> service.commit(upload.uploadId(), USER)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(service.find(upload.uploadId(), USER).orElseThrow().missingChunks()).containsExactly(0, 1);
+
+        writeChunk(upload.uploadId(), 0, Arrays.copyOf(document, CHUNK_BYTES));
+        writeChunk(upload.uploadId(), 1, Arrays.copyOfRange(document, CHUNK_BYTES, document.length));
+        assertThat(service.commit(upload.uploadId(), USER).orElseThrow().committed()).isTrue();
+    }
+
+    @Test
+    void rejectedChunkKeepsThePreviousCopy() throws Exception {
+        byte[] document = content(CHUNK_BYTES, 2);
+        UploadSessionDto upload = service.create(USER, new UploadSessionRequestDto(document.length, null, null));
+        writeChunk(upload.uploadId(), 0, document);
+
+        byte[] corrupt = document.clone();
+        corrupt[10] ^= 1;
+        assertThatThrownBy(() -> service.writeChunk(upload.uploadId(), USER, 0,
+                new ByteArrayInputStream(corrupt), sha256(document)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(service.find(upload.uploadId(), USER).orElseThrow().missingChunks()).isEmpty();
+        service.commit(upload.uploadId(), USER);
+        try (SpooledPdf pdf = service.open(upload.uploadId(), USER)) {
+            assertThat(pdf.toByteArray()).isEqualTo(document);
+        }
+    }
+
+    @Test
+    void limitsOpenUploadsPerUserUnderConcurrentCreates() throws Exception {
+        ExecutorService creators = Executors.newFixedThreadPool(8);
+        int created = 0;
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<UploadSessionDto>> creates = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                creates.add(creators.submit(() -> {
+                    start.await();
+                    return service.create(USER, new UploadSessionRequestDto(100, null, null));
+                }));
+            }
+            start.countDown();
+            for (Future<UploadSessionDto> create : creates) {
+                try {
+                    create.get(10, TimeUnit.SECONDS);
+                    created++;
+                } catch (Exception e) {
+                    assertThat(e).hasCauseInstanceOf(IllegalStateException.class);
+                }
+            }
+        } finally {
+            creators.shutdownNow();
+        }
+        assertThat(created).isEqualTo(2);
+
+        // Cancelling one frees its slot
+        UUID any = Files.list(uploadDir).findFirst().map(dir -> UUID.fromString(
+                dir.getFileName().toString().replace(".upload", ""))).orElseThrow();
+        assertThat(service.abort(any, USER)).isTrue();
+        assertThat(service.create(USER, new UploadSessionRequestDto(100, null, null))).isNotNull();
+    }
+
+    @Test
+    void uploadOutlivesFailedSigningAndIsConsumedOnceStored() throws Exception {
+        byte[] document = content(CHUNK_BYTES, 3);
+        UploadSessionDto upload = service.create(USER, new UploadSessionRequestDto(document.length, null, null));
+        writeChunk(upload.uploadId(), 0, document);
+        service.commit(upload.uploadId(), USER);
+        SpooledRequest<SignatureRequestDto> request = new SpooledRequest<>(signingRequest(upload.uploadId()), null);
+
+        // A signing attempt that fails: the spool is closed without consuming the upload
+        try (SpooledPdf pdf = service.documentOf(request, USER)) {
+            assertThatThrownBy(() -> service.open(upload.uploadId(), USER)).isInstanceOf(SpoolException.class);
+            assertThatThrownBy(() -> service.abort(upload.uploadId(), USER)).isInstanceOf(IllegalStateException.class);
+            assertThat(pdf.size()).isEqualTo(document.length);
+        }
+
+        try (SpooledPdf pdf = service.documentOf(request, USER)) {
+            assertThat(pdf.toByteArray()).isEqualTo(document);
+            service.consume(request, USER);
+        }
+
+        assertThat(service.find(upload.uploadId(), USER)).isEmpty();
+        assertThat(Files.list(uploadDir)).isEmpty();
+        assertThatThrownBy(() -> service.documentOf(request, USER)).isInstanceOf(SpoolException.class);
+    }
+
+    private void writeChunk(UUID uploadId, int index, byte[] chunk) throws Exception {
+        service.writeChunk(uploadId, USER, index, new ByteArrayInputStream(chunk), sha256(chunk));
+    }
+
+    private static SignatureRequestDto signingRequest(UUID uploadId) {
+        return new SignatureRequestDto(1, 36, 36, 220, 80, null, 9, null, null, null, null, null,
+                null, null, null, null, null, null, null, uploadId);
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    /**
+     * A stream that reads at most 100 bytes per call, so concurrent writers overlap.
+     */
+    private static InputStream trickle(byte[] content) {
+        return new ByteArrayInputStream(content) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                Thread.yield();
+                return super.read(buffer, offset, Math.min(length, 100));
+            }
+        };
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,133 @@
+package com.signer.signer_api.services.verification;
+
+import com.signer.signer_api.models.dto.signature.SigningContext;
+import com.signer.signer_api.models.dto.verification.SignatureVerificationDto;
+import com.signer.signer_api.models.dto.verification.VerificationReportDto;
+import com.signer.signer_api.services.SessionCertificateService;
+import com.signer.signer_api.services.SignatureService;
+import com.signer.signer_api.services.SigningFixtures;
+import com.signer.signer_api.services.spool.PdfSpoolService;
+import com.signer.signer_api.services.spool.SpooledPdf;
+import com.signer.signer_api.utils.RootCAManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Report and per-revision caching of verification results, and their invalidation when the Root CA changes.
+ */
+class SignatureVerificationServiceTest {
+
+    @TempDir
+    Path caDir;
+
+    @TempDir
+    Path otherCaDir;
+
+    @TempDir
+    Path spoolDir;
+
+    @TempDir
+    Path storageDir;
+
+    private RootCAManager rootCAManager;
+    private PdfSpoolService spoolService;
+    private SignatureService signatureService;
+    private SigningContext context;
+    private VerificationResultCache cache;
+    private SignatureVerificationService verificationService;
+
+    @BeforeEach
+    void createServices() throws Exception {
+        rootCAManager = SigningFixtures.rootCA(caDir);
+        SessionCertificateService sessionCertificateService = SigningFixtures.sessionCertificateService(rootCAManager);
+        spoolService = SigningFixtures.spoolService(spoolDir, 1024);
+        signatureService = SigningFixtures.signatureService(storageDir, spoolService, sessionCertificateService);
+        context = SigningFixtures.context(sessionCertificateService, "alice");
+
+        cache = new VerificationResultCache();
+        SigningFixtures.set(cache, "maxEntries", 100);
+        SigningFixtures.set(cache, "ttlMinutes", 60L);
+        verificationService = new SignatureVerificationService(rootCAManager, cache);
+        SigningFixtures.set(verificationService, "parallelism", 2);
+        verificationService.init();
+    }
+
+    @AfterEach
+    void stop() {
+        verificationService.shutdown();
+    }
+
+    @Test
+    void servesRepeatedDocumentFromCache() throws Exception {
+        byte[] signed = sign(SigningFixtures.samplePdf(1));
+
+        VerificationReportDto first = verify(signed);
+        VerificationReportDto second = verify(signed);
+
+        assertThat(first.cached()).isFalse();
+        assertThat(first.valid()).isTrue();
+        assertThat(second.cached()).isTrue();
+        assertThat(second.valid()).isTrue();
+        assertThat(second.documentSha256()).isEqualTo(first.documentSha256());
+    }
+
+    @Test
+    void reusesResultsForRevisionsSeenBefore() throws Exception {
+        byte[] once = sign(SigningFixtures.samplePdf(1));
+        byte[] twice = sign(once);
+        verify(once);
+
+        VerificationReportDto report = verify(twice);
+
+        assertThat(report.cached()).isFalse();
+        assertThat(report.valid()).isTrue();
+        assertThat(report.signatures()).extracting(SignatureVerificationDto::cached).containsExactly(true, false);
+        // The reused result reflects that a later revision now follows it
+        assertThat(report.signatures()).extracting(SignatureVerificationDto::coversWholeDocument)
+                .containsExactly(false, true);
+    }
+
+    @Test
+    void discardsCachedResultsWhenTheRootCAChanges() throws Exception {
+        byte[] once = sign(SigningFixtures.samplePdf(1));
+        byte[] twice = sign(once);
+        verify(once);
+        verify(twice);
+        assertThat(verify(twice).cached()).isTrue();
+        assertThat(cache.size()).isEqualTo(4);
+
+        // Another Root CA takes over, which did not issue the signers' certificates
+        SigningFixtures.set(rootCAManager, "rootCertificate", SigningFixtures.rootCA(otherCaDir).getRootCertificate());
+        VerificationReportDto report = verify(twice);
+
+        assertThat(report.cached()).isFalse();
+        assertThat(report.valid()).isFalse();
+        assertThat(report.signatures()).allSatisfy(signature -> {
+            assertThat(signature.cached()).isFalse();
+            assertThat(signature.integrityValid()).isTrue();
+            assertThat(signature.certificateChainValid()).isFalse();
+        });
+        // Only the results computed against the new root are left
+        assertThat(cache.size()).isEqualTo(3);
+    }
+
+    private byte[] sign(byte[] pdf) throws Exception {
+        try (SpooledPdf input = spoolService.spool(new ByteArrayInputStream(pdf));
+             SpooledPdf signed = signatureService.sign(context, SigningFixtures.request(1), null, input)) {
+            return signed.toByteArray();
+        }
+    }
+
+    private VerificationReportDto verify(byte[] pdf) throws Exception {
+        try (SpooledPdf input = spoolService.spool(new ByteArrayInputStream(pdf))) {
+            return verificationService.verify(input);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.signer.signer_api.utils;
+
+import com.signer.signer_api.models.IssuanceNode;
+import com.signer.signer_api.repo.IssuanceNodeRepo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.cert.X509Certificate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RootCAManagerTest {
+
+    @TempDir
+    Path caDir;
+
+    private final IssuanceNodeRepo issuanceNodeRepo = mock(IssuanceNodeRepo.class);
+
+    @Test
+    void allocatesNodeIdFromTheDatabaseWhenNoneIsConfigured() throws Exception {
+        // The sequence has wrapped once
+        when(issuanceNodeRepo.save(any(IssuanceNode.class))).thenAnswer(invocation -> {
+            IssuanceNode node = invocation.getArgument(0);
+            node.setId(SerialNumberAllocator.MAX_NODE_ID + 1L + 42);
+            return node;
+        });
+        RootCAManager rootCAManager = rootCA(-1, issuanceNodeRepo);
+
+        rootCAManager.init();
+
+        assertThat(nodeIdOf(rootCAManager.signUserCertificate(publicKey(), "Alice", 1))).isEqualTo(42);
+    }
+
+    @Test
+    void usesConfiguredNodeId() throws Exception {
+        RootCAManager rootCAManager = rootCA(7, issuanceNodeRepo);
+
+        rootCAManager.init();
+
+        assertThat(nodeIdOf(rootCAManager.signUserCertificate(publicKey(), "Alice", 1))).isEqualTo(7);
+        verify(issuanceNodeRepo, never()).save(any(IssuanceNode.class));
+    }
+
+    @Test
+    void failsStartupWithoutNodeIdOrDatabase() throws Exception {
+        RootCAManager rootCAManager = rootCA(-1, null);
+
+        assertThatThrownBy(rootCAManager::init)
+                .hasRootCauseInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("app.certificates.issuance.node-id is not set and there is no database "
+                        + "to allocate one from");
+    }
+
+    private RootCAManager rootCA(int nodeId, IssuanceNodeRepo repo) throws ReflectiveOperationException {
+        RootCAManager rootCAManager = new RootCAManager();
+        set(rootCAManager, "rootCAPath", caDir.resolve("root_ca.p12").toString());
+        set(rootCAManager, "rootCAPassword", "test");
+        set(rootCAManager, "rootCAAlias", "TestRootCA");
+        set(rootCAManager, "rootValidityYears", 1);
+        set(rootCAManager, "nodeId", nodeId);
+        set(rootCAManager, "signerPoolSize", 1);
+        set(rootCAManager, "issuanceNodeRepo", repo);
+        return rootCAManager;
+    }
+
+    private static int nodeIdOf(X509Certificate certificate) {
+        return certificate.getSerialNumber().shiftRight(64).intValueExact();
+    }
+
+    private static PublicKey publicKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        KeyPair keyPair = generator.generateKeyPair();
+        return keyPair.getPublic();
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}